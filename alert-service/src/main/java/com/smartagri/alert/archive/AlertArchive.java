@@ -0,0 +1,290 @@
+package com.smartagri.alert.archive;
+
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.exception.AlertServiceException;
+import com.smartagri.alert.model.Alert;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Alert partitions moved out of the database, one {@link SegmentFile} per table and month in the archive
+ * directory. Archived alerts are all older than the alerts still in the database, since partitions are
+ * archived oldest first, so searches reaching back before the {@linkplain #getHorizon() horizon} can
+ * simply continue into the archive after the database rows.
+ * <p>
+ * Counts are cached per criteria until the next export, since segments never change once written.
+ * <p>
+ * With several instances the archive directory should be shared, otherwise each instance only searches
+ * the segments it exported itself. History segments are cold storage for audits and offline analysis:
+ * the service never reads history back, from the database or the archive.
+ */
+@Component
+@Slf4j
+public class AlertArchive {
+
+    static final String ALERTS_TABLE = "alerts";
+
+    private static final int MAX_CACHED_COUNTS = 256;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(.+)-(\\d{4}-\\d{2})\\.seg");
+
+    // Enough to evaluate search criteria; the remaining columns are only read for matching rows
+    private static final List<String> FILTER_COLUMNS = List.of("id", "alert_time", "parcel_id", "alert_type",
+            "severity", "is_active", "acknowledged");
+    private static final List<String> DETAIL_COLUMNS = List.of("location", "title", "message", "expiry_time",
+            "acknowledged_at", "acknowledged_by", "metadata", "created_at", "fingerprint", "occurrence_count",
+            "last_seen_at");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+
+    private volatile Catalog catalog = Catalog.of(List.of());
+
+    public AlertArchive(JdbcTemplate jdbcTemplate,
+                        @Value("${alert.archive.directory:data/alert-archive}") String directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(directory);
+        loadSegments();
+    }
+
+    /**
+     * Start of the oldest alert still in the database; every archived alert is older. Null when nothing
+     * has been archived.
+     */
+    public LocalDateTime getHorizon() {
+        List<Segment> segments = catalog.segments();
+        return segments.isEmpty() ? null : segments.get(0).month.plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    /**
+     * Whether a search with these criteria can match archived alerts
+     */
+    public boolean covers(AlertSearchCriteria criteria) {
+        LocalDateTime horizon = getHorizon();
+        return horizon != null && (criteria.getStartDate() == null || criteria.getStartDate().isBefore(horizon));
+    }
+
+    /**
+     * Archived alerts matching the criteria, newest first
+     *
+     * @param after  only alerts strictly after this position in newest-first order, or null
+     * @param offset matching alerts to skip
+     * @param limit  maximum number of alerts returned
+     */
+    public List<Alert> search(AlertSearchCriteria criteria, Alert after, long offset, int limit) {
+        List<Alert> alerts = new ArrayList<>();
+        long skipped = 0;
+        for (Segment segment : catalog.segments()) {
+            if (alerts.size() >= limit) {
+                break;
+            }
+            if (!overlaps(segment, criteria, after)) {
+                continue;
+            }
+            Map<String, Object[]> filters = segment.read(FILTER_COLUMNS);
+            List<Integer> rows = new ArrayList<>();
+            List<Alert> matched = new ArrayList<>();
+            // Rows are stored oldest first
+            for (int row = segment.header.rowCount() - 1; row >= 0 && alerts.size() + matched.size() < limit; row--) {
+                Alert alert = filterFields(filters, row);
+                if (!criteria.matches(alert) || (after != null && !isAfter(alert, after))) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                rows.add(row);
+                matched.add(alert);
+            }
+            if (!matched.isEmpty()) {
+                Map<String, Object[]> details = segment.read(DETAIL_COLUMNS);
+                for (int i = 0; i < matched.size(); i++) {
+                    fillDetails(matched.get(i), details, rows.get(i));
+                }
+                alerts.addAll(matched);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Number of archived alerts matching the criteria
+     */
+    public long count(AlertSearchCriteria criteria) {
+        Catalog current = catalog;
+        AlertSearchCriteria key = criteria.toBuilder().build();
+        Long cached = current.counts().get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long count = 0;
+        for (Segment segment : current.segments()) {
+            if (!overlaps(segment, criteria, null)) {
+                continue;
+            }
+            Map<String, Object[]> filters = segment.read(FILTER_COLUMNS);
+            for (int row = 0; row < segment.header.rowCount(); row++) {
+                if (criteria.matches(filterFields(filters, row))) {
+                    count++;
+                }
+            }
+        }
+        current.counts().put(key, count);
+        return count;
+    }
+
+    /**
+     * Write all rows of a detached partition to the segment of its table and month. Must run in a
+     * transaction, so the rows are streamed with a cursor rather than loaded at once.
+     */
+    public void export(String table, String partition, String timeColumn, YearMonth month) {
+        Path path = directory.resolve(table + "-" + month + ".seg");
+        SegmentFile.Header header = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT * FROM " + partition + " ORDER BY " + timeColumn + ", id");
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            try {
+                Files.createDirectories(directory);
+                return SegmentFile.write(path, rs, timeColumn);
+            } catch (IOException e) {
+                throw new AlertServiceException("Failed to write archive segment " + path, e);
+            }
+        });
+
+        log.info("Archived {} rows of {} to {}", header.rowCount(), partition, path);
+        if (ALERTS_TABLE.equals(table)) {
+            loadSegments();
+        }
+    }
+
+    private synchronized void loadSegments() {
+        List<Segment> segments = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, ALERTS_TABLE + "-*.seg")) {
+                for (Path path : files) {
+                    Segment segment = openSegment(path);
+                    if (segment != null) {
+                        segments.add(segment);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Error listing alert archive {}: {}", directory, e.getMessage(), e);
+            }
+        }
+        segments.sort(Comparator.comparing((Segment segment) -> segment.month).reversed());
+        catalog = Catalog.of(segments);
+    }
+
+    private static Segment openSegment(Path path) {
+        Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches() || !ALERTS_TABLE.equals(matcher.group(1))) {
+            return null;
+        }
+        try {
+            return new Segment(path, YearMonth.parse(matcher.group(2)), SegmentFile.readHeader(path));
+        } catch (IOException | DateTimeParseException e) {
+            log.warn("Skipping unreadable archive segment {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean overlaps(Segment segment, AlertSearchCriteria criteria, Alert after) {
+        SegmentFile.Header header = segment.header;
+        if (header.rowCount() == 0) {
+            return false;
+        }
+        if (criteria.getStartDate() != null && header.maxTime().isBefore(criteria.getStartDate())) {
+            return false;
+        }
+        if (criteria.getEndDate() != null && header.minTime().isAfter(criteria.getEndDate())) {
+            return false;
+        }
+        return after == null || !header.minTime().isAfter(after.getAlertTime());
+    }
+
+    /**
+     * Strictly after the position in (alert time, id) descending order
+     */
+    private static boolean isAfter(Alert alert, Alert position) {
+        int byTime = alert.getAlertTime().compareTo(position.getAlertTime());
+        return byTime < 0 || (byTime == 0 && alert.getId() < position.getId());
+    }
+
+    private static Alert filterFields(Map<String, Object[]> columns, int row) {
+        Alert alert = new Alert();
+        alert.setId((Long) columns.get("id")[row]);
+        alert.setAlertTime((LocalDateTime) columns.get("alert_time")[row]);
+        alert.setParcelId((Long) columns.get("parcel_id")[row]);
+        alert.setAlertType(Alert.AlertType.valueOf((String) columns.get("alert_type")[row]));
+        alert.setSeverity(Alert.AlertSeverity.valueOf((String) columns.get("severity")[row]));
+        alert.setIsActive((Boolean) columns.get("is_active")[row]);
+        alert.setAcknowledged((Boolean) columns.get("acknowledged")[row]);
+        return alert;
+    }
+
+    private static void fillDetails(Alert alert, Map<String, Object[]> columns, int row) {
+        alert.setLocation((String) columns.get("location")[row]);
+        alert.setTitle((String) columns.get("title")[row]);
+        alert.setMessage((String) columns.get("message")[row]);
+        alert.setExpiryTime((LocalDateTime) columns.get("expiry_time")[row]);
+        alert.setAcknowledgedAt((LocalDateTime) columns.get("acknowledged_at")[row]);
+        alert.setAcknowledgedBy((String) columns.get("acknowledged_by")[row]);
+        alert.setMetadata((String) columns.get("metadata")[row]);
+        alert.setCreatedAt((LocalDateTime) columns.get("created_at")[row]);
+        alert.setFingerprint((String) columns.get("fingerprint")[row]);
+        Long occurrenceCount = (Long) columns.get("occurrence_count")[row];
+        alert.setOccurrenceCount(occurrenceCount != null ? occurrenceCount.intValue() : null);
+        alert.setLastSeenAt((LocalDateTime) columns.get("last_seen_at")[row]);
+    }
+
+    /**
+     * Alert segments, newest month first, with the counts computed over them
+     */
+    private record Catalog(List<Segment> segments, Map<AlertSearchCriteria, Long> counts) {
+
+        static Catalog of(List<Segment> segments) {
+            return new Catalog(List.copyOf(segments), Collections.synchronizedMap(
+                    new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<AlertSearchCriteria, Long> eldest) {
+                            return size() > MAX_CACHED_COUNTS;
+                        }
+                    }));
+        }
+    }
+
+    private record Segment(Path path, YearMonth month, SegmentFile.Header header) {
+
+        Map<String, Object[]> read(List<String> columns) {
+            try {
+                return SegmentFile.readColumns(path, header, columns);
+            } catch (IOException e) {
+                throw new AlertServiceException("Failed to read archive segment " + path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.smartagri.alert.archive;
+
+import com.smartagri.alert.exception.AlertServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps {@code alerts} and {@code alert_history} range-partitioned by month on their time column, and
+ * moves partitions past the retention period into the {@link AlertArchive}.
+ * <p>
+ * Hibernate creates both tables unpartitioned, so on first startup they are converted in a single
+ * transaction, before the application serves requests. Partitions for the coming months are created
+ * ahead of time, with a default partition catching anything outside them. Old partitions are archived
+ * oldest first: detached, exported to a segment file and dropped. Archiving alerts stops at the first
+ * partition still holding active alerts, which keeps every archived alert older than the ones left.
+ * <p>
+ * The primary keys become (id, time column), so lookups by id alone, such as loading an alert, saving
+ * it through JPA or bumping a coalesced alert, cannot be pruned to one partition: they probe the key
+ * index of every attached partition. Retention bounds that to one probe per retained or premade month,
+ * plus the default partition.
+ * <p>
+ * Converting a table is part of startup: if it fails, the application does not start, rather than
+ * running on a half-converted schema.
+ */
+@Component
+@Slf4j
+public class AlertPartitionManager implements SmartInitializingSingleton {
+
+    static final List<PartitionedTable> TABLES = List.of(
+            new PartitionedTable(AlertArchive.ALERTS_TABLE, "alert_time"),
+            new PartitionedTable("alert_history", "action_time"));
+
+    // Arbitrary key of the advisory lock serializing table conversions across instances
+    private static final long CONVERSION_LOCK_KEY = 0x616c657274706172L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertArchive archive;
+    private final boolean enabled;
+    private final int retentionMonths;
+    private final int premadeMonths;
+
+    public AlertPartitionManager(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 AlertArchive archive,
+                                 @Value("${alert.archive.partitioning-enabled:true}") boolean enabled,
+                                 @Value("${alert.archive.retention-months:12}") int retentionMonths,
+                                 @Value("${alert.archive.premade-months:2}") int premadeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.archive = archive;
+        this.enabled = enabled;
+        this.retentionMonths = retentionMonths;
+        this.premadeMonths = premadeMonths;
+    }
+
+    /**
+     * Runs once all beans exist, i.e. after Hibernate's schema update and schema.sql, but before
+     * the gRPC server and scheduled tasks start
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        for (PartitionedTable table : TABLES) {
+            try {
+                partitionIfNeeded(table);
+            } catch (RuntimeException e) {
+                throw new AlertServiceException("Failed to partition " + table.name(), e);
+            }
+        }
+        createUpcomingPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${alert.archive.maintenance-interval:86400000}", initialDelay = 60000)
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        createUpcomingPartitions();
+        if (retentionMonths > 0) {
+            for (PartitionedTable table : TABLES) {
+                archiveExpiredPartitions(table);
+            }
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        for (PartitionedTable table : TABLES) {
+            for (int i = 0; i <= premadeMonths; i++) {
+                try {
+                    createPartition(table, current.plusMonths(i));
+                } catch (Exception e) {
+                    log.error("Error creating partition of {} for {}: {}", table.name(), current.plusMonths(i),
+                            e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace an unpartitioned table by a partitioned one with the same columns, defaults, checks and
+     * indexes, holding the same rows. Identity columns become sequence defaults, since partitioned
+     * tables can't have them on all supported PostgreSQL versions, and the primary key gains the
+     * partition column, which PostgreSQL requires.
+     */
+    private void partitionIfNeeded(PartitionedTable table) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Checked under the lock, so an instance starting concurrently never converts the table twice
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + CONVERSION_LOCK_KEY + ")");
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table.name());
+            if (!"r".equals(kind)) {
+                return;
+            }
+            String legacy = table.name() + "_unpartitioned";
+            jdbcTemplate.execute("LOCK TABLE " + table.name() + " IN ACCESS EXCLUSIVE MODE");
+
+            // Primary key and unique indexes can't carry over without the partition column
+            List<String> indexes = jdbcTemplate.queryForList("SELECT pg_get_indexdef(indexrelid) FROM pg_index " +
+                    "WHERE indrelid = to_regclass(?) AND NOT indisunique", String.class, table.name());
+            List<String> identityColumns = jdbcTemplate.queryForList("SELECT attname::text FROM pg_attribute " +
+                    "WHERE attrelid = to_regclass(?) AND attidentity <> ''", String.class, table.name());
+            LocalDateTime oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(" + table.timeColumn() + ") FROM " + table.name(), LocalDateTime.class);
+
+            jdbcTemplate.execute("ALTER TABLE " + table.name() + " RENAME TO " + legacy);
+            jdbcTemplate.execute("CREATE TABLE " + table.name() + " (LIKE " + legacy +
+                    " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (" + table.timeColumn() + ")");
+            jdbcTemplate.execute("ALTER TABLE " + table.name() + " ADD PRIMARY KEY (id, " + table.timeColumn() + ")");
+            jdbcTemplate.execute("CREATE TABLE " + table.name() + "_default PARTITION OF " + table.name() + " DEFAULT");
+
+            YearMonth last = YearMonth.now().plusMonths(premadeMonths);
+            for (YearMonth month = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+                 !month.isAfter(last); month = month.plusMonths(1)) {
+                createPartition(table, month);
+            }
+
+            int rows = jdbcTemplate.update("INSERT INTO " + table.name() + " SELECT * FROM " + legacy);
+            jdbcTemplate.execute("DROP TABLE " + legacy);
+            indexes.forEach(jdbcTemplate::execute);
+
+            for (String column : identityColumns) {
+                String sequence = table.name() + "_" + column + "_seq";
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence);
+                jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', COALESCE(MAX(" + column + "), 0) + 1, " +
+                        "false) FROM " + table.name(), Long.class);
+                jdbcTemplate.execute("ALTER TABLE " + table.name() + " ALTER COLUMN " + column +
+                        " SET DEFAULT nextval('" + sequence + "')");
+            }
+            log.info("Converted {} to a partitioned table with {} rows", table.name(), rows);
+        });
+    }
+
+    private void createPartition(PartitionedTable table, YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table.partition(month) +
+                " PARTITION OF " + table.name() +
+                " FOR VALUES FROM ('" + month.atDay(1).atStartOfDay() + "')" +
+                " TO ('" + month.plusMonths(1).atDay(1).atStartOfDay() + "')");
+    }
+
+    /**
+     * Archive the partitions that ended before the retention period, oldest first. Partitions detached
+     * by an earlier run that failed to export are picked up again.
+     */
+    private void archiveExpiredPartitions(PartitionedTable table) {
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        try {
+            for (String partition : detachedPartitions(table)) {
+                exportAndDrop(table, partition);
+            }
+            for (String partition : attachedPartitions(table)) {
+                YearMonth month = table.monthOf(partition);
+                if (!month.isBefore(cutoff)) {
+                    break;
+                }
+                if (!detach(table, partition)) {
+                    log.info("Partition {} still holds active alerts, archiving stops there", partition);
+                    break;
+                }
+                exportAndDrop(table, partition);
+            }
+        } catch (Exception e) {
+            log.error("Error archiving partitions of {}: {}", table.name(), e.getMessage(), e);
+        }
+    }
+
+    private boolean detach(PartitionedTable table, String partition) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            // Same lock DETACH takes, held from the check on so no alert in the partition is reactivated
+            jdbcTemplate.execute("LOCK TABLE " + table.name() + " IN ACCESS EXCLUSIVE MODE");
+            if (!attachedPartitions(table).contains(partition)) {
+                return false;
+            }
+            if (table.name().equals(AlertArchive.ALERTS_TABLE) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE is_active)", Boolean.class))) {
+                return false;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table.name() + " DETACH PARTITION " + partition);
+            return true;
+        }));
+    }
+
+    /**
+     * Export a detached partition and drop it in one transaction, so a failed export leaves the table
+     * for the next run. NOWAIT skips a partition another instance is exporting.
+     */
+    private void exportAndDrop(PartitionedTable table, String partition) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE NOWAIT");
+            archive.export(table.name(), partition, table.timeColumn(), table.monthOf(partition));
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        });
+    }
+
+    /**
+     * Monthly partitions currently attached, oldest first
+     */
+    private List<String> attachedPartitions(PartitionedTable table) {
+        return jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?) " +
+                "AND c.relname ~ ? ORDER BY c.relname", String.class, table.name(), table.partitionPattern());
+    }
+
+    private List<String> detachedPartitions(PartitionedTable table) {
+        return jdbcTemplate.queryForList("SELECT relname::text FROM pg_class " +
+                "WHERE relkind = 'r' AND NOT relispartition AND relname ~ ? " +
+                "AND relnamespace = to_regnamespace(current_schema()) ORDER BY relname",
+                String.class, table.partitionPattern());
+    }
+
+    record PartitionedTable(String name, String timeColumn) {
+
+        String partition(YearMonth month) {
+            return name + "_p" + month.format(PARTITION_SUFFIX);
+        }
+
+        String partitionPattern() {
+            return "^" + name + "_p[0-9]{6}$";
+        }
+
+        YearMonth monthOf(String partition) {
+            return YearMonth.parse(partition.substring(partition.length() - 6), PARTITION_SUFFIX);
+        }
+    }
+}
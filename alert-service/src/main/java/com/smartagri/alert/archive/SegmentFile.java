@@ -0,0 +1,346 @@
+package com.smartagri.alert.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed columnar file holding the rows of one archived table partition.
+ * <p>
+ * The header lists the row count, the time range of the partition column and each column's name, type
+ * and block length; it is followed by one deflate-compressed block per column. Numbers and timestamps
+ * are stored as zig-zag varint deltas from the previous row, strings as length-prefixed UTF-8, and each
+ * value is preceded by a presence flag so nulls survive the round trip. Readers can skip a file by its
+ * time range from the header alone, and decompress only the columns they need.
+ */
+public final class SegmentFile {
+
+    private static final int MAGIC = 0x41534547; // "ASEG"
+    private static final int VERSION = 1;
+    // magic, version, row count and column count, then the time range
+    private static final long FIXED_HEADER_LENGTH = 4L * 4 + 2L * 8;
+
+    public enum ColumnType { LONG, BOOLEAN, TIMESTAMP, STRING }
+
+    private SegmentFile() {
+    }
+
+    /**
+     * Time range and column layout of a segment, read without decompressing any column
+     */
+    public record Header(int rowCount, LocalDateTime minTime, LocalDateTime maxTime,
+                         Map<String, ColumnType> columns, Map<String, long[]> blocks) {
+    }
+
+    /**
+     * Write all rows of the result set to the given file, replacing it atomically once complete
+     *
+     * @param timeColumn timestamp column whose range is recorded in the header
+     */
+    public static Header write(Path path, ResultSet rs, String timeColumn) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        List<ColumnWriter> writers = new ArrayList<>(columnCount);
+        int timeIndex = -1;
+        for (int i = 1; i <= columnCount; i++) {
+            String name = metaData.getColumnName(i);
+            writers.add(new ColumnWriter(name, typeOf(metaData.getColumnType(i))));
+            if (name.equals(timeColumn)) {
+                timeIndex = i - 1;
+            }
+        }
+        if (timeIndex < 0 || writers.get(timeIndex).type != ColumnType.TIMESTAMP) {
+            throw new IllegalArgumentException("No timestamp column " + timeColumn + " in result set");
+        }
+
+        int rowCount = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        while (rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                writers.get(i).write(rs, i + 1);
+            }
+            LocalDateTime time = rs.getObject(timeIndex + 1, LocalDateTime.class);
+            if (time != null) {
+                minTime = Math.min(minTime, toMicros(time));
+                maxTime = Math.max(maxTime, toMicros(time));
+            }
+            rowCount++;
+        }
+
+        Map<String, ColumnType> columns = new LinkedHashMap<>();
+        Map<String, long[]> blocks = new LinkedHashMap<>();
+        List<byte[]> data = new ArrayList<>(columnCount);
+        for (ColumnWriter writer : writers) {
+            byte[] block = writer.finish();
+            columns.put(writer.name, writer.type);
+            data.add(block);
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rowCount);
+            out.writeLong(rowCount > 0 ? minTime : 0);
+            out.writeLong(rowCount > 0 ? maxTime : 0);
+            out.writeInt(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                out.writeUTF(writers.get(i).name);
+                out.writeByte(writers.get(i).type.ordinal());
+                out.writeInt(data.get(i).length);
+            }
+            long offset = headerLength(writers);
+            for (int i = 0; i < columnCount; i++) {
+                out.write(data.get(i));
+                blocks.put(writers.get(i).name, new long[]{offset, data.get(i).length});
+                offset += data.get(i).length;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new Header(rowCount, rowCount > 0 ? fromMicros(minTime) : null,
+                rowCount > 0 ? fromMicros(maxTime) : null, columns, blocks);
+    }
+
+    public static Header readHeader(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a segment file: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported segment version " + version + ": " + path);
+            }
+            int rowCount = in.readInt();
+            long minTime = in.readLong();
+            long maxTime = in.readLong();
+            int columnCount = in.readInt();
+
+            Map<String, ColumnType> columns = new LinkedHashMap<>();
+            List<String> names = new ArrayList<>(columnCount);
+            List<Integer> lengths = new ArrayList<>(columnCount);
+            long offset = FIXED_HEADER_LENGTH;
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                columns.put(name, ColumnType.values()[in.readByte()]);
+                names.add(name);
+                lengths.add(in.readInt());
+                offset += columnHeaderLength(name);
+            }
+            Map<String, long[]> blocks = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                blocks.put(names.get(i), new long[]{offset, lengths.get(i)});
+                offset += lengths.get(i);
+            }
+            return new Header(rowCount, rowCount > 0 ? fromMicros(minTime) : null,
+                    rowCount > 0 ? fromMicros(maxTime) : null, columns, blocks);
+        }
+    }
+
+    /**
+     * Decompress the given columns, in row order. Longs come back as {@link Long}, timestamps as
+     * {@link LocalDateTime}; missing columns are returned as all nulls.
+     */
+    public static Map<String, Object[]> readColumns(Path path, Header header, Collection<String> names)
+            throws IOException {
+        Map<String, Object[]> columns = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (String name : names) {
+                ColumnType type = header.columns().get(name);
+                long[] block = header.blocks().get(name);
+                if (type == null || block == null) {
+                    columns.put(name, new Object[header.rowCount()]);
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate((int) block[1]);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, block[0] + buffer.position()) < 0) {
+                        throw new IOException("Truncated segment file: " + path);
+                    }
+                }
+                columns.put(name, readColumn(new ByteArrayInputStream(buffer.array()), type, header.rowCount()));
+            }
+        }
+        return columns;
+    }
+
+    private static Object[] readColumn(InputStream block, ColumnType type, int rowCount) throws IOException {
+        Object[] values = new Object[rowCount];
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(block))) {
+            long previous = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (!in.readBoolean()) {
+                    continue;
+                }
+                switch (type) {
+                    case LONG -> {
+                        previous += unzigzag(readVarLong(in));
+                        values[row] = previous;
+                    }
+                    case TIMESTAMP -> {
+                        previous += unzigzag(readVarLong(in));
+                        values[row] = fromMicros(previous);
+                    }
+                    case BOOLEAN -> values[row] = in.readBoolean();
+                    case STRING -> {
+                        byte[] bytes = new byte[(int) readVarLong(in)];
+                        in.readFully(bytes);
+                        values[row] = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static long headerLength(List<ColumnWriter> writers) {
+        long length = FIXED_HEADER_LENGTH;
+        for (ColumnWriter writer : writers) {
+            length += columnHeaderLength(writer.name);
+        }
+        return length;
+    }
+
+    /**
+     * Name as modified UTF-8 with its length, type byte and block length
+     */
+    private static long columnHeaderLength(String name) {
+        return 2 + name.getBytes(StandardCharsets.UTF_8).length + 1 + 4;
+    }
+
+    private static ColumnType typeOf(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> ColumnType.LONG;
+            case Types.BOOLEAN, Types.BIT -> ColumnType.BOOLEAN;
+            case Types.TIMESTAMP, Types.DATE -> ColumnType.TIMESTAMP;
+            default -> ColumnType.STRING;
+        };
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in segment");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class ColumnWriter {
+        private final String name;
+        private final ColumnType type;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out;
+        private long previous;
+
+        private ColumnWriter(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+            this.out = new DataOutputStream(new DeflaterOutputStream(bytes,
+                    new Deflater(Deflater.BEST_COMPRESSION), 8192));
+        }
+
+        private void write(ResultSet rs, int index) throws SQLException, IOException {
+            switch (type) {
+                case LONG -> {
+                    long value = rs.getLong(index);
+                    if (present(!rs.wasNull())) {
+                        writeVarLong(out, zigzag(value - previous));
+                        previous = value;
+                    }
+                }
+                case TIMESTAMP -> {
+                    LocalDateTime value = rs.getObject(index, LocalDateTime.class);
+                    if (present(value != null)) {
+                        long micros = toMicros(value);
+                        writeVarLong(out, zigzag(micros - previous));
+                        previous = micros;
+                    }
+                }
+                case BOOLEAN -> {
+                    boolean value = rs.getBoolean(index);
+                    if (present(!rs.wasNull())) {
+                        out.writeBoolean(value);
+                    }
+                }
+                case STRING -> {
+                    String value = rs.getString(index);
+                    if (present(value != null)) {
+                        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                        writeVarLong(out, utf8.length);
+                        out.write(utf8);
+                    }
+                }
+            }
+        }
+
+        private boolean present(boolean isPresent) throws IOException {
+            out.writeBoolean(isPresent);
+            return isPresent;
+        }
+
+        private byte[] finish() throws IOException {
+            out.close();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -1,46 +1,26 @@
 package com.smartagri.alert.config;
 
+import com.smartagri.alert.metrics.AlertMetrics;
 import io.grpc.ServerInterceptor;
-import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * gRPC Configuration
  */
 @Configuration
-@Slf4j
 public class GrpcConfig {
 
     /**
-     * Global gRPC interceptor for logging
+     * Global gRPC interceptor recording per-method metrics, logging only slow, failed and sampled calls
      */
     @GrpcGlobalServerInterceptor
-    public ServerInterceptor loggingInterceptor() {
-        return new LoggingServerInterceptor();
-    }
-
-    /**
-     * Custom logging interceptor
-     */
-    private static class LoggingServerInterceptor implements ServerInterceptor {
-
-        @Override
-        public <ReqT, RespT> io.grpc.ServerCall.Listener<ReqT> interceptCall(
-                io.grpc.ServerCall<ReqT, RespT> call,
-                io.grpc.Metadata headers,
-                io.grpc.ServerCallHandler<ReqT, RespT> next) {
-
-            String methodName = call.getMethodDescriptor().getFullMethodName();
-            log.info("gRPC Request: {}", methodName);
-
-            return next.startCall(new io.grpc.ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
-                @Override
-                public void close(io.grpc.Status status, io.grpc.Metadata trailers) {
-                    log.info("gRPC Response: {} - Status: {}", methodName, status.getCode());
-                    super.close(status, trailers);
-                }
-            }, headers);
-        }
+    public ServerInterceptor metricsInterceptor(AlertMetrics metrics,
+                                                @Value("${alert.grpc.slow-call-threshold:1000}") long slowCallMillis,
+                                                @Value("${alert.grpc.log-sample-rate:0.0}") double logSampleRate) {
+        return new GrpcMetricsInterceptor(metrics, Duration.ofMillis(slowCallMillis), logSampleRate);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package com.smartagri.alert.config;
+
+import com.smartagri.alert.metrics.AlertMetrics;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records every gRPC call in the per-method meters of {@link AlertMetrics}: latency, calls in flight,
+ * messages per streaming call and the response status. A call counts as finished when it is closed or
+ * cancelled by the client, whichever comes first.
+ * <p>
+ * Instead of logging every call, only unary calls slower than the threshold, calls failing with a
+ * server-side status and a sample of the remaining calls are logged.
+ */
+@Slf4j
+public class GrpcMetricsInterceptor implements ServerInterceptor {
+
+    private final AlertMetrics metrics;
+    private final long slowCallNanos;
+    private final double logSampleRate;
+
+    public GrpcMetricsInterceptor(AlertMetrics metrics, Duration slowCallThreshold, double logSampleRate) {
+        this.metrics = metrics;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.logSampleRate = logSampleRate;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        CallMetrics callMetrics = new CallMetrics(call.getMethodDescriptor());
+
+        ServerCall.Listener<ReqT> listener = next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                callMetrics.sent.incrementAndGet();
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void close(Status status, Metadata trailers) {
+                callMetrics.finish(status);
+                super.close(status, trailers);
+            }
+        }, headers);
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                callMetrics.received.incrementAndGet();
+                super.onMessage(message);
+            }
+
+            @Override
+            public void onCancel() {
+                callMetrics.finish(Status.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private final class CallMetrics {
+        private final MethodDescriptor<?, ?> method;
+        private final AlertMetrics.GrpcMethodMeters meters;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private CallMetrics(MethodDescriptor<?, ?> method) {
+            this.method = method;
+            this.meters = metrics.grpcMethod(method);
+            meters.callStarted();
+        }
+
+        private void finish(Status status) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long durationNanos = System.nanoTime() - startNanos;
+            meters.callFinished(durationNanos, status.getCode(), received.get(), sent.get());
+            log(status, durationNanos);
+        }
+
+        private void log(Status status, long durationNanos) {
+            long millis = Duration.ofNanos(durationNanos).toMillis();
+            if (isServerError(status.getCode())) {
+                log.warn("gRPC call {} failed after {} ms: {} {}", method.getFullMethodName(), millis,
+                        status.getCode(), status.getDescription());
+            } else if (method.getType() == MethodDescriptor.MethodType.UNARY && durationNanos > slowCallNanos) {
+                log.warn("Slow gRPC call {} took {} ms, status {}", method.getFullMethodName(), millis,
+                        status.getCode());
+            } else if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log.info("gRPC call {} took {} ms, status {}, {} received, {} sent", method.getFullMethodName(),
+                        millis, status.getCode(), received.get(), sent.get());
+            }
+        }
+    }
+
+    private static boolean isServerError(Status.Code code) {
+        return switch (code) {
+            case UNKNOWN, INTERNAL, UNAVAILABLE, DATA_LOSS, UNIMPLEMENTED, DEADLINE_EXCEEDED -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,205 @@
+package com.smartagri.alert.dedupe;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventListener;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertRowMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces repeated alerts into the active alert with the same fingerprint (type, parcel, location, title)
+ * when they arrive within the dedupe window of its last occurrence.
+ * <p>
+ * Recently seen fingerprints are kept in a concurrent in-memory index, so a duplicate costs a single
+ * statement bumping the existing alert. The {@code alert_fingerprints} table is the source of truth
+ * across threads and instances: a new alert must first claim its fingerprint row, and concurrent
+ * claimers queue on that row's lock and then coalesce into the winner's alert.
+ * All methods must be called inside the caller's transaction.
+ */
+@Component
+@Slf4j
+public class AlertDeduplicator implements AlertEventListener {
+
+    private static final String CLAIM_SQL = "INSERT INTO alert_fingerprints (fingerprint, alert_id, last_seen_at) " +
+            "VALUES (?, NULL, ?) " +
+            "ON CONFLICT (fingerprint) DO UPDATE SET alert_id = NULL, last_seen_at = EXCLUDED.last_seen_at " +
+            "WHERE alert_fingerprints.last_seen_at < ? " +
+            "RETURNING fingerprint";
+
+    private static final String BUMP_SQL = "WITH bumped AS (" +
+            "UPDATE alerts SET occurrence_count = COALESCE(occurrence_count, 1) + 1, last_seen_at = ?, " +
+            "row_version = row_version + 1 " +
+            "WHERE id = ? AND is_active = true RETURNING *), " +
+            "touched AS (UPDATE alert_fingerprints SET last_seen_at = ? " +
+            "WHERE fingerprint = ? AND EXISTS (SELECT 1 FROM bumped)) " +
+            "SELECT * FROM bumped";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration window;
+    private final Map<String, SeenAlert> recent = new ConcurrentHashMap<>();
+
+    public AlertDeduplicator(JdbcTemplate jdbcTemplate,
+                             AlertEventHub eventHub,
+                             @Value("${alert.dedupe.window:600000}") long windowMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.window = Duration.ofMillis(windowMillis);
+        eventHub.subscribe(this);
+    }
+
+    public boolean isEnabled() {
+        return !window.isZero() && !window.isNegative();
+    }
+
+    public static String fingerprint(Alert.AlertType alertType, Long parcelId, String location, String title) {
+        String key = alertType + "|" + parcelId + "|" + (location != null ? location : "") + "|" + title;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Fold a new occurrence into the alert already open for its fingerprint. When there is none, the
+     * fingerprint is claimed for the caller, who must create the alert and then call {@link #bind}.
+     *
+     * @return the existing alert after the bump, or empty if the caller has to create the alert
+     */
+    public Optional<Alert> coalesceOrClaim(String fingerprint, LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(window);
+
+        SeenAlert seen = recent.get(fingerprint);
+        if (seen != null && seen.lastSeenAt().isAfter(cutoff)) {
+            Optional<Alert> bumped = bump(seen.alertId(), fingerprint, now);
+            if (bumped.isPresent()) {
+                return bumped;
+            }
+            recent.remove(fingerprint, seen);
+        }
+
+        boolean claimed = !jdbcTemplate.queryForList(CLAIM_SQL, String.class, fingerprint,
+                Timestamp.valueOf(now), Timestamp.valueOf(cutoff)).isEmpty();
+        if (claimed) {
+            return Optional.empty();
+        }
+
+        List<Long> owner = jdbcTemplate.queryForList(
+                "SELECT alert_id FROM alert_fingerprints WHERE fingerprint = ?", Long.class, fingerprint);
+        if (!owner.isEmpty() && owner.get(0) != null) {
+            Optional<Alert> bumped = bump(owner.get(0), fingerprint, now);
+            if (bumped.isPresent()) {
+                return bumped;
+            }
+        }
+
+        // The owning alert is no longer active: take the fingerprint over
+        jdbcTemplate.update("UPDATE alert_fingerprints SET alert_id = NULL, last_seen_at = ? WHERE fingerprint = ?",
+                Timestamp.valueOf(now), fingerprint);
+        return Optional.empty();
+    }
+
+    /**
+     * Attach a newly created alert to the fingerprint claimed for it
+     */
+    public void bind(String fingerprint, Long alertId, LocalDateTime seenAt) {
+        jdbcTemplate.update("UPDATE alert_fingerprints SET alert_id = ? WHERE fingerprint = ?", alertId, fingerprint);
+        rememberAfterCommit(fingerprint, alertId, seenAt);
+    }
+
+    /**
+     * Attach newly created alerts to the fingerprints claimed for them
+     */
+    public void bindAll(List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE alert_fingerprints SET alert_id = ? WHERE fingerprint = ?", alerts,
+                alerts.size(), (ps, alert) -> {
+                    ps.setLong(1, alert.getId());
+                    ps.setString(2, alert.getFingerprint());
+                });
+        alerts.forEach(alert -> rememberAfterCommit(alert.getFingerprint(), alert.getId(), alert.getAlertTime()));
+    }
+
+    /**
+     * Release the fingerprints of alerts that are no longer active, so the next occurrence opens a new alert
+     */
+    public void release(Collection<Long> alertIds) {
+        if (alertIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM alert_fingerprints WHERE alert_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", alertIds.toArray())));
+    }
+
+    /**
+     * Drop index entries whose window has passed; the guard table still covers them
+     */
+    @Scheduled(fixedDelayString = "${alert.dedupe.eviction-interval:60000}")
+    public void evictStale() {
+        if (!isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(window);
+        recent.values().removeIf(seen -> seen.lastSeenAt().isBefore(cutoff));
+    }
+
+    @Override
+    public void onAlertEvent(AlertEvent event) {
+        String fingerprint = event.getAlert().getFingerprint();
+        if (fingerprint != null
+                && (event.getType() == AlertEventType.DISMISSED || event.getType() == AlertEventType.EXPIRED)) {
+            recent.computeIfPresent(fingerprint,
+                    (key, seen) -> seen.alertId().equals(event.getAlertId()) ? null : seen);
+        }
+    }
+
+    private Optional<Alert> bump(Long alertId, String fingerprint, LocalDateTime now) {
+        Timestamp seenAt = Timestamp.valueOf(now);
+        List<Alert> bumped = jdbcTemplate.query(BUMP_SQL, AlertRowMapper.INSTANCE, seenAt, alertId, seenAt, fingerprint);
+        if (bumped.isEmpty()) {
+            return Optional.empty();
+        }
+        rememberAfterCommit(fingerprint, alertId, now);
+        return Optional.of(bumped.get(0));
+    }
+
+    private void rememberAfterCommit(String fingerprint, Long alertId, LocalDateTime seenAt) {
+        SeenAlert seen = new SeenAlert(alertId, seenAt);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(fingerprint, seen);
+                }
+            });
+        } else {
+            recent.put(fingerprint, seen);
+        }
+    }
+
+    private record SeenAlert(Long alertId, LocalDateTime lastSeenAt) {
+    }
+}
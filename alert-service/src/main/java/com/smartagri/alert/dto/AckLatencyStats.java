@@ -0,0 +1,30 @@
+package com.smartagri.alert.dto;
+
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.stats.LatencySketch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Time-to-acknowledge percentiles, in seconds, of one alert type and severity;
+ * both are null for the figures over all alerts
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AckLatencyStats {
+
+    private Alert.AlertType alertType;
+    private Alert.AlertSeverity severity;
+    private long count;
+    private long p50Seconds;
+    private long p90Seconds;
+    private long p99Seconds;
+
+    public static AckLatencyStats of(Alert.AlertType alertType, Alert.AlertSeverity severity,
+                                     LatencySketch sketch) {
+        return new AckLatencyStats(alertType, severity, sketch.getCount(),
+                sketch.quantile(0.5), sketch.quantile(0.9), sketch.quantile(0.99));
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartagri.alert.dto;
+
+import com.smartagri.alert.model.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of acknowledging one alert of a bulk acknowledgement
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcknowledgementResult {
+
+    private Long alertId;
+
+    private Outcome outcome;
+
+    /**
+     * The alert in its new state; only set when it was acknowledged by this request
+     */
+    private Alert alert;
+
+    public enum Outcome {
+        ACKNOWLEDGED,
+        ALREADY_ACKNOWLEDGED,
+        NOT_FOUND
+    }
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  * Criteria for searching and filtering alerts
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class AlertSearchCriteria {
@@ -62,6 +62,32 @@ public class AlertSearchCriteria {
      */
     private String location;
 
+    /**
+     * Whether the alert passes the parcel, type, severity, status and date filters, the same ones
+     * applied by the database search
+     */
+    public boolean matches(Alert alert) {
+        if (parcelId != null && !parcelId.equals(alert.getParcelId())) {
+            return false;
+        }
+        if (alertType != null && alertType != alert.getAlertType()) {
+            return false;
+        }
+        if (severity != null && severity != alert.getSeverity()) {
+            return false;
+        }
+        if (isActive != null && !isActive.equals(alert.getIsActive())) {
+            return false;
+        }
+        if (acknowledged != null && !acknowledged.equals(alert.getAcknowledged())) {
+            return false;
+        }
+        if (startDate != null && (alert.getAlertTime() == null || alert.getAlertTime().isBefore(startDate))) {
+            return false;
+        }
+        return endDate == null || (alert.getAlertTime() != null && !alert.getAlertTime().isAfter(endDate));
+    }
+
     @Override
     public String toString() {
         return "AlertSearchCriteria{" +
@@ -0,0 +1,33 @@
+package com.smartagri.alert.dto;
+
+import com.smartagri.alert.model.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated alert search, newest alerts first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertSearchPage {
+
+    private List<Alert> alerts;
+
+    /**
+     * Opaque cursor to pass back for the next page; null on the last page
+     */
+    private String nextCursor;
+
+    /**
+     * Number of alerts matching the criteria, when requested
+     */
+    private Long totalCount;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
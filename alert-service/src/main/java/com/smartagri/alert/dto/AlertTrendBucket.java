@@ -0,0 +1,39 @@
+package com.smartagri.alert.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One point of an alert trend series: alerts raised in the bucket and how many of them were acknowledged
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertTrendBucket {
+
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+
+    private LocalDateTime bucketStart;
+    private long created;
+    private long acknowledged;
+    private long ackLatencySeconds;
+
+    /**
+     * Average minutes from alert to acknowledgement, 0 when nothing was acknowledged
+     */
+    public long getAvgResponseMinutes() {
+        return acknowledged == 0 ? 0 : ackLatencySeconds / acknowledged / 60;
+    }
+
+    public void add(long createdDelta, long acknowledgedDelta, long latencyDelta) {
+        created += createdDelta;
+        acknowledged += acknowledgedDelta;
+        ackLatencySeconds += latencyDelta;
+    }
+}
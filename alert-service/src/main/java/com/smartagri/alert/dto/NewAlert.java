@@ -0,0 +1,36 @@
+package com.smartagri.alert.dto;
+
+import com.smartagri.alert.model.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Alert to be created, as submitted by a client
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewAlert {
+
+    private Alert.AlertType alertType;
+
+    private Alert.AlertSeverity severity;
+
+    private Long parcelId;
+
+    private String location;
+
+    private String title;
+
+    private String message;
+
+    /**
+     * Seconds until the alert expires; no expiry when null or not positive
+     */
+    private Long expirySeconds;
+
+    private String metadata;
+}
@@ -0,0 +1,61 @@
+package com.smartagri.alert.event;
+
+import com.smartagri.alert.model.Alert;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable alert state change, carrying a detached snapshot of the alert
+ */
+@Getter
+public class AlertEvent {
+
+    private final long sequence;
+    private final AlertEventType type;
+    private final Alert alert;
+    private final LocalDateTime occurredAt;
+
+    @Getter(AccessLevel.NONE)
+    private volatile Map<Object, Object> encodings;
+
+    public AlertEvent(long sequence, AlertEventType type, Alert alert, LocalDateTime occurredAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.alert = alert;
+        this.occurredAt = occurredAt;
+    }
+
+    /**
+     * Encoding of this event in the given wire format, computed by the first consumer that needs it
+     * and shared by all others
+     *
+     * @param format key identifying the wire format, e.g. a message version plus field mask
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T encoded(Object format, Function<AlertEvent, T> encoder) {
+        Map<Object, Object> cache = encodings;
+        if (cache == null) {
+            synchronized (this) {
+                if (encodings == null) {
+                    encodings = new ConcurrentHashMap<>(2);
+                }
+                cache = encodings;
+            }
+        }
+        return (T) cache.computeIfAbsent(format, key -> encoder.apply(this));
+    }
+
+    public Long getAlertId() {
+        return alert.getId();
+    }
+
+    @Override
+    public String toString() {
+        return "AlertEvent{sequence=" + sequence + ", type=" + type + ", alertId=" + alert.getId() + '}';
+    }
+}
@@ -0,0 +1,169 @@
+package com.smartagri.alert.event;
+
+import com.smartagri.alert.model.Alert;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process hub pushing alert state changes to live consumers (e.g. open gRPC streams).
+ * Events raised inside a transaction are only dispatched once it commits, and all
+ * listeners are invoked from a single dispatcher thread so they observe events in order.
+ * <p>
+ * Every dispatched event gets a sequence number and is kept in a bounded ring so that reconnecting
+ * streams can replay what they missed. Events relayed from the outbox keep their outbox sequence,
+ * which is the same on every instance, so a cursor stays valid when a client reconnects elsewhere.
+ * Events published without one get the next local sequence; these are seeded from the wall clock,
+ * so cursors handed out before a restart never alias events issued after it.
+ */
+@Component
+@Slf4j
+public class AlertEventHub {
+
+    private final List<AlertEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alert-event-hub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong sequence;
+    private final AlertEventRing replayBuffer;
+
+    public AlertEventHub(@Value("${alert.stream.replay-buffer-size:10000}") int replayBufferSize) {
+        this.sequence = new AtomicLong(System.currentTimeMillis() << 20);
+        this.replayBuffer = new AlertEventRing(replayBufferSize, sequence.get());
+    }
+
+    public void subscribe(AlertEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(AlertEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Sequence of the last dispatched event; everything after it is still to be delivered
+     */
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Buffered events after the given sequence, or empty if the cursor is older than the replay buffer
+     * or was not issued by this instance
+     */
+    public Optional<List<AlertEvent>> eventsAfter(long afterSequence) {
+        return replayBuffer.eventsAfter(afterSequence);
+    }
+
+    /**
+     * Publish a state change; the alert is copied so later mutations do not leak into the event
+     */
+    public void publish(AlertEventType type, Alert alert) {
+        publish(type, alert, LocalDateTime.now());
+    }
+
+    /**
+     * Publish a state change that happened at the given time
+     */
+    public void publish(AlertEventType type, Alert alert, LocalDateTime occurredAt) {
+        Alert snapshot = alert.snapshot();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(null, type, snapshot, occurredAt);
+                }
+            });
+        } else {
+            dispatch(null, type, snapshot, occurredAt);
+        }
+    }
+
+    /**
+     * Publish a committed state change under the sequence the outbox relay gave it. Events at or below
+     * the current sequence were already delivered and are ignored.
+     */
+    public void publish(long eventSequence, AlertEventType type, Alert alert, LocalDateTime occurredAt) {
+        dispatch(eventSequence, type, alert.snapshot(), occurredAt);
+    }
+
+    /**
+     * Continue numbering after the given sequence, e.g. the last one relayed from the outbox at startup.
+     * Events buffered so far can no longer be replayed.
+     */
+    public void skipTo(long eventSequence) {
+        try {
+            dispatcher.submit(() -> {
+                replayBuffer.restartAfter(eventSequence);
+                sequence.set(eventSequence);
+            }).get();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.warn("Could not move alert event sequence to {}: {}", eventSequence, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(Long eventSequence, AlertEventType type, Alert snapshot, LocalDateTime occurredAt) {
+        try {
+            dispatcher.execute(() -> deliver(eventSequence, type, snapshot, occurredAt));
+        } catch (RejectedExecutionException e) {
+            log.warn("Alert event hub is shut down, dropping {} of alert {}", type, snapshot.getId());
+        }
+    }
+
+    private void deliver(Long eventSequence, AlertEventType type, Alert snapshot, LocalDateTime occurredAt) {
+        long next = eventSequence != null ? eventSequence : sequence.get() + 1;
+        if (next <= sequence.get()) {
+            return;
+        }
+        AlertEvent event = new AlertEvent(next, type, snapshot, occurredAt);
+        replayBuffer.add(event);
+        // Only advance once the event is replayable, so a cursor read from currentSequence() is always covered
+        sequence.set(event.getSequence());
+
+        for (AlertEventListener listener : listeners) {
+            try {
+                listener.onAlertEvent(event);
+            } catch (Exception e) {
+                log.error("Alert event listener failed for {}: {}", event, e.getMessage(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down alert event hub");
+        listeners.clear();
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.smartagri.alert.event;
+
+/**
+ * Receives alert events dispatched by {@link AlertEventHub}
+ */
+@FunctionalInterface
+public interface AlertEventListener {
+
+    void onAlertEvent(AlertEvent event);
+}
@@ -0,0 +1,67 @@
+package com.smartagri.alert.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded ring of the most recent alert events, indexed by their sequence numbers. Only a contiguous
+ * run of sequences is kept: an event skipping ahead restarts the ring at its sequence.
+ */
+class AlertEventRing {
+
+    private final AlertEvent[] events;
+    private long firstSequence;
+    private long lastSequence;
+
+    /**
+     * @param capacity     number of events retained
+     * @param lastSequence sequence issued right before the first event that will be added
+     */
+    AlertEventRing(int capacity, long lastSequence) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Replay buffer size must be positive");
+        }
+        this.events = new AlertEvent[capacity];
+        this.lastSequence = lastSequence;
+        this.firstSequence = lastSequence + 1;
+    }
+
+    synchronized void add(AlertEvent event) {
+        if (event.getSequence() != lastSequence + 1) {
+            firstSequence = event.getSequence();
+        }
+        lastSequence = event.getSequence();
+        events[slot(lastSequence)] = event;
+        if (lastSequence - firstSequence >= events.length) {
+            firstSequence = lastSequence - events.length + 1;
+        }
+    }
+
+    /**
+     * Drop all buffered events and expect the next one right after the given sequence
+     */
+    synchronized void restartAfter(long sequence) {
+        lastSequence = sequence;
+        firstSequence = sequence + 1;
+    }
+
+    /**
+     * Events strictly after the given sequence, or empty if some of them were already overwritten
+     * or the sequence was never issued by this ring
+     */
+    synchronized Optional<List<AlertEvent>> eventsAfter(long sequence) {
+        if (sequence < firstSequence - 1 || sequence > lastSequence) {
+            return Optional.empty();
+        }
+        List<AlertEvent> missed = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            missed.add(events[slot(next)]);
+        }
+        return Optional.of(missed);
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) events.length);
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartagri.alert.event;
+
+/**
+ * Kinds of alert state changes pushed to live consumers
+ */
+public enum AlertEventType {
+    CREATED,
+    ACKNOWLEDGED,
+    DISMISSED,
+    EXPIRED,
+    /**
+     * Raised again within the dedupe window; only the occurrence count and last-seen time changed
+     */
+    COALESCED
+}
@@ -0,0 +1,120 @@
+package com.smartagri.alert.expiry;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventListener;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.service.AlertService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires alerts at their expiry time using an in-memory {@link HierarchicalTimingWheel}.
+ * The wheel is loaded at startup with the active alerts that have an expiry time, and is kept
+ * current from alert events: created alerts are scheduled, dismissed and expired ones cancelled.
+ * The periodic database poll in the scheduler remains as a safety net for anything missed.
+ */
+@Component
+@Slf4j
+public class AlertExpiryWheel implements AlertEventListener {
+
+    private final AlertService alertService;
+    private final AlertRepository alertRepository;
+    private final long tickMillis;
+    private final HierarchicalTimingWheel wheel;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alert-expiry-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AlertExpiryWheel(AlertService alertService,
+                            AlertRepository alertRepository,
+                            AlertEventHub eventHub,
+                            @Value("${alert.expiry.wheel-tick:250}") long tickMillis,
+                            @Value("${alert.expiry.wheel-size:64}") int wheelSize) {
+        this.alertService = alertService;
+        this.alertRepository = alertRepository;
+        this.tickMillis = tickMillis;
+        this.wheel = new HierarchicalTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        eventHub.subscribe(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<Object[]> pending = alertRepository.findActiveExpiryTimes();
+            synchronized (wheel) {
+                for (Object[] row : pending) {
+                    wheel.schedule((Long) row[0], toEpochMillis((LocalDateTime) row[1]));
+                }
+            }
+            log.info("Expiry wheel loaded with {} pending alert expiries", wheel.size());
+        } catch (Exception e) {
+            log.error("Error loading pending alert expiries, relying on the periodic check: {}", e.getMessage(), e);
+        }
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onAlertEvent(AlertEvent event) {
+        Alert alert = event.getAlert();
+        if (event.getType() == AlertEventType.CREATED) {
+            if (alert.getExpiryTime() != null && Boolean.TRUE.equals(alert.getIsActive())) {
+                synchronized (wheel) {
+                    // Already due: picked up on the next tick through the same path
+                    if (!wheel.schedule(alert.getId(), toEpochMillis(alert.getExpiryTime()))) {
+                        wheel.schedule(alert.getId(), System.currentTimeMillis() + tickMillis);
+                    }
+                }
+            }
+        } else if (event.getType() == AlertEventType.DISMISSED || event.getType() == AlertEventType.EXPIRED) {
+            synchronized (wheel) {
+                wheel.cancel(alert.getId());
+            }
+        }
+    }
+
+    private void tick() {
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            alertService.expireAlerts(due);
+        } catch (Exception e) {
+            log.error("Error expiring {} alerts, leaving them to the periodic check: {}", due.size(), e.getMessage(), e);
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+}
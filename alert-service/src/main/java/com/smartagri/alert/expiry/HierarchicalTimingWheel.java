@@ -0,0 +1,151 @@
+package com.smartagri.alert.expiry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical timing wheel of ids with deadlines, in epoch millis.
+ * Each level has a fixed number of buckets of one tick each; deadlines beyond a level's range go to
+ * a coarser overflow level (one tick = the whole range of the level below), created on demand.
+ * Adding and cancelling a timer is O(1); only non-empty buckets are kept in a priority queue, and
+ * when a coarse bucket comes due its timers cascade down to finer levels.
+ * <p>
+ * A timer never fires before its deadline and fires at most one tick after it.
+ * Not thread-safe; callers synchronize.
+ */
+public class HierarchicalTimingWheel {
+
+    private final Level root;
+    private final PriorityQueue<Bucket> dueQueue = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.expiration, b.expiration));
+    private final Map<Long, Timer> timers = new HashMap<>();
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.root = new Level(tickMillis, wheelSize, startMillis);
+    }
+
+    /**
+     * Schedule an id, replacing any timer it already has
+     *
+     * @return false if the deadline has already passed, in which case nothing is scheduled
+     */
+    public boolean schedule(long id, long deadlineMillis) {
+        cancel(id);
+        // Rounded up to the next tick boundary, so the bucket holding it never comes due early
+        Timer timer = new Timer(id, deadlineMillis, deadlineMillis + root.tickMillis - 1);
+        if (!root.add(timer)) {
+            return false;
+        }
+        timers.put(id, timer);
+        return true;
+    }
+
+    public void cancel(long id) {
+        Timer timer = timers.remove(id);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Move the clock forward and collect the ids whose deadline is at or before it
+     */
+    public List<Long> advance(long nowMillis) {
+        List<Long> due = new ArrayList<>();
+        Bucket bucket;
+        while ((bucket = dueQueue.peek()) != null && bucket.expiration <= nowMillis) {
+            dueQueue.poll();
+            root.advanceClock(bucket.expiration);
+            for (Timer timer : bucket.flush()) {
+                if (!timer.cancelled && !root.add(timer)) {
+                    timers.remove(timer.id);
+                    due.add(timer.id);
+                }
+            }
+        }
+        root.advanceClock(nowMillis);
+        return due;
+    }
+
+    private static final class Timer {
+        private final long id;
+        private final long deadline;
+        private final long slotTime;
+        private boolean cancelled;
+
+        private Timer(long id, long deadline, long slotTime) {
+            this.id = id;
+            this.deadline = deadline;
+            this.slotTime = slotTime;
+        }
+    }
+
+    private static final class Bucket {
+        private final List<Timer> timers = new ArrayList<>();
+        private long expiration = -1;
+
+        private List<Timer> flush() {
+            List<Timer> flushed = new ArrayList<>(timers);
+            timers.clear();
+            expiration = -1;
+            return flushed;
+        }
+    }
+
+    private final class Level {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long intervalMillis;
+        private final Bucket[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.intervalMillis = tickMillis * wheelSize;
+            this.currentTime = startMillis - startMillis % tickMillis;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private boolean add(Timer timer) {
+            if (timer.deadline <= currentTime || timer.slotTime < currentTime + tickMillis) {
+                return false;
+            }
+            if (timer.slotTime < currentTime + intervalMillis) {
+                long virtualId = timer.slotTime / tickMillis;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.timers.add(timer);
+                long expiration = virtualId * tickMillis;
+                if (bucket.expiration != expiration) {
+                    bucket.expiration = expiration;
+                    dueQueue.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(intervalMillis, wheelSize, currentTime);
+            }
+            return overflow.add(timer);
+        }
+
+        private void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - timeMillis % tickMillis;
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+}
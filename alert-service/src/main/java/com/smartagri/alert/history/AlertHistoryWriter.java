@@ -0,0 +1,264 @@
+package com.smartagri.alert.history;
+
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.AlertHistory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for alert history.
+ * Entries are buffered once their transaction commits and written with JDBC batch inserts when the
+ * buffer reaches the batch size or the flush interval elapses, instead of one INSERT per event.
+ * A batch that fails stays buffered and is retried on the next flushes, up to the maximum number of
+ * attempts; then its entries are written one by one if the batch was rejected for its data, so a bad
+ * entry only loses itself, or dropped otherwise. When the buffer is full, committing threads wait
+ * briefly for room and drop what still does not fit, rather than writing themselves.
+ * <p>
+ * With {@code alert.history.sync-writes} enabled, entries are inserted immediately in the caller's
+ * transaction, which keeps history visible right away for tests.
+ */
+@Component
+@Slf4j
+public class AlertHistoryWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO alert_history " +
+            "(alert_id, action, performed_by, notes, action_time) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AlertMetrics metrics;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final boolean syncWrites;
+    private final BlockingQueue<PendingEntry> buffer;
+    private final List<PendingEntry> failedBatch = new ArrayList<>();
+    private int failedAttempts;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alert-history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AlertHistoryWriter(JdbcTemplate jdbcTemplate,
+                              AlertMetrics metrics,
+                              @Value("${alert.history.batch-size:500}") int batchSize,
+                              @Value("${alert.history.flush-interval:1000}") long flushIntervalMillis,
+                              @Value("${alert.history.buffer-capacity:50000}") int bufferCapacity,
+                              @Value("${alert.history.offer-timeout:100}") long offerTimeoutMillis,
+                              @Value("${alert.history.max-attempts:5}") int maxAttempts,
+                              @Value("${alert.history.sync-writes:false}") boolean syncWrites) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.syncWrites = syncWrites;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+
+        metrics.registerHistoryBuffer(buffer);
+        if (!syncWrites) {
+            flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void record(Long alertId, String action, String performedBy, String notes) {
+        recordAll(List.of(alertId), action, performedBy, notes);
+    }
+
+    /**
+     * Record the same action for several alerts, e.g. after a bulk update
+     */
+    public void recordAll(List<Long> alertIds, String action, String performedBy, String notes) {
+        LocalDateTime now = LocalDateTime.now();
+        long recordedAt = System.nanoTime();
+        List<PendingEntry> entries = new ArrayList<>(alertIds.size());
+        for (Long alertId : alertIds) {
+            AlertHistory history = new AlertHistory();
+            history.setAlertId(alertId);
+            history.setAction(action);
+            history.setPerformedBy(performedBy);
+            history.setNotes(notes);
+            history.setActionTime(now);
+            entries.add(new PendingEntry(history, recordedAt));
+        }
+
+        if (syncWrites) {
+            insert(entries);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entries);
+                }
+            });
+        } else {
+            enqueue(entries);
+        }
+    }
+
+    private void enqueue(List<PendingEntry> entries) {
+        int dropped = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (buffer.offer(entries.get(i))) {
+                continue;
+            }
+            // Buffer full: the writer has fallen behind, wait for it once, but never longer
+            requestFlush();
+            try {
+                if (buffer.offer(entries.get(i), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped = entries.size() - i;
+            break;
+        }
+        if (dropped > 0) {
+            metrics.recordHistoryDropped(dropped);
+            log.warn("Alert history buffer full, dropped {} {} entries", dropped, entries.get(0).history().getAction());
+        }
+        if (buffer.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flusher.execute(this::flushSafely);
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error flushing alert history: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write everything buffered so far
+     */
+    public synchronized void flush() {
+        if (!failedBatch.isEmpty() && !retryFailedBatch()) {
+            return;
+        }
+
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (true) {
+            buffer.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                insert(batch);
+            } catch (RuntimeException e) {
+                failedBatch.addAll(batch);
+                failedAttempts = 1;
+                metrics.recordError("HISTORY_FLUSH", "recordHistory");
+                log.error("Failed to write {} alert history entries, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * @return whether the failed batch is settled, so the buffer can be written
+     */
+    private boolean retryFailedBatch() {
+        try {
+            insert(failedBatch);
+        } catch (RuntimeException e) {
+            metrics.recordError("HISTORY_FLUSH", "recordHistory");
+            if (++failedAttempts < maxAttempts) {
+                log.error("Failed to write {} alert history entries ({} of {} attempts): {}",
+                        failedBatch.size(), failedAttempts, maxAttempts, e.getMessage());
+                return false;
+            }
+            int dropped = e instanceof DataIntegrityViolationException
+                    ? insertOneByOne(failedBatch)
+                    : failedBatch.size();
+            metrics.recordHistoryDropped(dropped);
+            log.error("Giving up on {} alert history entries after {} attempts, dropped {}: {}",
+                    failedBatch.size(), failedAttempts, dropped, e.getMessage());
+        }
+        failedBatch.clear();
+        failedAttempts = 0;
+        return true;
+    }
+
+    /**
+     * @return the number of entries that could not be written
+     */
+    private int insertOneByOne(List<PendingEntry> entries) {
+        int failed = 0;
+        for (PendingEntry entry : entries) {
+            try {
+                insert(List.of(entry));
+            } catch (DataIntegrityViolationException e) {
+                failed++;
+                log.warn("Dropping alert history entry {} for alert {}: {}", entry.history().getAction(),
+                        entry.history().getAlertId(), e.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    private void insert(List<PendingEntry> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+            AlertHistory history = entry.history();
+            ps.setLong(1, history.getAlertId());
+            ps.setString(2, history.getAction());
+            ps.setString(3, history.getPerformedBy());
+            ps.setString(4, history.getNotes());
+            ps.setTimestamp(5, Timestamp.valueOf(history.getActionTime()));
+        });
+
+        long oldest = batch.stream().mapToLong(PendingEntry::recordedAtNanos).min().orElse(System.nanoTime());
+        metrics.recordHistoryFlush(batch.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Failed to write buffered alert history on shutdown: {}", e.getMessage(), e);
+        }
+    }
+
+    private record PendingEntry(AlertHistory history, long recordedAtNanos) {
+    }
+}
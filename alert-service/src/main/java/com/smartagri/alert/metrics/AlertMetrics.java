@@ -1,30 +1,209 @@
 package com.smartagri.alert.metrics;
 
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertSubscription;
+import com.smartagri.alert.notification.NotificationChannel;
+import com.smartagri.alert.service.StreamOverflowPolicy;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * Metrics collection for Alert Service
  * Integrates with Prometheus via Micrometer
+ * <p>
+ * Meters are registered up front, indexed by the ordinals of the enums they are tagged with (alert type
+ * and severity, notification channel, overflow policy), so recording is a single array lookup and
+ * increment with no tag building or registry lookup. Meters tagged with values that are rarely
+ * recorded, such as status codes, are registered on first use into the same kind of array.
  */
 @Component
 @Slf4j
 public class AlertMetrics {
 
+    private static final Duration[] GRPC_LATENCY_SLOS = {
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)
+    };
+
+    private static final int TYPES = Alert.AlertType.values().length;
+    private static final int SEVERITIES = Alert.AlertSeverity.values().length;
+    private static final int CHANNELS = NotificationChannel.values().length;
+
     private final MeterRegistry registry;
     private final AtomicInteger activeStreams = new AtomicInteger(0);
     private final AtomicInteger activeAlerts = new AtomicInteger(0);
     private final AtomicInteger unacknowledgedAlerts = new AtomicInteger(0);
+    private final AtomicLong queuedStreamMessages = new AtomicLong(0);
+    private final Map<String, GrpcMethodMeters> grpcMethods = new ConcurrentHashMap<>();
+
+    // Indexed by type ordinal * SEVERITIES + severity ordinal
+    private final Counter[] alertsCreated;
+    private final Counter[] alertsAcknowledged;
+    private final Counter[] alertsDismissed;
+    private final Counter[] alertsExpired;
+    private final Counter[] alertsCoalesced;
+    private final Timer[] acknowledgeLatency;
+
+    private final Counter streamsStarted;
+    private final Counter streamsEnded;
+    private final Counter streamMessagesSent;
+    private final Timer streamDuration;
+    private final Counter streamMessagesCoalesced;
+    // Indexed by policy ordinal * SEVERITIES + severity ordinal
+    private final Counter[] streamMessagesDropped;
+    private final Counter[] streamErrors = new Counter[Status.Code.values().length];
+
+    // Indexed by channel ordinal
+    private final Counter[] notificationsSucceeded;
+    private final Counter[] notificationsUnsent;
+    private final Counter[] notificationRetries;
+    private final Counter[] notificationsFailed;
+    private final Timer[] notificationLatency;
+
+    private final Timer outboxLag;
+    private final DistributionSummary historyFlushSize;
+    private final Timer historyFlushLag;
+    private final Counter historyDropped;
+
+    private final Counter[] subscriptionsCreated;
+    private final Counter subscriptionsDeleted;
 
     public AlertMetrics(MeterRegistry registry) {
         this.registry = registry;
         initGauges();
+
+        alertsCreated = perTypeAndSeverity(Counter[]::new, (type, severity) ->
+                Counter.builder("alerts.created")
+                .tag("type", type).tag("severity", severity)
+                .description("Number of alerts created")
+                .register(registry));
+        alertsAcknowledged = perTypeAndSeverity(Counter[]::new, (type, severity) ->
+                Counter.builder("alerts.acknowledged")
+                .tag("type", type).tag("severity", severity)
+                .description("Number of alerts acknowledged")
+                .register(registry));
+        alertsDismissed = perTypeAndSeverity(Counter[]::new, (type, severity) ->
+                Counter.builder("alerts.dismissed")
+                .tag("type", type).tag("severity", severity)
+                .description("Number of alerts dismissed")
+                .register(registry));
+        alertsExpired = perTypeAndSeverity(Counter[]::new, (type, severity) ->
+                Counter.builder("alerts.expired")
+                .tag("type", type).tag("severity", severity)
+                .description("Number of alerts expired automatically")
+                .register(registry));
+        alertsCoalesced = perTypeAndSeverity(Counter[]::new, (type, severity) ->
+                Counter.builder("alerts.coalesced")
+                .tag("type", type).tag("severity", severity)
+                .description("Number of repeated alerts folded into an open alert instead of being created")
+                .register(registry));
+        acknowledgeLatency = perTypeAndSeverity(Timer[]::new, (type, severity) ->
+                Timer.builder("alerts.acknowledge.latency")
+                .tag("type", type).tag("severity", severity)
+                .description("Time from an alert being raised to its acknowledgement")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                // Acknowledgements take minutes to days, far beyond the default 30 s histogram range
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(7))
+                .register(registry));
+
+        streamsStarted = Counter.builder("alerts.streams.started")
+                .description("Number of streams started")
+                .register(registry);
+        streamsEnded = Counter.builder("alerts.streams.ended")
+                .description("Number of streams ended")
+                .register(registry);
+        streamMessagesSent = Counter.builder("alerts.stream.messages.sent")
+                .description("Total messages sent in streams")
+                .register(registry);
+        streamDuration = Timer.builder("alerts.stream.duration")
+                .description("Duration of alert streams")
+                .register(registry);
+        streamMessagesCoalesced = Counter.builder("alerts.streams.messages.coalesced")
+                .description("Queued stream messages replaced by a newer state of the same alert")
+                .register(registry);
+        StreamOverflowPolicy[] policies = StreamOverflowPolicy.values();
+        streamMessagesDropped = new Counter[policies.length * SEVERITIES];
+        for (StreamOverflowPolicy policy : policies) {
+            for (Alert.AlertSeverity severity : Alert.AlertSeverity.values()) {
+                streamMessagesDropped[policy.ordinal() * SEVERITIES + severity.ordinal()] =
+                        Counter.builder("alerts.streams.messages.dropped")
+                                .tag("policy", policy.name())
+                                .tag("severity", severity.name())
+                                .description("Stream messages dropped because a client's outbound queue was full")
+                                .register(registry);
+            }
+        }
+
+        notificationsSucceeded = perChannel(Counter[]::new, channel ->
+                Counter.builder("alerts.notifications.sent")
+                .tag("method", channel).tag("success", "true")
+                .description("Number of notifications sent")
+                .register(registry));
+        notificationsUnsent = perChannel(Counter[]::new, channel ->
+                Counter.builder("alerts.notifications.sent")
+                .tag("method", channel).tag("success", "false")
+                .description("Number of notifications sent")
+                .register(registry));
+        notificationRetries = perChannel(Counter[]::new, channel ->
+                Counter.builder("alerts.notifications.retries")
+                .tag("method", channel)
+                .description("Number of notification retry attempts")
+                .register(registry));
+        notificationsFailed = perChannel(Counter[]::new, channel ->
+                Counter.builder("alerts.notifications.failed")
+                .tag("method", channel)
+                .description("Number of failed notifications")
+                .register(registry));
+        notificationLatency = perChannel(Timer[]::new, channel ->
+                Timer.builder("alerts.notifications.latency")
+                .tag("method", channel)
+                .description("Time from queueing a notification to its delivery")
+                .register(registry));
+
+        outboxLag = Timer.builder("alerts.outbox.lag")
+                .description("Time from an alert change being committed to it being relayed")
+                .register(registry);
+        historyFlushSize = DistributionSummary.builder("alerts.history.flush.size")
+                .description("Number of history entries written per batch")
+                .register(registry);
+        historyFlushLag = Timer.builder("alerts.history.flush.lag")
+                .description("Time the oldest entry of a batch waited before being written")
+                .register(registry);
+        historyDropped = Counter.builder("alerts.history.dropped")
+                .description("History entries given up on, because the buffer stayed full or writing kept failing")
+                .register(registry);
+
+        AlertSubscription.NotificationMethod[] methods = AlertSubscription.NotificationMethod.values();
+        subscriptionsCreated = new Counter[methods.length];
+        for (AlertSubscription.NotificationMethod method : methods) {
+            subscriptionsCreated[method.ordinal()] = Counter.builder("alerts.subscriptions.created")
+                    .tag("method", method.name())
+                    .description("Number of subscriptions created")
+                    .register(registry);
+        }
+        subscriptionsDeleted = Counter.builder("alerts.subscriptions.deleted")
+                .description("Number of subscriptions deleted")
+                .register(registry);
     }
 
     private void initGauges() {
@@ -39,44 +218,36 @@ public class AlertMetrics {
         Gauge.builder("alerts.unacknowledged.count", unacknowledgedAlerts, AtomicInteger::get)
                 .description("Number of unacknowledged alerts")
                 .register(registry);
+
+        Gauge.builder("alerts.streams.queue.depth", queuedStreamMessages, AtomicLong::get)
+                .description("Messages waiting in alert stream outbound queues")
+                .register(registry);
     }
 
     // ==================== Alert Metrics ====================
 
-    public void recordAlertCreated(String type, String severity) {
-        Counter.builder("alerts.created")
-                .tag("type", type)
-                .tag("severity", severity)
-                .description("Number of alerts created")
-                .register(registry)
-                .increment();
+    public void recordAlertCreated(Alert.AlertType type, Alert.AlertSeverity severity) {
+        alertsCreated[index(type, severity)].increment();
+    }
 
-        log.debug("Alert created metric recorded: type={}, severity={}", type, severity);
+    public void recordAlertAcknowledged(Alert.AlertType type, Alert.AlertSeverity severity) {
+        alertsAcknowledged[index(type, severity)].increment();
     }
 
-    public void recordAlertAcknowledged(String type, String severity) {
-        Counter.builder("alerts.acknowledged")
-                .tag("type", type)
-                .tag("severity", severity)
-                .description("Number of alerts acknowledged")
-                .register(registry)
-                .increment();
+    public void recordAcknowledgeLatency(Alert.AlertType type, Alert.AlertSeverity severity, Duration latency) {
+        acknowledgeLatency[index(type, severity)].record(latency);
     }
 
-    public void recordAlertDismissed(String type, String severity) {
-        Counter.builder("alerts.dismissed")
-                .tag("type", type)
-                .tag("severity", severity)
-                .description("Number of alerts dismissed")
-                .register(registry)
-                .increment();
+    public void recordAlertDismissed(Alert.AlertType type, Alert.AlertSeverity severity) {
+        alertsDismissed[index(type, severity)].increment();
     }
 
-    public void recordAlertExpired() {
-        Counter.builder("alerts.expired")
-                .description("Number of alerts expired automatically")
-                .register(registry)
-                .increment();
+    public void recordAlertExpired(Alert.AlertType type, Alert.AlertSeverity severity) {
+        alertsExpired[index(type, severity)].increment();
+    }
+
+    public void recordAlertCoalesced(Alert.AlertType type, Alert.AlertSeverity severity) {
+        alertsCoalesced[index(type, severity)].increment();
     }
 
     public void updateActiveAlerts(int count) {
@@ -91,104 +262,192 @@ public class AlertMetrics {
 
     public void streamStarted() {
         activeStreams.incrementAndGet();
-        Counter.builder("alerts.streams.started")
-                .description("Number of streams started")
-                .register(registry)
-                .increment();
+        streamsStarted.increment();
     }
 
     public void streamEnded(long durationSeconds, long messagesSent) {
         activeStreams.decrementAndGet();
+        streamsEnded.increment();
+        streamMessagesSent.increment(messagesSent);
+        streamDuration.record(durationSeconds, TimeUnit.SECONDS);
+    }
 
-        Counter.builder("alerts.streams.ended")
-                .description("Number of streams ended")
-                .register(registry)
-                .increment();
+    public void streamMessagesQueued(int count) {
+        queuedStreamMessages.addAndGet(count);
+    }
 
-        Counter.builder("alerts.stream.messages.sent")
-                .description("Total messages sent in streams")
-                .register(registry)
-                .increment(messagesSent);
+    public void streamMessagesDequeued(int count) {
+        queuedStreamMessages.addAndGet(-count);
+    }
 
-        Timer.builder("alerts.stream.duration")
-                .description("Duration of alert streams")
-                .register(registry)
-                .record(java.time.Duration.ofSeconds(durationSeconds));
+    public void streamMessageCoalesced() {
+        streamMessagesCoalesced.increment();
     }
 
-    public void streamError(String errorType) {
-        Counter.builder("alerts.streams.errors")
-                .tag("error_type", errorType)
-                .description("Number of stream errors")
-                .register(registry)
-                .increment();
+    public void streamMessageDropped(StreamOverflowPolicy policy, Alert.AlertSeverity severity) {
+        streamMessagesDropped[policy.ordinal() * SEVERITIES + severity.ordinal()].increment();
+    }
+
+    public void streamError(Status.Code code) {
+        Counter counter = streamErrors[code.ordinal()];
+        if (counter == null) {
+            // A racing registration returns the same counter
+            counter = Counter.builder("alerts.streams.errors")
+                    .tag("error_type", code.name())
+                    .description("Number of stream errors")
+                    .register(registry);
+            streamErrors[code.ordinal()] = counter;
+        }
+        counter.increment();
     }
 
     // ==================== Notification Metrics ====================
 
-    public void recordNotificationSent(String method, boolean success) {
-        Counter.builder("alerts.notifications.sent")
-                .tag("method", method)
-                .tag("success", String.valueOf(success))
-                .description("Number of notifications sent")
-                .register(registry)
-                .increment();
+    public void recordNotificationSent(NotificationChannel channel, boolean success) {
+        (success ? notificationsSucceeded : notificationsUnsent)[channel.ordinal()].increment();
     }
 
-    public void recordNotificationRetry(String method, int attemptNumber) {
-        Counter.builder("alerts.notifications.retries")
-                .tag("method", method)
-                .tag("attempt", String.valueOf(attemptNumber))
-                .description("Number of notification retry attempts")
-                .register(registry)
-                .increment();
+    public void recordNotificationRetry(NotificationChannel channel) {
+        notificationRetries[channel.ordinal()].increment();
     }
 
-    public void recordNotificationFailed(String method) {
-        Counter.builder("alerts.notifications.failed")
-                .tag("method", method)
-                .description("Number of failed notifications")
-                .register(registry)
-                .increment();
+    public void recordNotificationFailed(NotificationChannel channel) {
+        notificationsFailed[channel.ordinal()].increment();
+    }
+
+    public void recordNotificationLatency(NotificationChannel channel, long durationMillis) {
+        notificationLatency[channel.ordinal()].record(durationMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void registerNotificationQueue(NotificationChannel channel, Collection<?> queue) {
+        Gauge.builder("alerts.notifications.queue.depth", queue, Collection::size)
+                .tag("method", channel.name())
+                .description("Number of notifications waiting to be sent")
+                .register(registry);
+    }
+
+    // ==================== Outbox Metrics ====================
+
+    public void recordOutboxLag(long lagMillis) {
+        outboxLag.record(lagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== History Metrics ====================
+
+    public void recordHistoryFlush(int entries, long lagMillis) {
+        historyFlushSize.record(entries);
+        historyFlushLag.record(lagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordHistoryDropped(int entries) {
+        historyDropped.increment(entries);
+    }
+
+    public void registerHistoryBuffer(Collection<?> buffer) {
+        Gauge.builder("alerts.history.buffer.size", buffer, Collection::size)
+                .description("Number of history entries waiting to be written")
+                .register(registry);
     }
 
     // ==================== Subscription Metrics ====================
 
-    public void recordSubscriptionCreated(String notificationMethod) {
-        Counter.builder("alerts.subscriptions.created")
-                .tag("method", notificationMethod)
-                .description("Number of subscriptions created")
-                .register(registry)
-                .increment();
+    public void recordSubscriptionCreated(AlertSubscription.NotificationMethod notificationMethod) {
+        subscriptionsCreated[notificationMethod.ordinal()].increment();
     }
 
     public void recordSubscriptionDeleted() {
-        Counter.builder("alerts.subscriptions.deleted")
-                .description("Number of subscriptions deleted")
-                .register(registry)
-                .increment();
+        subscriptionsDeleted.increment();
     }
 
     // ==================== Performance Metrics ====================
 
-    public void recordGrpcRequestDuration(String method, long durationMillis, boolean success) {
-        Timer.builder("alerts.grpc.request.duration")
-                .tag("method", method)
-                .tag("success", String.valueOf(success))
-                .description("Duration of gRPC requests")
-                .register(registry)
-                .record(java.time.Duration.ofMillis(durationMillis));
-    }
-
     public void recordDatabaseQueryDuration(String operation, long durationMillis) {
         Timer.builder("alerts.database.query.duration")
                 .tag("operation", operation)
                 .description("Duration of database queries")
                 .register(registry)
-                .record(java.time.Duration.ofMillis(durationMillis));
+                .record(Duration.ofMillis(durationMillis));
+    }
+
+    // ==================== gRPC Metrics ====================
+
+    /**
+     * Meters of a gRPC method, registered on its first call and reused for every later one
+     */
+    public GrpcMethodMeters grpcMethod(MethodDescriptor<?, ?> method) {
+        return grpcMethods.computeIfAbsent(method.getFullMethodName(), name -> new GrpcMethodMeters(method));
+    }
+
+    /**
+     * Latency, in-flight calls, messages per streaming call and response status of one gRPC method
+     */
+    public final class GrpcMethodMeters {
+
+        private final String service;
+        private final String method;
+        private final Timer latency;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final DistributionSummary messagesReceived;
+        private final DistributionSummary messagesSent;
+        // Registered on first use; a racing registration returns the same counter
+        private final Counter[] responses = new Counter[Status.Code.values().length];
+
+        private GrpcMethodMeters(MethodDescriptor<?, ?> descriptor) {
+            this.service = descriptor.getServiceName();
+            this.method = descriptor.getBareMethodName();
+            String type = descriptor.getType().name();
+
+            latency = Timer.builder("alerts.grpc.server.duration")
+                    .tags("service", service, "method", method, "type", type)
+                    .description("Duration of gRPC calls, from start to close")
+                    .serviceLevelObjectives(GRPC_LATENCY_SLOS)
+                    .register(registry);
+            Gauge.builder("alerts.grpc.server.inflight", inFlight, AtomicInteger::get)
+                    .tags("service", service, "method", method)
+                    .description("gRPC calls currently in progress")
+                    .register(registry);
+
+            if (descriptor.getType() == MethodDescriptor.MethodType.UNARY) {
+                messagesReceived = null;
+                messagesSent = null;
+            } else {
+                messagesReceived = DistributionSummary.builder("alerts.grpc.server.messages.received")
+                        .tags("service", service, "method", method)
+                        .description("Messages received per streaming gRPC call")
+                        .register(registry);
+                messagesSent = DistributionSummary.builder("alerts.grpc.server.messages.sent")
+                        .tags("service", service, "method", method)
+                        .description("Messages sent per streaming gRPC call")
+                        .register(registry);
+            }
+        }
+
+        public void callStarted() {
+            inFlight.incrementAndGet();
+        }
+
+        public void callFinished(long durationNanos, Status.Code status, long received, long sent) {
+            inFlight.decrementAndGet();
+            latency.record(durationNanos, TimeUnit.NANOSECONDS);
+            if (messagesReceived != null) {
+                messagesReceived.record(received);
+                messagesSent.record(sent);
+            }
+
+            Counter counter = responses[status.ordinal()];
+            if (counter == null) {
+                counter = Counter.builder("alerts.grpc.server.responses")
+                        .tags("service", service, "method", method, "status", status.name())
+                        .description("gRPC calls completed, by status code")
+                        .register(registry);
+                responses[status.ordinal()] = counter;
+            }
+            counter.increment();
+        }
     }
 
     // ==================== Error Metrics ====================
+    // Errors are rare and tagged with free-form values, so these meters are still looked up per call
 
     public void recordError(String errorType, String operation) {
         Counter.builder("alerts.errors")
@@ -206,4 +465,31 @@ public class AlertMetrics {
                 .register(registry)
                 .increment();
     }
-}
\ No newline at end of file
+
+    private static int index(Alert.AlertType type, Alert.AlertSeverity severity) {
+        return type.ordinal() * SEVERITIES + severity.ordinal();
+    }
+
+    private static <M> M[] perTypeAndSeverity(IntFunction<M[]> array, MeterFactory<M> factory) {
+        M[] meters = array.apply(TYPES * SEVERITIES);
+        for (Alert.AlertType type : Alert.AlertType.values()) {
+            for (Alert.AlertSeverity severity : Alert.AlertSeverity.values()) {
+                meters[index(type, severity)] = factory.create(type.name(), severity.name());
+            }
+        }
+        return meters;
+    }
+
+    private static <M> M[] perChannel(IntFunction<M[]> array, Function<String, M> factory) {
+        M[] meters = array.apply(CHANNELS);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            meters[channel.ordinal()] = factory.apply(channel.name());
+        }
+        return meters;
+    }
+
+    @FunctionalInterface
+    private interface MeterFactory<M> {
+        M create(String type, String severity);
+    }
+}
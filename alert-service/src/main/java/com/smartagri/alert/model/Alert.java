@@ -12,7 +12,12 @@ import java.time.LocalDateTime;
 @Table(name = "alerts", indexes = {
         @Index(name = "idx_alert_parcel", columnList = "parcel_id"),
         @Index(name = "idx_alert_active", columnList = "is_active, alert_time"),
-        @Index(name = "idx_alert_type", columnList = "alert_type")
+        @Index(name = "idx_alert_type", columnList = "alert_type"),
+        @Index(name = "idx_alert_fingerprint", columnList = "fingerprint"),
+        // Keyset search orders by (alert_time, id); these serve its common filter combinations
+        @Index(name = "idx_alert_time_id", columnList = "alert_time, id"),
+        @Index(name = "idx_alert_parcel_active_time", columnList = "parcel_id, is_active, alert_time, id"),
+        @Index(name = "idx_alert_type_severity_time", columnList = "alert_type, severity, alert_time, id")
 })
 @Data
 @NoArgsConstructor
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 public class Alert {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_id_seq")
+    @SequenceGenerator(name = "alert_id_seq", sequenceName = "alert_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "alert_type", nullable = false, length = 50)
@@ -68,6 +74,35 @@ public class Alert {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Hash of type, parcel, location and title; repeated alerts with the same fingerprint are coalesced
+     */
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount = 1;
+
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    /**
+     * Incremented by every write to the row, so copies of an alert can be ordered by age. Existing alerts
+     * are only updated with set-based SQL, so writes never fail on a version bumped concurrently.
+     */
+    @Version
+    @Column(name = "row_version", nullable = false, columnDefinition = "bigint default 0")
+    private Long rowVersion;
+
+    /**
+     * Detached copy of the current state, safe to hand over to other threads
+     */
+    public Alert snapshot() {
+        return new Alert(id, alertType, severity, parcelId, location, title, message, alertTime,
+                expiryTime, isActive, acknowledged, acknowledgedAt, acknowledgedBy, metadata, createdAt,
+                fingerprint, occurrenceCount, lastSeenAt, rowVersion);
+    }
+
     // Enums
     public enum AlertType {
         WEATHER,
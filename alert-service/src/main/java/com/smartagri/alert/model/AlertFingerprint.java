@@ -0,0 +1,33 @@
+package com.smartagri.alert.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uniqueness guard for alert deduplication: at most one alert per fingerprint is open for coalescing.
+ * The row is claimed when an alert is created and released when it is dismissed or expires.
+ */
+@Entity
+@Table(name = "alert_fingerprints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertFingerprint {
+
+    @Id
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    /**
+     * Alert duplicates are folded into; null while the claiming transaction creates it
+     */
+    @Column(name = "alert_id")
+    private Long alertId;
+
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+}
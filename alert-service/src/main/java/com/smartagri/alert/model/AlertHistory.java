@@ -23,7 +23,7 @@ public class AlertHistory {
     private Long alertId;
 
     @Column(name = "action", nullable = false, length = 50)
-    private String action; // CREATED, ACKNOWLEDGED, DISMISSED, EXPIRED
+    private String action; // CREATED, ACKNOWLEDGED, DISMISSED, EXPIRED, COALESCED
 
     @Column(name = "performed_by", length = 100)
     private String performedBy;
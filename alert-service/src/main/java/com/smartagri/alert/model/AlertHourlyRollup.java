@@ -0,0 +1,66 @@
+package com.smartagri.alert.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alert counts per parcel, type, severity and hour of alert time, maintained by the outbox relay
+ * in the same transaction that consumes the events, so every event is counted exactly once.
+ * Acknowledgements are counted in the hour the alert was raised in.
+ */
+@Entity
+@Table(name = "alert_hourly_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_alert_rollup_bucket",
+                columnNames = {"parcel_id", "alert_type", "severity", "bucket_start"}),
+        indexes = @Index(name = "idx_alert_rollup_bucket", columnList = "bucket_start, parcel_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertHourlyRollup {
+
+    /**
+     * Stands in for alerts without a parcel, so the bucket key stays non-null for upserts
+     */
+    public static final long NO_PARCEL = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "parcel_id", nullable = false)
+    private Long parcelId;
+
+    @Column(name = "alert_type", nullable = false, length = 50)
+    @Enumerated(EnumType.STRING)
+    private Alert.AlertType alertType;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Alert.AlertSeverity severity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "created_count", nullable = false)
+    private Long createdCount;
+
+    @Column(name = "acknowledged_count", nullable = false)
+    private Long acknowledgedCount;
+
+    /**
+     * Sum of alert time to acknowledgement, in seconds, over the acknowledged alerts
+     */
+    @Column(name = "ack_latency_seconds", nullable = false)
+    private Long ackLatencySeconds;
+
+    /**
+     * Bin counts of a {@link com.smartagri.alert.stats.LatencySketch} over the acknowledgement latencies;
+     * null until an alert of the bucket is acknowledged
+     */
+    @Column(name = "ack_latency_bins", columnDefinition = "bigint[]")
+    private long[] ackLatencyBins;
+}
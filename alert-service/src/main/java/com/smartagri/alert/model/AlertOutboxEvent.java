@@ -0,0 +1,45 @@
+package com.smartagri.alert.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alert state change, relayed to subscribers and to the live streams of every instance.
+ * Written in the same transaction as the change itself, numbered once relayed and kept for the
+ * outbox retention period so streams can resume from it.
+ */
+@Entity
+@Table(name = "alert_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alert_id", nullable = false)
+    private Long alertId;
+
+    @Column(name = "parcel_id")
+    private Long parcelId;
+
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType; // CREATED, ACKNOWLEDGED, DISMISSED, EXPIRED, COALESCED
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload; // JSON snapshot of the alert after the change
+
+    @Column(name = "event_sequence", unique = true)
+    private Long eventSequence; // position in relay order, gapless; null while pending
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
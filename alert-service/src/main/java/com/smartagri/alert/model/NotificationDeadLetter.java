@@ -0,0 +1,52 @@
+package com.smartagri.alert.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification that could not be delivered, kept for inspection and manual replay
+ */
+@Entity
+@Table(name = "notification_dead_letters", indexes = {
+        @Index(name = "idx_dead_letter_alert", columnList = "alert_id"),
+        @Index(name = "idx_dead_letter_failed_at", columnList = "failed_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alert_id", nullable = false)
+    private Long alertId;
+
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+
+    @Column(name = "user_id", length = 100)
+    private String userId;
+
+    @Column(name = "channel", nullable = false, length = 20)
+    private String channel;
+
+    @Column(name = "recipient")
+    private String recipient;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "failed_at", updatable = false)
+    private LocalDateTime failedAt;
+}
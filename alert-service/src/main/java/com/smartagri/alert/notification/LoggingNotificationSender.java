@@ -0,0 +1,23 @@
+package com.smartagri.alert.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sender until provider integrations are wired in: logs each notification as delivered
+ */
+@Component
+@Slf4j
+public class LoggingNotificationSender implements NotificationSender {
+
+    @Override
+    public List<Notification> send(NotificationChannel channel, List<Notification> batch) {
+        for (Notification notification : batch) {
+            log.info("{} notification for alert {} sent to user {} ({})", channel,
+                    notification.getAlert().getId(), notification.getUserId(), notification.getRecipient());
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,39 @@
+package com.smartagri.alert.notification;
+
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertSubscription;
+import lombok.Getter;
+
+/**
+ * A single alert notification to deliver to one subscriber on one channel
+ */
+@Getter
+public class Notification {
+
+    private final Long subscriptionId;
+    private final String userId;
+    private final NotificationChannel channel;
+    private final String recipient;
+    private final Alert alert;
+    private final long enqueuedAtNanos;
+    private int attempts;
+    private String lastError;
+
+    public Notification(AlertSubscription subscription, NotificationChannel channel, Alert alert) {
+        this.subscriptionId = subscription.getId();
+        this.userId = subscription.getUserId();
+        this.channel = channel;
+        this.recipient = switch (channel) {
+            case EMAIL -> subscription.getEmail();
+            case SMS -> subscription.getPhoneNumber();
+            case PUSH, IN_APP -> subscription.getUserId();
+        };
+        this.alert = alert;
+        this.enqueuedAtNanos = System.nanoTime();
+    }
+
+    void recordFailure(String error) {
+        attempts++;
+        lastError = error;
+    }
+}
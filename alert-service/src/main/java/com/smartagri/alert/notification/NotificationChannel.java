@@ -0,0 +1,32 @@
+package com.smartagri.alert.notification;
+
+import com.smartagri.alert.model.AlertSubscription;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Delivery channel of a notification; each channel has its own queue and batches
+ */
+public enum NotificationChannel {
+    EMAIL,
+    SMS,
+    PUSH,
+    IN_APP;
+
+    /**
+     * Channels a subscription is notified on; ALL fans out to every channel
+     */
+    public static Set<NotificationChannel> of(AlertSubscription.NotificationMethod method) {
+        if (method == null) {
+            return EnumSet.of(IN_APP);
+        }
+        return switch (method) {
+            case EMAIL -> EnumSet.of(EMAIL);
+            case SMS -> EnumSet.of(SMS);
+            case PUSH -> EnumSet.of(PUSH);
+            case IN_APP -> EnumSet.of(IN_APP);
+            case ALL -> EnumSet.allOf(NotificationChannel.class);
+        };
+    }
+}
@@ -0,0 +1,279 @@
+package com.smartagri.alert.notification;
+
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertSubscription;
+import com.smartagri.alert.model.NotificationDeadLetter;
+import com.smartagri.alert.repository.NotificationDeadLetterRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dispatch pipeline for subscriber notifications.
+ * Each channel has a bounded queue drained in batches on the notification executor, with at most
+ * one drain running per channel. Failed deliveries are re-queued after an exponential backoff by a
+ * timer instead of blocking a worker, and notifications that exhaust their attempts, or find their
+ * queue full, are written to the dead-letter table. Dead letters are written in their own transaction
+ * on the timer thread, since they may come up in a commit callback whose transaction is already done.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final NotificationSender sender;
+    private final NotificationDeadLetterRepository deadLetterRepository;
+    private final AlertMetrics metrics;
+    private final Executor executor;
+    private final TransactionTemplate deadLetterTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final long maxRetryDelayMillis;
+    private final Map<NotificationChannel, ChannelQueue> queues = new EnumMap<>(NotificationChannel.class);
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NotificationDispatcher(NotificationSender sender,
+                                  NotificationDeadLetterRepository deadLetterRepository,
+                                  AlertMetrics metrics,
+                                  @Qualifier("notificationExecutor") Executor executor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${alert.notification.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${alert.notification.batch-size:50}") int batchSize,
+                                  @Value("${alert.notification.retry-attempts:3}") int maxAttempts,
+                                  @Value("${alert.notification.retry-delay:5000}") long retryDelayMillis,
+                                  @Value("${alert.notification.max-retry-delay:300000}") long maxRetryDelayMillis) {
+        this.sender = sender;
+        this.deadLetterRepository = deadLetterRepository;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.deadLetterTransaction = new TransactionTemplate(transactionManager);
+        this.deadLetterTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            ChannelQueue queue = new ChannelQueue(new ArrayBlockingQueue<>(queueCapacity));
+            queues.put(channel, queue);
+            metrics.registerNotificationQueue(channel, queue.pending);
+        }
+    }
+
+    /**
+     * Queue notifications of an alert for the given subscribers, once the current transaction (if any) commits
+     */
+    public void dispatch(List<AlertSubscription> subscriptions, Alert alert) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Alert snapshot = alert.snapshot();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(subscriptions, snapshot);
+                }
+            });
+        } else {
+            enqueue(subscriptions, snapshot);
+        }
+    }
+
+    public int getQueueDepth(NotificationChannel channel) {
+        return queues.get(channel).pending.size();
+    }
+
+    private void enqueue(List<AlertSubscription> subscriptions, Alert snapshot) {
+        List<Notification> undeliverable = new ArrayList<>();
+
+        for (AlertSubscription subscription : subscriptions) {
+            Set<NotificationChannel> channels = NotificationChannel.of(subscription.getNotificationMethod());
+            for (NotificationChannel channel : channels) {
+                Notification notification = new Notification(subscription, channel, snapshot);
+                if (notification.getRecipient() == null || notification.getRecipient().isBlank()) {
+                    notification.recordFailure("No " + channel + " recipient on subscription");
+                    undeliverable.add(notification);
+                } else if (!offer(notification)) {
+                    undeliverable.add(notification);
+                }
+            }
+        }
+        deadLetter(undeliverable);
+    }
+
+    private boolean offer(Notification notification) {
+        ChannelQueue queue = queues.get(notification.getChannel());
+        if (!queue.pending.offer(notification)) {
+            notification.recordFailure("Notification queue full");
+            return false;
+        }
+        scheduleDrain(notification.getChannel(), queue);
+        return true;
+    }
+
+    private void scheduleDrain(NotificationChannel channel, ChannelQueue queue) {
+        if (!queue.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(channel, queue));
+        } catch (RejectedExecutionException e) {
+            queue.draining.set(false);
+            log.warn("Notification executor saturated, {} {} notifications waiting", queue.pending.size(), channel);
+            try {
+                retryTimer.schedule(() -> scheduleDrain(channel, queue), retryDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shutDown) {
+                log.warn("Notification dispatcher is shut down, {} {} notifications left undelivered",
+                        queue.pending.size(), channel);
+            }
+        }
+    }
+
+    private void drain(NotificationChannel channel, ChannelQueue queue) {
+        while (true) {
+            List<Notification> batch = new ArrayList<>(batchSize);
+            queue.pending.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                queue.draining.set(false);
+                // A notification may have been queued after drainTo but before the flag was cleared
+                if (queue.pending.isEmpty() || !queue.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            deliver(channel, batch);
+        }
+    }
+
+    private void deliver(NotificationChannel channel, List<Notification> batch) {
+        List<Notification> failed;
+        String error;
+        try {
+            failed = sender.send(channel, batch);
+            error = "Rejected by " + channel + " sender";
+        } catch (Exception e) {
+            log.warn("{} notification batch of {} failed: {}", channel, batch.size(), e.getMessage());
+            failed = batch;
+            error = e.getMessage();
+        }
+
+        Set<Notification> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedSet.addAll(failed);
+        long now = System.nanoTime();
+        List<Notification> exhausted = new ArrayList<>();
+
+        for (Notification notification : batch) {
+            if (!failedSet.contains(notification)) {
+                metrics.recordNotificationSent(channel, true);
+                metrics.recordNotificationLatency(channel,
+                        TimeUnit.NANOSECONDS.toMillis(now - notification.getEnqueuedAtNanos()));
+                continue;
+            }
+            notification.recordFailure(error);
+            if (notification.getAttempts() >= maxAttempts) {
+                exhausted.add(notification);
+            } else {
+                scheduleRetry(notification);
+            }
+        }
+        deadLetter(exhausted);
+    }
+
+    private void scheduleRetry(Notification notification) {
+        long delay = Math.min(retryDelayMillis << Math.min(notification.getAttempts() - 1, 20), maxRetryDelayMillis);
+        metrics.recordNotificationRetry(notification.getChannel());
+
+        try {
+            retryTimer.schedule(() -> {
+                if (!offer(notification)) {
+                    deadLetter(List.of(notification));
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            deadLetter(List.of(notification));
+        }
+    }
+
+    private void deadLetter(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<NotificationDeadLetter> deadLetters = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            metrics.recordNotificationSent(notification.getChannel(), false);
+            metrics.recordNotificationFailed(notification.getChannel());
+
+            NotificationDeadLetter deadLetter = new NotificationDeadLetter();
+            deadLetter.setAlertId(notification.getAlert().getId());
+            deadLetter.setSubscriptionId(notification.getSubscriptionId());
+            deadLetter.setUserId(notification.getUserId());
+            deadLetter.setChannel(notification.getChannel().name());
+            deadLetter.setRecipient(notification.getRecipient());
+            deadLetter.setAttempts(notification.getAttempts());
+            deadLetter.setLastError(notification.getLastError());
+            deadLetters.add(deadLetter);
+        }
+
+        try {
+            retryTimer.execute(() -> storeDeadLetters(deadLetters));
+        } catch (RejectedExecutionException e) {
+            storeDeadLetters(deadLetters);
+        }
+    }
+
+    private void storeDeadLetters(List<NotificationDeadLetter> deadLetters) {
+        try {
+            deadLetterTransaction.executeWithoutResult(status -> deadLetterRepository.saveAll(deadLetters));
+            log.warn("Moved {} undeliverable notifications to the dead-letter store", deadLetters.size());
+        } catch (Exception e) {
+            log.error("Failed to store {} dead-letter notifications: {}", deadLetters.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> pendingRetries = retryTimer.shutdownNow();
+        if (!pendingRetries.isEmpty()) {
+            log.warn("Discarding {} scheduled notification retries on shutdown", pendingRetries.size());
+        }
+    }
+
+    private static class ChannelQueue {
+        private final BlockingQueue<Notification> pending;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        ChannelQueue(BlockingQueue<Notification> pending) {
+            this.pending = pending;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.smartagri.alert.notification;
+
+import java.util.List;
+
+/**
+ * Delivers notifications to an external provider (mail gateway, SMS provider, push service...).
+ * Called with batches of a single channel from the notification executor.
+ */
+public interface NotificationSender {
+
+    /**
+     * Deliver a batch of notifications of the given channel
+     *
+     * @return the notifications that could not be delivered and should be retried;
+     *         throwing fails the whole batch
+     */
+    List<Notification> send(NotificationChannel channel, List<Notification> batch) throws Exception;
+}
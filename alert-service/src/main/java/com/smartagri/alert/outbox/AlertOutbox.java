@@ -0,0 +1,146 @@
+package com.smartagri.alert.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.exception.AlertServiceException;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertOutboxEvent;
+import com.smartagri.alert.repository.AlertOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Records alert state changes in the outbox table, as part of the caller's transaction.
+ * The side effects of a change (stream updates, notifications) are only triggered by
+ * {@link AlertOutboxRelay} once the row is committed, so they never happen for a rolled back change.
+ * Relayed changes are read back by their event sequence to resume streams.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AlertOutbox {
+
+    private static final String INSERT_SQL = "INSERT INTO alert_outbox " +
+            "(alert_id, parcel_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final AlertOutboxRepository outboxRepository;
+    private final AlertOutboxRelay relay;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(AlertEventType type, Alert alert) {
+        AlertOutboxEvent event = new AlertOutboxEvent();
+        event.setAlertId(alert.getId());
+        event.setParcelId(alert.getParcelId());
+        event.setEventType(type.name());
+        event.setPayload(serialize(alert));
+        outboxRepository.save(event);
+
+        wakeUpRelayAfterCommit();
+    }
+
+    /**
+     * Record the same kind of change for several alerts with a single batched insert
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(AlertEventType type, List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        List<String> payloads = alerts.stream().map(this::serialize).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, alerts.get(i).getId());
+                ps.setObject(2, alerts.get(i).getParcelId(), Types.BIGINT);
+                ps.setString(3, type.name());
+                ps.setString(4, payloads.get(i));
+                ps.setTimestamp(5, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return alerts.size();
+            }
+        });
+
+        wakeUpRelayAfterCommit();
+    }
+
+    /**
+     * Relayed events after the given sequence, optionally of one parcel only, in sequence order
+     *
+     * @return the events, or empty if some of them are no longer retained, the sequence was never
+     * issued, or there are more than {@code limit}
+     */
+    public Optional<List<AlertEvent>> eventsAfter(long eventSequence, Long parcelId, int limit) {
+        if (eventSequence > outboxRepository.findLastSequence()) {
+            return Optional.empty();
+        }
+        List<AlertOutboxEvent> rows = parcelId != null
+                ? outboxRepository.findRelayedAfterForParcel(eventSequence, parcelId, limit + 1)
+                : outboxRepository.findRelayedAfter(eventSequence, limit + 1);
+        // Checked after reading, so rows purged meanwhile are noticed
+        Long first = outboxRepository.findFirstSequence();
+        if (rows.size() > limit || first == null || first > eventSequence + 1) {
+            return Optional.empty();
+        }
+
+        List<AlertEvent> events = new ArrayList<>(rows.size());
+        for (AlertOutboxEvent row : rows) {
+            try {
+                events.add(new AlertEvent(row.getEventSequence(), AlertEventType.valueOf(row.getEventType()),
+                        objectMapper.readValue(row.getPayload(), Alert.class), row.getCreatedAt()));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.error("Skipping unreadable outbox event {} for alert {}: {}",
+                        row.getId(), row.getAlertId(), e.getMessage());
+            }
+        }
+        return Optional.of(events);
+    }
+
+    /**
+     * Sequence of the event that created the given alert, if it is still retained
+     */
+    public Optional<Long> createdSequence(Long alertId) {
+        return Optional.ofNullable(outboxRepository.findCreatedSequence(alertId));
+    }
+
+    private String serialize(Alert alert) {
+        try {
+            return objectMapper.writeValueAsString(alert.snapshot());
+        } catch (JsonProcessingException e) {
+            throw new AlertServiceException("Failed to serialize alert " + alert.getId() + " for the outbox", e);
+        }
+    }
+
+    private void wakeUpRelayAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.wakeUp();
+            }
+        });
+    }
+}
@@ -0,0 +1,287 @@
+package com.smartagri.alert.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertOutboxEvent;
+import com.smartagri.alert.notification.NotificationDispatcher;
+import com.smartagri.alert.repository.AlertOutboxRepository;
+import com.smartagri.alert.service.AlertSubscriptionIndex;
+import com.smartagri.alert.stats.AlertRollupWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relays committed outbox events, in two steps.
+ * <p>
+ * Relaying happens once across all instances: a batch of pending events is locked, numbered with the
+ * next event sequences, handed to the notification pipeline and counted in the hourly rollups in one
+ * transaction. Relay transactions are serialized with an advisory lock, so sequences are gapless and
+ * committed in order. Woken up right after each commit that wrote to the outbox, and polled as a
+ * fallback so events left behind by a crash or another instance are still relayed.
+ * <p>
+ * Publishing happens on every instance: each one follows the relayed events from its own cursor and
+ * publishes them to its stream hub under their sequence, so streams on any instance see every change.
+ * Relayed events are kept for the retention period, which bounds how far back streams can resume.
+ */
+@Component
+@Slf4j
+public class AlertOutboxRelay implements SmartInitializingSingleton {
+
+    // Arbitrary key of the advisory lock serializing relay transactions
+    private static final long RELAY_LOCK_KEY = 0x616c6572746f7574L;
+
+    private final AlertOutboxRepository outboxRepository;
+    private final AlertEventHub eventHub;
+    private final AlertSubscriptionIndex subscriptionIndex;
+    private final NotificationDispatcher notificationDispatcher;
+    private final AlertRollupWriter rollupWriter;
+    private final AlertMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final AtomicBoolean relayPending = new AtomicBoolean(false);
+    private final AtomicBoolean publishPending = new AtomicBoolean(false);
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alert-outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Sequence of the last event published to the hub by this instance; only used on the worker thread
+     */
+    private long publishedSequence = -1;
+
+    public AlertOutboxRelay(AlertOutboxRepository outboxRepository,
+                            AlertEventHub eventHub,
+                            AlertSubscriptionIndex subscriptionIndex,
+                            NotificationDispatcher notificationDispatcher,
+                            AlertRollupWriter rollupWriter,
+                            AlertMetrics metrics,
+                            ObjectMapper objectMapper,
+                            TransactionTemplate transactionTemplate,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${alert.outbox.batch-size:100}") int batchSize,
+                            @Value("${alert.outbox.retention:86400000}") long retentionMillis) {
+        this.outboxRepository = outboxRepository;
+        this.eventHub = eventHub;
+        this.subscriptionIndex = subscriptionIndex;
+        this.notificationDispatcher = notificationDispatcher;
+        this.rollupWriter = rollupWriter;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.retention = Duration.ofMillis(retentionMillis);
+    }
+
+    /**
+     * Start publishing after the last relayed event, before the gRPC server accepts streams, so
+     * stream watermarks are outbox sequences from the start
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            worker.submit(this::publishRelayed).get();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.error("Error starting to publish relayed alert events: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Request a relay run, followed by publishing what it relayed; requests arriving while one is
+     * pending are merged into it
+     */
+    public void wakeUp() {
+        submit(relayPending, () -> {
+            relayPending();
+            publishRelayed();
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${alert.outbox.poll-interval:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Pick up events relayed by other instances
+     */
+    @Scheduled(fixedDelayString = "${alert.outbox.follow-interval:500}")
+    public void follow() {
+        submit(publishPending, this::publishRelayed);
+    }
+
+    @Scheduled(fixedDelayString = "${alert.outbox.purge-interval:600000}", initialDelay = 60000)
+    public void purge() {
+        try {
+            int deleted = transactionTemplate.execute(status ->
+                    outboxRepository.deleteRelayedBefore(LocalDateTime.now().minus(retention)));
+            if (deleted > 0) {
+                log.debug("Purged {} relayed outbox events", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error purging alert outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    private void submit(AtomicBoolean pending, Runnable task) {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                pending.set(false);
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            pending.set(false);
+        }
+    }
+
+    private void relayPending() {
+        // Relaying against an empty index would mark new alerts relayed without notifying anyone
+        if (!subscriptionIndex.isLoaded()) {
+            subscriptionIndex.rebuild();
+            if (!subscriptionIndex.isLoaded()) {
+                log.warn("Subscription index not loaded, postponing alert outbox relay");
+                return;
+            }
+        }
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Error relaying alert outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    private int relayBatch() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + RELAY_LOCK_KEY + ")");
+        List<AlertOutboxEvent> events = outboxRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long sequence = outboxRepository.findLastSequence();
+        AlertRollupWriter.Deltas rollupDeltas = new AlertRollupWriter.Deltas();
+        List<Runnable> samples = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (AlertOutboxEvent event : events) {
+            event.setEventSequence(++sequence);
+            try {
+                relay(event, rollupDeltas, samples);
+                long lagMillis = Duration.between(event.getCreatedAt(), now).toMillis();
+                samples.add(() -> metrics.recordOutboxLag(lagMillis));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                // A payload that cannot be read will never succeed, so it must not block the ones behind it.
+                // Any other failure rolls the batch back, and it is relayed again on the next run.
+                log.error("Dropping unreadable outbox event {} for alert {}: {}",
+                        event.getId(), event.getAlertId(), e.getMessage(), e);
+            }
+        }
+        // Counted in the transaction that numbers the events, so each one lands in the rollups exactly once
+        rollupWriter.apply(rollupDeltas);
+        // Sampled once committed, so a batch rolled back and relayed again is not sampled twice
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                samples.forEach(Runnable::run);
+            }
+        });
+
+        log.debug("Relayed {} outbox events", events.size());
+        return events.size();
+    }
+
+    private void relay(AlertOutboxEvent event, AlertRollupWriter.Deltas rollupDeltas, List<Runnable> samples)
+            throws JsonProcessingException {
+        AlertEventType type = AlertEventType.valueOf(event.getEventType());
+        Alert alert = objectMapper.readValue(event.getPayload(), Alert.class);
+
+        rollupDeltas.add(type, alert);
+        if (type == AlertEventType.CREATED) {
+            // Deferred until this transaction has numbered the event
+            notificationDispatcher.dispatch(subscriptionIndex.findSubscribers(alert), alert);
+        } else if (type == AlertEventType.ACKNOWLEDGED && alert.getAlertTime() != null
+                && alert.getAcknowledgedAt() != null) {
+            Duration latency = Duration.between(alert.getAlertTime(), alert.getAcknowledgedAt());
+            samples.add(() -> metrics.recordAcknowledgeLatency(alert.getAlertType(), alert.getSeverity(), latency));
+        }
+    }
+
+    /**
+     * Publish every event relayed since the last run to the local hub, in sequence order
+     */
+    private void publishRelayed() {
+        try {
+            if (publishedSequence < 0) {
+                publishedSequence = outboxRepository.findLastSequence();
+                eventHub.skipTo(publishedSequence);
+            }
+            List<AlertOutboxEvent> events;
+            do {
+                events = outboxRepository.findRelayedAfter(publishedSequence, batchSize);
+                for (AlertOutboxEvent event : events) {
+                    publish(event);
+                    publishedSequence = event.getEventSequence();
+                }
+            } while (events.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Error publishing relayed alert events: {}", e.getMessage(), e);
+        }
+    }
+
+    private void publish(AlertOutboxEvent event) {
+        try {
+            eventHub.publish(event.getEventSequence(), AlertEventType.valueOf(event.getEventType()),
+                    objectMapper.readValue(event.getPayload(), Alert.class), event.getCreatedAt());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.error("Skipping unreadable outbox event {} for alert {}: {}",
+                    event.getId(), event.getAlertId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.AlertOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AlertOutboxRepository extends JpaRepository<AlertOutboxEvent, Long> {
+
+    /**
+     * Oldest events not relayed yet, locked for the current transaction
+     */
+    @Query(value = "SELECT * FROM alert_outbox WHERE event_sequence IS NULL ORDER BY id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<AlertOutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    /**
+     * Sequence of the last relayed event, 0 when none was relayed yet
+     */
+    @Query(value = "SELECT COALESCE(MAX(event_sequence), 0) FROM alert_outbox", nativeQuery = true)
+    long findLastSequence();
+
+    /**
+     * Alert id and event type of every event not relayed yet
+     */
+    @Query(value = "SELECT alert_id, event_type FROM alert_outbox WHERE event_sequence IS NULL", nativeQuery = true)
+    List<Object[]> findPendingEvents();
+
+    /**
+     * Sequence of the oldest relayed event still retained, null when none is
+     */
+    @Query(value = "SELECT MIN(event_sequence) FROM alert_outbox", nativeQuery = true)
+    Long findFirstSequence();
+
+    /**
+     * Relayed events after the given sequence, in relay order
+     */
+    @Query(value = "SELECT * FROM alert_outbox WHERE event_sequence > :after ORDER BY event_sequence LIMIT :limit",
+            nativeQuery = true)
+    List<AlertOutboxEvent> findRelayedAfter(@Param("after") long afterSequence, @Param("limit") int limit);
+
+    /**
+     * Relayed events of a parcel after the given sequence, in relay order
+     */
+    @Query(value = "SELECT * FROM alert_outbox WHERE parcel_id = :parcelId AND event_sequence > :after " +
+            "ORDER BY event_sequence LIMIT :limit", nativeQuery = true)
+    List<AlertOutboxEvent> findRelayedAfterForParcel(@Param("after") long afterSequence,
+                                                     @Param("parcelId") Long parcelId,
+                                                     @Param("limit") int limit);
+
+    /**
+     * Sequence of the relayed event that created the given alert, null if it is no longer retained
+     */
+    @Query(value = "SELECT event_sequence FROM alert_outbox WHERE alert_id = :alertId " +
+            "AND event_type = 'CREATED' AND event_sequence IS NOT NULL", nativeQuery = true)
+    Long findCreatedSequence(@Param("alertId") Long alertId);
+
+    /**
+     * Delete relayed events older than the cutoff, always keeping the last one so sequences keep counting on
+     */
+    @Modifying
+    @Query(value = "DELETE FROM alert_outbox WHERE created_at < :cutoff AND event_sequence < " +
+            "(SELECT MAX(event_sequence) FROM alert_outbox)", nativeQuery = true)
+    int deleteRelayedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
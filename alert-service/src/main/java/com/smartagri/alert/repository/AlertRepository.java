@@ -8,10 +8,12 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecificationExecutor<Alert> {
+public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecificationExecutor<Alert>,
+        AlertRepositoryCustom {
 
     List<Alert> findByIsActiveTrueOrderByAlertTimeDesc();
 
@@ -24,13 +26,36 @@ public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecific
     @Query("SELECT a FROM Alert a WHERE a.isActive = true AND a.alertTime >= :since ORDER BY a.alertTime DESC")
     List<Alert> findActiveAlertsSince(@Param("since") LocalDateTime since);
 
-   @Query("SELECT a FROM Alert a WHERE a.isActive = true AND a.acknowledged = false " +
-            "ORDER BY a.severity DESC, a.alertTime DESC")
+    /**
+     * Unacknowledged active alerts, most severe first; severities are stored by name, so they are ranked
+     * explicitly rather than sorted alphabetically
+     */
+    @Query("SELECT a FROM Alert a WHERE a.isActive = true AND a.acknowledged = false " +
+            "ORDER BY CASE a.severity " +
+            "WHEN com.smartagri.alert.model.Alert.AlertSeverity.CRITICAL THEN 0 " +
+            "WHEN com.smartagri.alert.model.Alert.AlertSeverity.HIGH THEN 1 " +
+            "WHEN com.smartagri.alert.model.Alert.AlertSeverity.MEDIUM THEN 2 " +
+            "ELSE 3 END, a.alertTime DESC")
     List<Alert> findUnacknowledgedAlerts();
 
     @Query("SELECT a FROM Alert a WHERE a.expiryTime < :now AND a.isActive = true")
     List<Alert> findExpiredAlerts(@Param("now") LocalDateTime now);
 
+    /**
+     * Per parcel (null for alerts without one): total, active and active unacknowledged counts
+     */
+    @Query("SELECT a.parcelId, COUNT(a), " +
+            "SUM(CASE WHEN a.isActive = true THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.isActive = true AND a.acknowledged = false THEN 1 ELSE 0 END) " +
+            "FROM Alert a GROUP BY a.parcelId")
+    List<Object[]> countByParcelGrouped();
+
+    @Query("SELECT a.id FROM Alert a WHERE a.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id, a.expiryTime FROM Alert a WHERE a.isActive = true AND a.expiryTime IS NOT NULL")
+    List<Object[]> findActiveExpiryTimes();
+
     long countByIsActiveTrueAndAcknowledgedFalse();
 
     long countByParcelIdAndIsActiveTrueAndAcknowledgedFalse(Long parcelId);
@@ -0,0 +1,43 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.Alert;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Set-based alert updates issued as plain SQL, bypassing the persistence context
+ */
+public interface AlertRepositoryCustom {
+
+    /**
+     * Deactivate up to {@code limit} active alerts that expired before the given time, skipping rows
+     * locked by concurrent updates
+     *
+     * @return the expired alerts in their new state
+     */
+    List<Alert> expireAlertsBefore(LocalDateTime now, int limit);
+
+    /**
+     * Deactivate the given alerts, unless they are already inactive
+     *
+     * @return the alerts that were expired by this call, in their new state
+     */
+    List<Alert> expireAlerts(Collection<Long> alertIds);
+
+    /**
+     * Acknowledge the given alerts, unless they are already acknowledged
+     *
+     * @return the alerts that were acknowledged by this call, in their new state
+     */
+    List<Alert> acknowledgeAlerts(Collection<Long> alertIds, String acknowledgedBy, LocalDateTime acknowledgedAt);
+
+    /**
+     * Deactivate the given alert
+     *
+     * @return the alert in its new state, empty if it does not exist
+     */
+    Optional<Alert> dismissAlert(Long alertId);
+}
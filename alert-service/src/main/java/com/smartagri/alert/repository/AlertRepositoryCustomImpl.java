@@ -0,0 +1,60 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.Alert;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class AlertRepositoryCustomImpl implements AlertRepositoryCustom {
+
+    private static final String EXPIRE_SQL = "UPDATE alerts SET is_active = false, row_version = row_version + 1 " +
+            "WHERE id IN (" +
+            "SELECT id FROM alerts WHERE is_active = true AND expiry_time < ? " +
+            "ORDER BY expiry_time LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *";
+
+    private static final String EXPIRE_BY_ID_SQL = "UPDATE alerts SET is_active = false, " +
+            "row_version = row_version + 1 WHERE id = ANY(?) AND is_active = true RETURNING *";
+
+    private static final String ACKNOWLEDGE_SQL = "UPDATE alerts SET acknowledged = true, " +
+            "acknowledged_by = ?, acknowledged_at = ?, row_version = row_version + 1 " +
+            "WHERE id = ANY(?) AND acknowledged = false RETURNING *";
+
+    private static final String DISMISS_SQL = "UPDATE alerts SET is_active = false, " +
+            "row_version = row_version + 1 WHERE id = ? RETURNING *";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Alert> expireAlertsBefore(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(EXPIRE_SQL, AlertRowMapper.INSTANCE, Timestamp.valueOf(now), limit);
+    }
+
+    @Override
+    public List<Alert> expireAlerts(Collection<Long> alertIds) {
+        return jdbcTemplate.query(EXPIRE_BY_ID_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", alertIds.toArray())),
+                AlertRowMapper.INSTANCE);
+    }
+
+    @Override
+    public List<Alert> acknowledgeAlerts(Collection<Long> alertIds, String acknowledgedBy,
+                                         LocalDateTime acknowledgedAt) {
+        return jdbcTemplate.query(ACKNOWLEDGE_SQL, ps -> {
+            ps.setString(1, acknowledgedBy);
+            ps.setTimestamp(2, Timestamp.valueOf(acknowledgedAt));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", alertIds.toArray()));
+        }, AlertRowMapper.INSTANCE);
+    }
+
+    @Override
+    public Optional<Alert> dismissAlert(Long alertId) {
+        return jdbcTemplate.query(DISMISS_SQL, AlertRowMapper.INSTANCE, alertId).stream().findFirst();
+    }
+}
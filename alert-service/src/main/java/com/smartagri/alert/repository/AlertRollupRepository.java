@@ -0,0 +1,56 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.AlertHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AlertRollupRepository extends JpaRepository<AlertHourlyRollup, Long> {
+
+    /**
+     * Per type and severity: created, acknowledged and summed acknowledgement latency since the given hour
+     */
+    @Query("SELECT r.alertType, r.severity, SUM(r.createdCount), SUM(r.acknowledgedCount), SUM(r.ackLatencySeconds) " +
+            "FROM AlertHourlyRollup r WHERE r.bucketStart >= :from GROUP BY r.alertType, r.severity")
+    List<Object[]> summarizeSince(@Param("from") LocalDateTime from);
+
+    @Query("SELECT r.alertType, r.severity, SUM(r.createdCount), SUM(r.acknowledgedCount), SUM(r.ackLatencySeconds) " +
+            "FROM AlertHourlyRollup r WHERE r.parcelId = :parcelId AND r.bucketStart >= :from " +
+            "GROUP BY r.alertType, r.severity")
+    List<Object[]> summarizeSince(@Param("parcelId") Long parcelId, @Param("from") LocalDateTime from);
+
+    /**
+     * Acknowledgement latency sketches merged per type and severity since the given hour: alert type,
+     * severity, bin and summed bin count, non-empty bins only
+     */
+    @Query(value = "SELECT r.alert_type, r.severity, CAST(b.i - 1 AS integer), SUM(b.c) " +
+            "FROM alert_hourly_rollups r CROSS JOIN LATERAL unnest(r.ack_latency_bins) WITH ORDINALITY AS b(c, i) " +
+            "WHERE r.bucket_start >= :from AND b.c > 0 GROUP BY 1, 2, 3", nativeQuery = true)
+    List<Object[]> mergeLatencyBinsSince(@Param("from") LocalDateTime from);
+
+    @Query(value = "SELECT r.alert_type, r.severity, CAST(b.i - 1 AS integer), SUM(b.c) " +
+            "FROM alert_hourly_rollups r CROSS JOIN LATERAL unnest(r.ack_latency_bins) WITH ORDINALITY AS b(c, i) " +
+            "WHERE r.parcel_id = :parcelId AND r.bucket_start >= :from AND b.c > 0 GROUP BY 1, 2, 3",
+            nativeQuery = true)
+    List<Object[]> mergeLatencyBinsSince(@Param("parcelId") Long parcelId, @Param("from") LocalDateTime from);
+
+    /**
+     * Hourly series: bucket start, created, acknowledged and summed acknowledgement latency, oldest first
+     */
+    @Query("SELECT r.bucketStart, SUM(r.createdCount), SUM(r.acknowledgedCount), SUM(r.ackLatencySeconds) " +
+            "FROM AlertHourlyRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> hourlySeries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r.bucketStart, SUM(r.createdCount), SUM(r.acknowledgedCount), SUM(r.ackLatencySeconds) " +
+            "FROM AlertHourlyRollup r WHERE r.parcelId = :parcelId AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> hourlySeries(@Param("parcelId") Long parcelId,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+}
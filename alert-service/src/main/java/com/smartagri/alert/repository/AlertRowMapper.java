@@ -0,0 +1,41 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.Alert;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Maps full rows of the alerts table, e.g. as returned by {@code UPDATE ... RETURNING *}
+ */
+public class AlertRowMapper implements RowMapper<Alert> {
+
+    public static final AlertRowMapper INSTANCE = new AlertRowMapper();
+
+    @Override
+    public Alert mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Alert alert = new Alert();
+        alert.setId(rs.getLong("id"));
+        alert.setAlertType(Alert.AlertType.valueOf(rs.getString("alert_type")));
+        alert.setSeverity(Alert.AlertSeverity.valueOf(rs.getString("severity")));
+        alert.setParcelId(rs.getObject("parcel_id", Long.class));
+        alert.setLocation(rs.getString("location"));
+        alert.setTitle(rs.getString("title"));
+        alert.setMessage(rs.getString("message"));
+        alert.setAlertTime(rs.getObject("alert_time", LocalDateTime.class));
+        alert.setExpiryTime(rs.getObject("expiry_time", LocalDateTime.class));
+        alert.setIsActive(rs.getObject("is_active", Boolean.class));
+        alert.setAcknowledged(rs.getObject("acknowledged", Boolean.class));
+        alert.setAcknowledgedAt(rs.getObject("acknowledged_at", LocalDateTime.class));
+        alert.setAcknowledgedBy(rs.getString("acknowledged_by"));
+        alert.setMetadata(rs.getString("metadata"));
+        alert.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        alert.setFingerprint(rs.getString("fingerprint"));
+        alert.setOccurrenceCount(rs.getObject("occurrence_count", Integer.class));
+        alert.setLastSeenAt(rs.getObject("last_seen_at", LocalDateTime.class));
+        alert.setRowVersion(rs.getObject("row_version", Long.class));
+        return alert;
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartagri.alert.repository;
+
+import com.smartagri.alert.model.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+
+    List<NotificationDeadLetter> findByAlertId(Long alertId);
+
+    long countByChannel(String channel);
+}
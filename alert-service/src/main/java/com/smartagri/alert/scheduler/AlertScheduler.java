@@ -14,9 +14,9 @@ public class AlertScheduler {
     private final AlertService alertService;
 
     /**
-     * Expire old alerts every 5 minutes
+     * Expire alerts missed by the expiry wheel, e.g. while the service was down
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes
+    @Scheduled(fixedDelayString = "${alert.expiry.check-interval:900000}")
     public void expireOldAlerts() {
         log.info("Running scheduled task: Expire old alerts");
         try {
@@ -0,0 +1,288 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventListener;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the active alerts, so the read paths need no query. Alerts are kept newest first,
+ * with secondary indexes by parcel, type and severity, plus the unacknowledged alerts most severe first.
+ * <p>
+ * The store is loaded at startup, written through by every change to an alert once it commits, follows
+ * the alert events of all instances, and is periodically reloaded to pick up changes made outside this
+ * service. Since commits and events arrive in no particular order, a copy of an alert only replaces
+ * the stored one when its row version is newer; removed alerts leave their version behind until the
+ * second reload after, so a late copy cannot bring them back. Each change publishes a new immutable
+ * snapshot with the next version, so readers see a consistent view without locking.
+ * Returned alerts are shared and must not be modified.
+ */
+@Component
+@Slf4j
+public class ActiveAlertStore implements AlertEventListener {
+
+    static final Comparator<Alert> NEWEST_FIRST = Comparator
+            .comparing(Alert::getAlertTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Alert::getId, Comparator.reverseOrder());
+
+    static final Comparator<Alert> MOST_SEVERE_FIRST = Comparator
+            .comparing(Alert::getSeverity, Comparator.reverseOrder())
+            .thenComparing(NEWEST_FIRST);
+
+    private final AlertRepository alertRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+
+    /**
+     * Row versions of alerts removed since the last reload, and in the reload period before; guarded by this
+     */
+    private Map<Long, Long> removed = new HashMap<>();
+    private Map<Long, Long> previouslyRemoved = new HashMap<>();
+
+    public ActiveAlertStore(AlertRepository alertRepository, AlertEventHub eventHub) {
+        this.alertRepository = alertRepository;
+        eventHub.subscribe(this);
+    }
+
+    /**
+     * Whether the store has been loaded from the database; until then callers should query it
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Incremented with every applied change, so readers can tell whether two reads saw the same state
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public int size() {
+        return snapshot.all.size();
+    }
+
+    public List<Alert> findAll() {
+        return snapshot.all;
+    }
+
+    public List<Alert> findByParcel(Long parcelId) {
+        return snapshot.byParcel.getOrDefault(parcelId, List.of());
+    }
+
+    public List<Alert> findByType(Alert.AlertType alertType) {
+        return snapshot.byType.getOrDefault(alertType, List.of());
+    }
+
+    public List<Alert> findBySeverity(Alert.AlertSeverity severity) {
+        return snapshot.bySeverity.getOrDefault(severity, List.of());
+    }
+
+    /**
+     * Unacknowledged active alerts, most severe first and newest first within a severity
+     */
+    public List<Alert> findUnacknowledged() {
+        return snapshot.unacknowledged;
+    }
+
+    public List<Alert> findSince(LocalDateTime since) {
+        List<Alert> alerts = new ArrayList<>();
+        for (Alert alert : snapshot.all) {
+            if (alert.getAlertTime() == null || alert.getAlertTime().isBefore(since)) {
+                break;
+            }
+            alerts.add(alert);
+        }
+        return alerts;
+    }
+
+    /**
+     * Active alerts matching the parcel, type, severity, acknowledgement and date filters of the
+     * criteria, newest first. Scans the narrowest index that applies and stops at the limit.
+     */
+    public List<Alert> find(AlertSearchCriteria criteria, Integer limit) {
+        Snapshot current = snapshot;
+
+        List<Alert> candidates = current.all;
+        if (criteria.getParcelId() != null) {
+            candidates = current.byParcel.getOrDefault(criteria.getParcelId(), List.of());
+        }
+        if (criteria.getAlertType() != null) {
+            candidates = narrower(candidates, current.byType.getOrDefault(criteria.getAlertType(), List.of()));
+        }
+        if (criteria.getSeverity() != null) {
+            candidates = narrower(candidates, current.bySeverity.getOrDefault(criteria.getSeverity(), List.of()));
+        }
+
+        int max = limit != null ? limit : Integer.MAX_VALUE;
+        List<Alert> alerts = new ArrayList<>(Math.min(candidates.size(), max));
+        for (Alert alert : candidates) {
+            if (alerts.size() >= max) {
+                break;
+            }
+            if (criteria.matches(alert)) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * Write the new state of an alert through to the store; deferred until commit inside a transaction
+     */
+    public void record(Alert alert) {
+        recordAll(List.of(alert));
+    }
+
+    /**
+     * Write the new state of several alerts through as a single change
+     */
+    public void recordAll(Collection<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        List<Alert> snapshots = alerts.stream().map(Alert::snapshot).toList();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(snapshots);
+                }
+            });
+        } else {
+            apply(snapshots);
+        }
+    }
+
+    @Override
+    public void onAlertEvent(AlertEvent event) {
+        apply(List.of(event.getAlert()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${alert.active-store.refresh-interval:300000}",
+            initialDelayString = "${alert.active-store.refresh-interval:300000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Reload the store from the database. Held under the same lock as updates, so a change committed
+     * while the query runs is applied on top of the reloaded alerts rather than lost.
+     */
+    public synchronized void rebuild() {
+        try {
+            Map<Long, Alert> byId = new HashMap<>();
+            for (Alert alert : alertRepository.findByIsActiveTrueOrderByAlertTimeDesc()) {
+                byId.put(alert.getId(), alert.snapshot());
+            }
+            snapshot = Snapshot.of(byId, snapshot.version + 1);
+            previouslyRemoved = removed;
+            removed = new HashMap<>();
+            loaded = true;
+            log.info("Active alert store loaded with {} alerts", byId.size());
+        } catch (Exception e) {
+            log.error("Error loading active alert store: {}", e.getMessage(), e);
+        }
+    }
+
+    private synchronized void apply(List<Alert> alerts) {
+        Map<Long, Alert> byId = new HashMap<>(snapshot.byId);
+        boolean changed = false;
+        for (Alert alert : alerts) {
+            if (!isNewer(alert, byId)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(alert.getIsActive())) {
+                byId.put(alert.getId(), alert);
+                changed = true;
+            } else {
+                changed |= byId.remove(alert.getId()) != null;
+                if (alert.getRowVersion() != null) {
+                    removed.put(alert.getId(), alert.getRowVersion());
+                }
+            }
+        }
+        if (changed) {
+            snapshot = Snapshot.of(byId, snapshot.version + 1);
+        }
+    }
+
+    /**
+     * Whether the copy is newer than what the store knows of the alert; copies without a row version
+     * cannot be ordered and always apply
+     */
+    private boolean isNewer(Alert alert, Map<Long, Alert> byId) {
+        if (alert.getRowVersion() == null) {
+            return true;
+        }
+        Alert known = byId.get(alert.getId());
+        Long knownVersion = known != null ? known.getRowVersion() : removed.get(alert.getId());
+        if (knownVersion == null && known == null) {
+            knownVersion = previouslyRemoved.get(alert.getId());
+        }
+        return knownVersion == null || alert.getRowVersion() > knownVersion;
+    }
+
+    private static List<Alert> narrower(List<Alert> current, List<Alert> candidate) {
+        return candidate.size() < current.size() ? candidate : current;
+    }
+
+    private record Snapshot(long version, Map<Long, Alert> byId, List<Alert> all, Map<Long, List<Alert>> byParcel,
+                            Map<Alert.AlertType, List<Alert>> byType,
+                            Map<Alert.AlertSeverity, List<Alert>> bySeverity, List<Alert> unacknowledged) {
+
+        static final Snapshot EMPTY = new Snapshot(0, Map.of(), List.of(), Map.of(), Map.of(), Map.of(), List.of());
+
+        static Snapshot of(Map<Long, Alert> byId, long version) {
+            List<Alert> all = new ArrayList<>(byId.values());
+            all.sort(NEWEST_FIRST);
+
+            Map<Long, List<Alert>> byParcel = new HashMap<>();
+            Map<Alert.AlertType, List<Alert>> byType = new EnumMap<>(Alert.AlertType.class);
+            Map<Alert.AlertSeverity, List<Alert>> bySeverity = new EnumMap<>(Alert.AlertSeverity.class);
+            List<Alert> unacknowledged = new ArrayList<>();
+            for (Alert alert : all) {
+                if (alert.getParcelId() != null) {
+                    byParcel.computeIfAbsent(alert.getParcelId(), id -> new ArrayList<>()).add(alert);
+                }
+                byType.computeIfAbsent(alert.getAlertType(), type -> new ArrayList<>()).add(alert);
+                bySeverity.computeIfAbsent(alert.getSeverity(), severity -> new ArrayList<>()).add(alert);
+                if (!Boolean.TRUE.equals(alert.getAcknowledged())) {
+                    unacknowledged.add(alert);
+                }
+            }
+            unacknowledged.sort(MOST_SEVERE_FIRST);
+
+            byParcel.replaceAll((parcelId, alerts) -> List.copyOf(alerts));
+            byType.replaceAll((type, alerts) -> List.copyOf(alerts));
+            bySeverity.replaceAll((severity, alerts) -> List.copyOf(alerts));
+            return new Snapshot(version, byId, List.copyOf(all), byParcel, byType, bySeverity,
+                    List.copyOf(unacknowledged));
+        }
+    }
+}
@@ -1,103 +1,147 @@
 package com.smartagri.alert.service;
 
+import com.smartagri.alert.dto.AckLatencyStats;
+import com.smartagri.alert.dto.AcknowledgementResult;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.AlertTrendBucket;
+import com.smartagri.alert.dto.NewAlert;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
 import com.smartagri.alert.grpc.generated.*;
 import com.smartagri.alert.model.Alert;
 import com.smartagri.alert.model.AlertSubscription;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
 import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.Optional;
 
 @GrpcService
 @Slf4j
-public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
+public class AlertGrpcService implements AlertServiceGrpc.AsyncService, BindableService {
 
     private final AlertService alertService;
-    private final ScheduledExecutorService scheduler;
-    private final Map<StreamObserver<AlertResponse>, ScheduledFuture<?>> activeStreams;
+    private final AlertStreamRegistry streamRegistry;
+    private final AlertEventHub eventHub;
+    private final AlertIngestPipeline ingestPipeline;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_DATE_TIME;
-    private static final int STREAM_INTERVAL_SECONDS = 5;
-    private static final int SCHEDULER_POOL_SIZE = 10;
+    private static final int MAX_ACKNOWLEDGE_BATCH = 1000;
+    private static final int DEFAULT_TREND_DAYS = 7;
+    private static final int MAX_TREND_DAYS = 366;
 
     @Autowired
-    public AlertGrpcService(AlertService alertService) {
+    public AlertGrpcService(AlertService alertService, AlertStreamRegistry streamRegistry, AlertEventHub eventHub,
+                            AlertIngestPipeline ingestPipeline) {
         this.alertService = alertService;
-        this.scheduler = Executors.newScheduledThreadPool(SCHEDULER_POOL_SIZE);
-        this.activeStreams = new ConcurrentHashMap<>();
+        this.streamRegistry = streamRegistry;
+        this.eventHub = eventHub;
+        this.ingestPipeline = ingestPipeline;
     }
 
-    @PreDestroy
-    public void shutdown() {
-        log.info("Shutting down AlertGrpcService scheduler");
-
-        // Cancel all active streams
-        activeStreams.values().forEach(future -> future.cancel(true));
-        activeStreams.clear();
-
-        // Shutdown scheduler
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+    /**
+     * The generated binding, except that StreamAlerts uses a response marshaller that also accepts
+     * {@link EncodedAlertResponse}s, so live changes are serialized once for all streams
+     */
+    @Override
+    public ServerServiceDefinition bindService() {
+        ServerServiceDefinition generated = AlertServiceGrpc.bindService(this);
+        MethodDescriptor<StreamAlertsRequest, Object> streamAlertsMethod = AlertServiceGrpc.getStreamAlertsMethod()
+                .toBuilder(ProtoUtils.marshaller(StreamAlertsRequest.getDefaultInstance()), EncodedAlertResponse.marshaller())
+                .build();
+
+        ServiceDescriptor.Builder descriptor = ServiceDescriptor.newBuilder(AlertServiceGrpc.SERVICE_NAME)
+                .setSchemaDescriptor(generated.getServiceDescriptor().getSchemaDescriptor());
+        for (MethodDescriptor<?, ?> method : generated.getServiceDescriptor().getMethods()) {
+            descriptor.addMethod(method.getFullMethodName().equals(streamAlertsMethod.getFullMethodName())
+                    ? streamAlertsMethod : method);
+        }
+
+        ServerServiceDefinition.Builder definition = ServerServiceDefinition.builder(descriptor.build());
+        for (ServerMethodDefinition<?, ?> method : generated.getMethods()) {
+            if (method.getMethodDescriptor().getFullMethodName().equals(streamAlertsMethod.getFullMethodName())) {
+                definition.addMethod(streamAlertsMethod, ServerCalls.asyncServerStreamingCall((request, observer) ->
+                        streamAlerts(request, new EncodedResponseObserver((ServerCallStreamObserver<Object>) observer))));
+            } else {
+                definition.addMethod(method);
             }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
         }
+        return definition.build();
     }
 
     @Override
     public void streamAlerts(StreamAlertsRequest request, StreamObserver<AlertResponse> responseObserver) {
-        log.info("gRPC: StreamAlerts called for parcelId: {}",
+        log.debug("gRPC: StreamAlerts called for parcelId: {}",
                 request.hasParcelId() ? request.getParcelId() : "ALL");
 
-        // Schedule periodic alert streaming
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> {
-            try {
-                List<Alert> alerts = fetchAlerts(request);
-
-                if (alerts.isEmpty()) {
-                    log.debug("No alerts to stream");
-                    return;
-                }
-
-                for (Alert alert : alerts) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        log.info("Stream interrupted, stopping alert streaming");
-                        return;
-                    }
-
-                    AlertResponse response = convertToGrpcResponse(alert);
-                    responseObserver.onNext(response);
-                }
+        startStream(request, responseObserver, new ResponseStreamWriter());
+    }
 
-                log.debug("Streamed {} alerts", alerts.size());
+    /**
+     * Open a stream, send its snapshot or replay, and switch it to live delivery, in any wire format
+     */
+    <M> void startStream(StreamAlertsRequest request, StreamObserver<M> responseObserver, AlertStreamWriter<M> writer) {
+        // Register before taking the snapshot so no change slips in between; events arriving
+        // meanwhile are buffered by the context and sent right after the snapshot
+        StreamContext<M> context;
+        try {
+            context = streamRegistry.open(responseObserver, request, writer);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid stream filters: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid alert type or severity filter: " + e.getMessage())
+                    .asException());
+            return;
+        }
 
-            } catch (Exception e) {
-                log.error("Error streaming alerts: {}", e.getMessage(), e);
-                cleanupStream(responseObserver);
-                responseObserver.onError(Status.INTERNAL
-                        .withDescription("Error streaming alerts: " + e.getMessage())
-                        .asException());
+        try {
+            // Without a usable sequence, the last alert received stands for the event that created it
+            Optional<Long> cursor = request.hasResumeAfterSequence()
+                    ? Optional.of(request.getResumeAfterSequence())
+                    : request.hasLastAlertId()
+                    ? alertService.getCreatedEventSequence(request.getLastAlertId())
+                    : Optional.empty();
+            Long parcelId = context.getParcelId();
+            Optional<List<AlertEvent>> missedEvents = cursor.flatMap(sequence -> eventHub.eventsAfter(sequence)
+                    .or(() -> alertService.getEventsAfter(sequence, parcelId)));
+
+            if (missedEvents.isPresent()) {
+                // Replay only what the client missed, from the in-memory buffer or else the outbox
+                context.goLive(List.of(), cursor.get(), missedEvents.get());
+                log.info("Alert stream resumed after sequence {} with {} missed events. Active streams: {}",
+                        cursor.get(), missedEvents.get().size(), streamRegistry.getActiveStreamCount());
+            } else {
+                long watermark = eventHub.currentSequence();
+                List<Alert> initial = fetchAlerts(request).stream()
+                        .filter(context::matches)
+                        .toList();
+                context.goLive(initial, watermark, List.of());
+                log.info("Alert streaming started with a snapshot of {} alerts. Active streams: {}", initial.size(),
+                        streamRegistry.getActiveStreamCount());
             }
-        }, 0, STREAM_INTERVAL_SECONDS, TimeUnit.SECONDS);
-
-        // Track the stream for cleanup
-        activeStreams.put(responseObserver, future);
-
-        log.info("Alert streaming started. Active streams: {}", activeStreams.size());
+        } catch (Exception e) {
+            log.error("Error starting alert stream: {}", e.getMessage(), e);
+            streamRegistry.terminate(context, Status.INTERNAL
+                    .withDescription("Error streaming alerts: " + e.getMessage()));
+        }
     }
 
     @Override
     public void createAlert(CreateAlertRequest request, StreamObserver<AlertResponse> responseObserver) {
-        log.info("gRPC: CreateAlert called - type: {}, severity: {}",
+        log.debug("gRPC: CreateAlert called - type: {}, severity: {}",
                 request.getAlertType(), request.getSeverity());
 
         try {
@@ -119,7 +163,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
-            log.info("Alert created successfully with ID: {}", alert.getId());
+            log.debug("Alert created successfully with ID: {}", alert.getId());
 
         } catch (IllegalArgumentException e) {
             log.error("Invalid alert data: {}", e.getMessage());
@@ -134,9 +178,29 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
         }
     }
 
+    @Override
+    public StreamObserver<CreateAlertRequest> createAlerts(StreamObserver<CreateAlertsResponse> responseObserver) {
+        log.debug("gRPC: CreateAlerts stream opened");
+        return ingestPipeline.open(responseObserver, this::toNewAlert);
+    }
+
+    private NewAlert toNewAlert(CreateAlertRequest request) {
+        validateCreateAlertRequest(request);
+        return NewAlert.builder()
+                .alertType(Alert.AlertType.valueOf(request.getAlertType()))
+                .severity(Alert.AlertSeverity.valueOf(request.getSeverity()))
+                .parcelId(request.hasParcelId() ? request.getParcelId() : null)
+                .location(request.hasLocation() ? request.getLocation() : null)
+                .title(request.getTitle())
+                .message(request.getMessage())
+                .expirySeconds(request.hasExpirySeconds() ? request.getExpirySeconds() : null)
+                .metadata(request.hasMetadata() ? request.getMetadata() : null)
+                .build();
+    }
+
     @Override
     public void getAlert(GetAlertRequest request, StreamObserver<AlertResponse> responseObserver) {
-        log.info("gRPC: GetAlert called for ID: {}", request.getAlertId());
+        log.debug("gRPC: GetAlert called for ID: {}", request.getAlertId());
 
         try {
             Alert alert = alertService.getAlertById(request.getAlertId());
@@ -159,20 +223,20 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
 
     @Override
     public void getActiveAlerts(GetActiveAlertsRequest request, StreamObserver<AlertListResponse> responseObserver) {
-        log.info("gRPC: GetActiveAlerts called with filters - parcelId: {}, type: {}, severity: {}",
+        log.debug("gRPC: GetActiveAlerts called with filters - parcelId: {}, type: {}, severity: {}",
                 request.hasParcelId() ? request.getParcelId() : "N/A",
                 request.hasAlertType() ? request.getAlertType() : "N/A",
                 request.hasSeverity() ? request.getSeverity() : "N/A");
 
         try {
-            List<Alert> alerts = fetchActiveAlerts(request);
+            AlertSearchCriteria criteria = AlertSearchCriteria.builder()
+                    .parcelId(request.hasParcelId() ? request.getParcelId() : null)
+                    .alertType(request.hasAlertType() ? Alert.AlertType.valueOf(request.getAlertType()) : null)
+                    .severity(request.hasSeverity() ? Alert.AlertSeverity.valueOf(request.getSeverity()) : null)
+                    .build();
+            Integer limit = request.hasLimit() && request.getLimit() > 0 ? request.getLimit() : null;
 
-            // Apply limit if specified
-            if (request.hasLimit() && request.getLimit() > 0) {
-                alerts = alerts.stream()
-                        .limit(request.getLimit())
-                        .toList();
-            }
+            List<Alert> alerts = alertService.getActiveAlerts(criteria, limit);
 
             AlertListResponse.Builder builder = AlertListResponse.newBuilder()
                     .setTotalCount(alerts.size());
@@ -184,7 +248,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(builder.build());
             responseObserver.onCompleted();
 
-            log.info("Returned {} active alerts", alerts.size());
+            log.debug("Returned {} active alerts", alerts.size());
 
         } catch (IllegalArgumentException e) {
             log.error("Invalid request parameters: {}", e.getMessage());
@@ -201,7 +265,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
 
     @Override
     public void acknowledgeAlert(AcknowledgeAlertRequest request, StreamObserver<AlertResponse> responseObserver) {
-        log.info("gRPC: AcknowledgeAlert called for ID: {} by: {}",
+        log.debug("gRPC: AcknowledgeAlert called for ID: {} by: {}",
                 request.getAlertId(), request.getAcknowledgedBy());
 
         try {
@@ -212,7 +276,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
-            log.info("Alert {} acknowledged successfully", request.getAlertId());
+            log.debug("Alert {} acknowledged successfully", request.getAlertId());
 
         } catch (com.smartagri.alert.exception.AlertNotFoundException e) {
             log.warn("Alert not found for acknowledgement: {}", request.getAlertId());
@@ -232,9 +296,53 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
         }
     }
 
+    @Override
+    public void acknowledgeAlerts(AcknowledgeAlertsRequest request,
+                                  StreamObserver<AcknowledgeAlertsResponse> responseObserver) {
+        log.debug("gRPC: AcknowledgeAlerts called for {} alerts by: {}",
+                request.getAlertIdsCount(), request.getAcknowledgedBy());
+
+        try {
+            validateAcknowledgeAlertsRequest(request);
+
+            List<AcknowledgementResult> results =
+                    alertService.acknowledgeAlerts(request.getAlertIdsList(), request.getAcknowledgedBy());
+
+            AcknowledgeAlertsResponse.Builder response = AcknowledgeAlertsResponse.newBuilder();
+            int acknowledgedCount = 0;
+            for (AcknowledgementResult result : results) {
+                AcknowledgeOutcome.Builder outcome = AcknowledgeOutcome.newBuilder()
+                        .setAlertId(result.getAlertId())
+                        .setStatus(result.getOutcome().name());
+                if (result.getAlert() != null) {
+                    outcome.setAlert(convertToGrpcResponse(result.getAlert()));
+                    acknowledgedCount++;
+                }
+                response.addOutcomes(outcome);
+            }
+            response.setAcknowledgedCount(acknowledgedCount);
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+
+            log.debug("Acknowledged {} of {} alerts", acknowledgedCount, results.size());
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid bulk acknowledgement request: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asException());
+        } catch (Exception e) {
+            log.error("Error acknowledging alerts: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to acknowledge alerts: " + e.getMessage())
+                    .asException());
+        }
+    }
+
     @Override
     public void dismissAlert(DismissAlertRequest request, StreamObserver<DismissAlertResponse> responseObserver) {
-        log.info("gRPC: DismissAlert called for ID: {} by: {}",
+        log.debug("gRPC: DismissAlert called for ID: {} by: {}",
                 request.getAlertId(), request.getDismissedBy());
 
         try {
@@ -250,7 +358,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
-            log.info("Alert {} dismissed successfully", request.getAlertId());
+            log.debug("Alert {} dismissed successfully", request.getAlertId());
 
         } catch (com.smartagri.alert.exception.AlertNotFoundException e) {
             log.warn("Alert not found for dismissal: {}", request.getAlertId());
@@ -287,7 +395,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
 
     @Override
     public void subscribeToAlerts(SubscribeRequest request, StreamObserver<SubscribeResponse> responseObserver) {
-        log.info("gRPC: SubscribeToAlerts called for user: {}", request.getUserId());
+        log.debug("gRPC: SubscribeToAlerts called for user: {}", request.getUserId());
 
         try {
             validateSubscribeRequest(request);
@@ -310,7 +418,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
-            log.info("Subscription created with ID: {}", subscriptionId);
+            log.debug("Subscription created with ID: {}", subscriptionId);
 
         } catch (IllegalArgumentException e) {
             log.error("Invalid subscription request: {}", e.getMessage());
@@ -337,7 +445,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
 
     @Override
     public void getSubscription(GetSubscriptionRequest request, StreamObserver<SubscriptionResponse> responseObserver) {
-        log.info("gRPC: GetSubscription called for user: {}, parcel: {}",
+        log.debug("gRPC: GetSubscription called for user: {}, parcel: {}",
                 request.getUserId(), request.hasParcelId() ? request.getParcelId() : "N/A");
 
         try {
@@ -357,7 +465,7 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
             responseObserver.onNext(response);
             responseObserver.onCompleted();
 
-            log.info("Subscription retrieved for user: {}", request.getUserId());
+            log.debug("Subscription retrieved for user: {}", request.getUserId());
 
         } catch (Exception e) {
             log.error("Error getting subscription: {}", e.getMessage(), e);
@@ -367,37 +475,116 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void getAlertTrends(GetAlertTrendsRequest request, StreamObserver<AlertTrendsResponse> responseObserver) {
+        log.debug("gRPC: GetAlertTrends called for parcel: {}, days: {}",
+                request.hasParcelId() ? request.getParcelId() : "N/A", request.getDays());
+
+        try {
+            int days = request.getDays() == 0 ? DEFAULT_TREND_DAYS : request.getDays();
+            if (days < 0 || days > MAX_TREND_DAYS) {
+                throw new IllegalArgumentException("Days must be between 1 and " + MAX_TREND_DAYS);
+            }
+            AlertTrendBucket.Granularity granularity = request.hasGranularity()
+                    ? AlertTrendBucket.Granularity.valueOf(request.getGranularity())
+                    : AlertTrendBucket.Granularity.DAY;
+            Long parcelId = request.hasParcelId() ? request.getParcelId() : null;
+
+            Map<String, Object> trends = alertService.getAlertTrends(parcelId, days);
+            LocalDateTime now = LocalDateTime.now();
+            List<AlertTrendBucket> series = alertService.getAlertTrendSeries(
+                    parcelId, now.minusDays(days), now, granularity);
+
+            AlertTrendsResponse.Builder builder = AlertTrendsResponse.newBuilder()
+                    .setTotalAlerts(((Number) trends.get("totalAlerts")).longValue())
+                    .setAcknowledgedRate(((Number) trends.get("acknowledgedRate")).doubleValue())
+                    .setAvgResponseMinutes(((Number) trends.get("avgResponseTime")).longValue());
+            ((Map<Alert.AlertType, Long>) trends.get("byType"))
+                    .forEach((type, count) -> builder.putByType(type.name(), count));
+            ((Map<Alert.AlertSeverity, Long>) trends.get("bySeverity"))
+                    .forEach((severity, count) -> builder.putBySeverity(severity.name(), count));
+            builder.setAckLatency(toGrpcAckLatency((AckLatencyStats) trends.get("responseTimePercentiles")));
+            ((List<AckLatencyStats>) trends.get("responseTimePercentilesByTypeAndSeverity"))
+                    .forEach(latency -> builder.addAckLatencyByTypeAndSeverity(toGrpcAckLatency(latency)));
+            for (AlertTrendBucket bucket : series) {
+                builder.addSeries(AlertTrendPoint.newBuilder()
+                        .setBucketStart(bucket.getBucketStart().format(FORMATTER))
+                        .setCreated(bucket.getCreated())
+                        .setAcknowledged(bucket.getAcknowledged())
+                        .setAvgResponseMinutes(bucket.getAvgResponseMinutes()));
+            }
+
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid trends request: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Invalid trends request: " + e.getMessage())
+                    .asException());
+        } catch (Exception e) {
+            log.error("Error getting alert trends: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to retrieve alert trends: " + e.getMessage())
+                    .asException());
+        }
+    }
+
     // ==================== Helper Methods ====================
 
-    private List<Alert> fetchAlerts(StreamAlertsRequest request) {
-        if (request.hasParcelId()) {
-            return alertService.getActiveAlertsByParcel(request.getParcelId());
+    /**
+     * Writes v1 stream messages; each live change is converted and serialized once for all streams
+     */
+    private class ResponseStreamWriter implements AlertStreamWriter<AlertResponse> {
+
+        @Override
+        public void writeSnapshot(StreamObserver<AlertResponse> observer, Alert alert, long sequence) {
+            observer.onNext(toGrpcResponseBuilder(alert).setEventSequence(sequence).build());
+        }
+
+        @Override
+        public void writeEvent(StreamObserver<AlertResponse> observer, AlertEvent event) {
+            EncodedAlertResponse response = event.encoded(EncodedAlertResponse.class,
+                    e -> EncodedAlertResponse.of(toGrpcResponseBuilder(e.getAlert())
+                            .setEventSequence(e.getSequence())
+                            .setEventType(e.getType().name())
+                            .build()));
+            if (observer instanceof EncodedResponseObserver encodedObserver) {
+                encodedObserver.onNextEncoded(response);
+            } else {
+                observer.onNext(response.getMessage());
+            }
         }
-        // Add support for filtering by alert types and severities if needed
-        return alertService.getActiveAlerts();
     }
 
-    private List<Alert> fetchActiveAlerts(GetActiveAlertsRequest request) {
-        if (request.hasParcelId()) {
-            return alertService.getActiveAlertsByParcel(request.getParcelId());
-        } else if (request.hasAlertType()) {
-            return alertService.getActiveAlertsByType(Alert.AlertType.valueOf(request.getAlertType()));
-        } else if (request.hasSeverity()) {
-            return alertService.getActiveAlertsBySeverity(Alert.AlertSeverity.valueOf(request.getSeverity()));
-        } else {
-            return alertService.getActiveAlerts();
+    private AckLatencyPercentiles toGrpcAckLatency(AckLatencyStats latency) {
+        AckLatencyPercentiles.Builder builder = AckLatencyPercentiles.newBuilder()
+                .setCount(latency.getCount())
+                .setP50Seconds(latency.getP50Seconds())
+                .setP90Seconds(latency.getP90Seconds())
+                .setP99Seconds(latency.getP99Seconds());
+        if (latency.getAlertType() != null) {
+            builder.setAlertType(latency.getAlertType().name());
+        }
+        if (latency.getSeverity() != null) {
+            builder.setSeverity(latency.getSeverity().name());
         }
+        return builder.build();
     }
 
-    private void cleanupStream(StreamObserver<AlertResponse> responseObserver) {
-        ScheduledFuture<?> future = activeStreams.remove(responseObserver);
-        if (future != null) {
-            future.cancel(true);
-            log.info("Stream cleaned up. Active streams: {}", activeStreams.size());
+    private List<Alert> fetchAlerts(StreamAlertsRequest request) {
+        if (request.hasParcelId()) {
+            return alertService.getActiveAlertsByParcel(request.getParcelId());
         }
+        return alertService.getActiveAlerts();
     }
 
     private AlertResponse convertToGrpcResponse(Alert alert) {
+        return toGrpcResponseBuilder(alert).build();
+    }
+
+    private AlertResponse.Builder toGrpcResponseBuilder(Alert alert) {
         AlertResponse.Builder builder = AlertResponse.newBuilder()
                 .setId(alert.getId())
                 .setAlertType(alert.getAlertType().name())
@@ -426,8 +613,14 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
         if (alert.getMetadata() != null) {
             builder.setMetadata(alert.getMetadata());
         }
+        if (alert.getOccurrenceCount() != null) {
+            builder.setOccurrenceCount(alert.getOccurrenceCount());
+        }
+        if (alert.getLastSeenAt() != null) {
+            builder.setLastSeenAt(alert.getLastSeenAt().format(FORMATTER));
+        }
 
-        return builder.build();
+        return builder;
     }
 
     private SubscriptionResponse convertToSubscriptionResponse(AlertSubscription subscription) {
@@ -479,6 +672,21 @@ public class AlertGrpcService extends AlertServiceGrpc.AlertServiceImplBase {
         }
     }
 
+    private void validateAcknowledgeAlertsRequest(AcknowledgeAlertsRequest request) {
+        if (request.getAlertIdsCount() == 0) {
+            throw new IllegalArgumentException("At least one alert ID is required");
+        }
+        if (request.getAlertIdsCount() > MAX_ACKNOWLEDGE_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_ACKNOWLEDGE_BATCH + " alerts can be acknowledged at once");
+        }
+        if (request.getAlertIdsList().stream().anyMatch(id -> id <= 0)) {
+            throw new IllegalArgumentException("Valid alert IDs are required");
+        }
+        if (request.getAcknowledgedBy() == null || request.getAcknowledgedBy().isEmpty()) {
+            throw new IllegalArgumentException("Acknowledged by field is required");
+        }
+    }
+
     private void validateDismissRequest(DismissAlertRequest request) {
         if (request.getAlertId() <= 0) {
             throw new IllegalArgumentException("Valid alert ID is required");
@@ -0,0 +1,138 @@
+package com.smartagri.alert.service;
+
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.util.FieldMaskUtil;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.exception.AlertNotFoundException;
+import com.smartagri.alert.grpc.generated.*;
+import com.smartagri.alert.model.Alert;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+import java.util.List;
+
+/**
+ * Version 2 of the alert API, covering the read and stream paths only (StreamAlerts, GetAlert and
+ * GetActiveAlerts) over a compact wire format with proto enums, native timestamps and field masks.
+ * Writes, subscriptions and trends stay on v1. Streams share routing, flow control and resume logic
+ * with v1.
+ */
+@GrpcService
+@Slf4j
+@RequiredArgsConstructor
+public class AlertGrpcServiceV2 extends AlertServiceV2Grpc.AlertServiceV2ImplBase {
+
+    private final AlertService alertService;
+    private final AlertGrpcService alertGrpcService;
+
+    @Override
+    public void streamAlerts(StreamAlertsV2Request request, StreamObserver<AlertV2> responseObserver) {
+        log.debug("gRPC v2: StreamAlerts called for parcelId: {}",
+                request.hasParcelId() ? request.getParcelId() : "ALL");
+
+        StreamAlertsRequest filter;
+        FieldMask mask;
+        try {
+            filter = AlertV2Mapper.toStreamFilter(request);
+            mask = AlertV2Mapper.validateMask(request.getFieldMask());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid v2 stream request: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asException());
+            return;
+        }
+
+        alertGrpcService.startStream(filter, responseObserver, new MaskedStreamWriter(mask));
+    }
+
+    @Override
+    public void getAlert(GetAlertV2Request request, StreamObserver<AlertV2> responseObserver) {
+        log.debug("gRPC v2: GetAlert called for ID: {}", request.getAlertId());
+
+        try {
+            FieldMask mask = AlertV2Mapper.validateMask(request.getFieldMask());
+            Alert alert = alertService.getAlertById(request.getAlertId());
+            responseObserver.onNext(AlertV2Mapper.applyMask(AlertV2Mapper.toProto(alert).build(), mask));
+            responseObserver.onCompleted();
+
+        } catch (AlertNotFoundException e) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription("Alert not found with ID: " + request.getAlertId())
+                    .asException());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asException());
+        } catch (Exception e) {
+            log.error("Error getting alert: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to retrieve alert: " + e.getMessage())
+                    .asException());
+        }
+    }
+
+    @Override
+    public void getActiveAlerts(GetActiveAlertsV2Request request, StreamObserver<AlertListV2Response> responseObserver) {
+        log.debug("gRPC v2: GetActiveAlerts called with filters - parcelId: {}, type: {}, severity: {}",
+                request.hasParcelId() ? request.getParcelId() : "N/A",
+                request.hasAlertType() ? request.getAlertType() : "N/A",
+                request.hasSeverity() ? request.getSeverity() : "N/A");
+
+        try {
+            FieldMask mask = AlertV2Mapper.validateMask(request.getFieldMask());
+            AlertSearchCriteria criteria = AlertSearchCriteria.builder()
+                    .parcelId(request.hasParcelId() ? request.getParcelId() : null)
+                    .alertType(request.hasAlertType() ? AlertV2Mapper.toModel(request.getAlertType()) : null)
+                    .severity(request.hasSeverity() ? AlertV2Mapper.toModel(request.getSeverity()) : null)
+                    .build();
+            Integer limit = request.hasLimit() && request.getLimit() > 0 ? request.getLimit() : null;
+
+            List<Alert> alerts = alertService.getActiveAlerts(criteria, limit);
+
+            AlertListV2Response.Builder builder = AlertListV2Response.newBuilder().setTotalCount(alerts.size());
+            for (Alert alert : alerts) {
+                builder.addAlerts(AlertV2Mapper.applyMask(AlertV2Mapper.toProto(alert).build(), mask));
+            }
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid request parameters: {}", e.getMessage());
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asException());
+        } catch (Exception e) {
+            log.error("Error getting active alerts: {}", e.getMessage(), e);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to retrieve alerts: " + e.getMessage())
+                    .asException());
+        }
+    }
+
+    /**
+     * Writes masked v2 stream messages; each live change is built once per distinct field mask
+     */
+    private static final class MaskedStreamWriter implements AlertStreamWriter<AlertV2> {
+
+        private final FieldMask mask;
+        private final String format;
+
+        private MaskedStreamWriter(FieldMask mask) {
+            this.mask = mask;
+            this.format = "v2:" + FieldMaskUtil.toString(mask);
+        }
+
+        @Override
+        public void writeSnapshot(StreamObserver<AlertV2> observer, Alert alert, long sequence) {
+            observer.onNext(AlertV2Mapper.applyMask(
+                    AlertV2Mapper.toProto(alert).setEventSequence(sequence).build(), mask));
+        }
+
+        @Override
+        public void writeEvent(StreamObserver<AlertV2> observer, AlertEvent event) {
+            observer.onNext(event.encoded(format, e -> AlertV2Mapper.applyMask(AlertV2Mapper.toProto(e.getAlert())
+                    .setEventSequence(e.getSequence())
+                    .setEventType(AlertV2Mapper.toProto(e.getType()))
+                    .build(), mask)));
+        }
+    }
+}
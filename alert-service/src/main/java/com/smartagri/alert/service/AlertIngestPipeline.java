@@ -0,0 +1,263 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.dto.NewAlert;
+import com.smartagri.alert.grpc.generated.CreateAlertRequest;
+import com.smartagri.alert.grpc.generated.CreateAlertResult;
+import com.smartagri.alert.grpc.generated.CreateAlertsResponse;
+import com.smartagri.alert.model.Alert;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Micro-batching behind the client-streaming CreateAlerts call.
+ * Requests of a call are buffered and created together once the batch is full or its oldest request
+ * has waited for the maximum delay; the results of each batch are sent back as one response.
+ * If a batch fails as a whole, its alerts are retried one by one so errors are reported per request.
+ * <p>
+ * Flow control works both ways: at most one batch of requests is asked from the client at a time, and
+ * responses are only sent while the call is ready. Requests are asked again once the responses
+ * covering them are sent, so a client that stops reading stops being read from.
+ */
+@Component
+@Slf4j
+public class AlertIngestPipeline {
+
+    private final AlertService alertService;
+    private final int batchSize;
+    private final long maxBatchDelayMillis;
+    private final ScheduledExecutorService flushTimer = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "alert-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AlertIngestPipeline(AlertService alertService,
+                               @Value("${alert.ingest.batch-size:100}") int batchSize,
+                               @Value("${alert.ingest.max-batch-delay:200}") long maxBatchDelayMillis) {
+        this.alertService = alertService;
+        this.batchSize = batchSize;
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+    }
+
+    /**
+     * Start an ingestion call
+     *
+     * @param parser turns a request into an alert to create; throws IllegalArgumentException for invalid ones
+     */
+    public StreamObserver<CreateAlertRequest> open(StreamObserver<CreateAlertsResponse> responseObserver,
+                                                   Function<CreateAlertRequest, NewAlert> parser) {
+        return new Batcher(responseObserver, parser);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushTimer.shutdownNow();
+    }
+
+    private final class Batcher implements StreamObserver<CreateAlertRequest> {
+
+        private final StreamObserver<CreateAlertsResponse> responseObserver;
+        /**
+         * Flow control of the call, null when not served by gRPC
+         */
+        private final ServerCallStreamObserver<CreateAlertsResponse> serverCall;
+        private final Function<CreateAlertRequest, NewAlert> parser;
+        private final Deque<CreateAlertsResponse> unsent = new ArrayDeque<>();
+        private final List<Long> pendingIndexes = new ArrayList<>();
+        private final List<NewAlert> pendingAlerts = new ArrayList<>();
+        private final List<CreateAlertResult> rejected = new ArrayList<>();
+        private long nextIndex;
+        /**
+         * Requests answered by responses not sent yet, asked from the client again once they are
+         */
+        private int unrequested;
+        private ScheduledFuture<?> scheduledFlush;
+        private boolean closed;
+        private boolean completing;
+
+        private Batcher(StreamObserver<CreateAlertsResponse> responseObserver,
+                        Function<CreateAlertRequest, NewAlert> parser) {
+            this.responseObserver = responseObserver;
+            this.parser = parser;
+            if (responseObserver instanceof ServerCallStreamObserver<CreateAlertsResponse> call) {
+                serverCall = call;
+                call.disableAutoRequest();
+                call.setOnReadyHandler(this::onReady);
+                call.request(batchSize);
+            } else {
+                serverCall = null;
+            }
+        }
+
+        @Override
+        public synchronized void onNext(CreateAlertRequest request) {
+            if (closed) {
+                return;
+            }
+            long index = nextIndex++;
+            try {
+                pendingAlerts.add(parser.apply(request));
+                pendingIndexes.add(index);
+            } catch (IllegalArgumentException e) {
+                rejected.add(error(index, e.getMessage()));
+            }
+
+            if (pendingAlerts.size() + rejected.size() >= batchSize) {
+                flush();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = flushTimer.schedule(this::flushOnTimer, maxBatchDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * The call is gone, so results can no longer be reported; alerts already received are still
+         * created, as they would have been had the failure come right after their batch
+         */
+        @Override
+        public synchronized void onError(Throwable t) {
+            if (closed && !completing) {
+                return;
+            }
+            closed = true;
+            completing = false;
+            cancelScheduledFlush();
+            long created = create().stream().filter(CreateAlertResult::hasAlertId).count();
+            log.warn("CreateAlerts stream failed after {} requests: {}; created {} buffered alerts, "
+                            + "results of {} unsent responses and {} rejected requests are lost",
+                    nextIndex, t.getMessage(), created, unsent.size(), rejected.size());
+            pendingAlerts.clear();
+            pendingIndexes.clear();
+            rejected.clear();
+            unsent.clear();
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+            completing = true;
+            drain();
+        }
+
+        private synchronized void onReady() {
+            if (!closed || completing) {
+                drain();
+            }
+        }
+
+        private synchronized void flushOnTimer() {
+            scheduledFlush = null;
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // The call is gone; nothing left to report to
+                closed = true;
+                log.warn("CreateAlerts stream closed while flushing: {}", e.getMessage());
+            }
+        }
+
+        private void flush() {
+            cancelScheduledFlush();
+            if (pendingAlerts.isEmpty() && rejected.isEmpty()) {
+                return;
+            }
+
+            List<CreateAlertResult> results = new ArrayList<>(rejected);
+            results.addAll(create());
+            results.sort(Comparator.comparingLong(CreateAlertResult::getIndex));
+
+            pendingAlerts.clear();
+            pendingIndexes.clear();
+            rejected.clear();
+
+            unsent.add(CreateAlertsResponse.newBuilder().addAllResults(results).build());
+            unrequested += results.size();
+            drain();
+        }
+
+        /**
+         * Send queued responses while the call is ready, then ask for as many requests as they answered
+         */
+        private void drain() {
+            while (!unsent.isEmpty() && (serverCall == null || serverCall.isReady())) {
+                responseObserver.onNext(unsent.poll());
+            }
+            if (!unsent.isEmpty()) {
+                return;
+            }
+            if (completing) {
+                completing = false;
+                responseObserver.onCompleted();
+                log.info("CreateAlerts stream completed after {} requests", nextIndex);
+            } else if (serverCall != null && unrequested > 0) {
+                serverCall.request(unrequested);
+            }
+            unrequested = 0;
+        }
+
+        private List<CreateAlertResult> create() {
+            List<CreateAlertResult> results = new ArrayList<>(pendingAlerts.size());
+            if (pendingAlerts.isEmpty()) {
+                return results;
+            }
+            try {
+                List<Alert> created = alertService.createAlerts(pendingAlerts);
+                for (int i = 0; i < created.size(); i++) {
+                    results.add(success(pendingIndexes.get(i), created.get(i).getId()));
+                }
+                return results;
+            } catch (Exception e) {
+                log.warn("Batch of {} alerts failed, retrying individually: {}", pendingAlerts.size(), e.getMessage());
+            }
+
+            for (int i = 0; i < pendingAlerts.size(); i++) {
+                try {
+                    Alert created = alertService.createAlerts(List.of(pendingAlerts.get(i))).get(0);
+                    results.add(success(pendingIndexes.get(i), created.getId()));
+                } catch (Exception e) {
+                    results.add(error(pendingIndexes.get(i), "Failed to create alert: " + e.getMessage()));
+                }
+            }
+            return results;
+        }
+
+        private void cancelScheduledFlush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+
+        private CreateAlertResult success(long index, long alertId) {
+            return CreateAlertResult.newBuilder().setIndex(index).setAlertId(alertId).build();
+        }
+
+        private CreateAlertResult error(long index, String message) {
+            return CreateAlertResult.newBuilder()
+                    .setIndex(index)
+                    .setError(message != null ? message : "Invalid alert request")
+                    .build();
+        }
+    }
+}
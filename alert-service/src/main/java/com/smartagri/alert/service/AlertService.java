@@ -1,6 +1,12 @@
 package com.smartagri.alert.service;
 
+import com.smartagri.alert.dto.AckLatencyStats;
+import com.smartagri.alert.dto.AcknowledgementResult;
 import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.AlertSearchPage;
+import com.smartagri.alert.dto.AlertTrendBucket;
+import com.smartagri.alert.dto.NewAlert;
+import com.smartagri.alert.event.AlertEvent;
 import com.smartagri.alert.model.Alert;
 import com.smartagri.alert.model.AlertSubscription;
 import org.springframework.data.domain.Page;
@@ -8,8 +14,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface AlertService {
 
@@ -17,6 +25,14 @@ public interface AlertService {
     Alert createAlert(Alert.AlertType alertType, Alert.AlertSeverity severity, Long parcelId,
                       String location, String title, String message, Long expirySeconds, String metadata);
 
+    /**
+     * Create several alerts in one transaction, with batched inserts. Repeats are coalesced as by
+     * {@link #createAlert}, including repeats within the batch.
+     *
+     * @return for each alert given, in order, the alert created or the one it was coalesced into
+     */
+    List<Alert> createAlerts(List<NewAlert> newAlerts);
+
     Alert getAlertById(Long alertId);
 
     List<Alert> getActiveAlerts();
@@ -29,12 +45,40 @@ public interface AlertService {
 
     List<Alert> getActiveAlertsSince(LocalDateTime since);
 
+    /**
+     * Active alerts matching every filter set in the criteria, newest first, in a single query
+     *
+     * @param limit maximum number of alerts to return, or null for all of them
+     */
+    @Transactional(readOnly = true)
+    List<Alert> getActiveAlerts(AlertSearchCriteria criteria, Integer limit);
+
+    /**
+     * Changes relayed after the given event sequence, optionally of one parcel only, in sequence order.
+     * Used to catch up reconnecting streams; empty when the changes are no longer all retained.
+     */
+    Optional<List<AlertEvent>> getEventsAfter(long eventSequence, Long parcelId);
+
+    /**
+     * Event sequence of the creation of the given alert, if it is still retained
+     */
+    Optional<Long> getCreatedEventSequence(Long alertId);
+
     @Transactional(readOnly = true)
     Map<String, Long> getAlertStatistics(Long parcelId);
 
     @Transactional(readOnly = true)
     Page<Alert> searchAlerts(AlertSearchCriteria criteria, Pageable pageable);
 
+    /**
+     * Keyset-paginated search, newest first. Each page costs the same regardless of depth.
+     *
+     * @param cursor       cursor from the previous page, or null for the first page
+     * @param includeTotal whether to also count all matching alerts, which costs a full count query
+     */
+    @Transactional(readOnly = true)
+    AlertSearchPage searchAlerts(AlertSearchCriteria criteria, String cursor, int limit, boolean includeTotal);
+
     List<Alert> getUnacknowledgedAlerts();
 
     Alert acknowledgeAlert(Long alertId, String acknowledgedBy);
@@ -42,10 +86,20 @@ public interface AlertService {
     @Transactional
     List<Alert> acknowledgeMultipleAlerts(List<Long> alertIds, String acknowledgedBy);
 
+    /**
+     * Acknowledge several alerts at once, reporting the outcome of each distinct id in request order
+     */
+    List<AcknowledgementResult> acknowledgeAlerts(List<Long> alertIds, String acknowledgedBy);
+
     void dismissAlert(Long alertId, String dismissedBy);
 
     void expireOldAlerts();
 
+    /**
+     * Expire the given alerts now, skipping those that are no longer active
+     */
+    void expireAlerts(Collection<Long> alertIds);
+
     // Subscription operations
     Long createSubscription(String userId, Long parcelId, List<String> alertTypes,
                             String notificationMethod, String email, String phoneNumber);
@@ -66,4 +120,17 @@ public interface AlertService {
 
     @Transactional(readOnly = true)
     Map<String, Object> getAlertTrends(Long parcelId, int days);
+
+    /**
+     * Time-bucketed trend series from the hourly rollups, covering [from, to); a null parcel means all parcels
+     */
+    @Transactional(readOnly = true)
+    List<AlertTrendBucket> getAlertTrendSeries(Long parcelId, LocalDateTime from, LocalDateTime to,
+                                               AlertTrendBucket.Granularity granularity);
+
+    /**
+     * Time-to-acknowledge percentiles over the last days: first over all alerts, then per type and severity
+     */
+    @Transactional(readOnly = true)
+    List<AckLatencyStats> getAcknowledgementLatencies(Long parcelId, int days);
 }
\ No newline at end of file
@@ -1,27 +1,59 @@
 package com.smartagri.alert.service;
 
+import com.smartagri.alert.archive.AlertArchive;
+import com.smartagri.alert.dto.AckLatencyStats;
+import com.smartagri.alert.dto.AcknowledgementResult;
 import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.AlertSearchPage;
+import com.smartagri.alert.dto.AlertTrendBucket;
+import com.smartagri.alert.dedupe.AlertDeduplicator;
+import com.smartagri.alert.dto.NewAlert;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventType;
 import com.smartagri.alert.exception.AlertNotFoundException;
+import com.smartagri.alert.history.AlertHistoryWriter;
+import com.smartagri.alert.metrics.AlertMetrics;
 import com.smartagri.alert.model.Alert;
-import com.smartagri.alert.model.AlertHistory;
 import com.smartagri.alert.model.AlertSubscription;
-import com.smartagri.alert.repository.AlertHistoryRepository;
+import com.smartagri.alert.notification.NotificationDispatcher;
+import com.smartagri.alert.outbox.AlertOutbox;
 import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.repository.AlertRollupRepository;
 import com.smartagri.alert.repository.AlertSubscriptionRepository;
+import com.smartagri.alert.stats.AlertCounters;
+import com.smartagri.alert.stats.LatencySketch;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,16 +64,162 @@ public class AlertServiceImpl implements AlertService {
 
     private final AlertRepository alertRepository;
     private final AlertSubscriptionRepository subscriptionRepository;
-    private final AlertHistoryRepository historyRepository;
-
-    private static final int MAX_RETRY_ATTEMPTS = 3;
-    private static final long RETRY_DELAY_MS = 5000;
+    private final AlertHistoryWriter historyWriter;
+    private final AlertOutbox outbox;
+    private final AlertSubscriptionIndex subscriptionIndex;
+    private final NotificationDispatcher notificationDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertDeduplicator deduplicator;
+    private final AlertCounters alertCounters;
+    private final AlertRollupRepository rollupRepository;
+    private final ActiveAlertStore activeAlerts;
+    private final AlertArchive archive;
+    private final AlertMetrics metrics;
+    private final DatabaseHealthProbe databaseProbe;
+
+    @Value("${alert.expiry.chunk-size:500}")
+    private int expiryChunkSize;
+
+    @Value("${alert.stream.max-replay:10000}")
+    private int maxReplayEvents;
 
     @Override
     public Alert createAlert(Alert.AlertType alertType, Alert.AlertSeverity severity, Long parcelId,
                              String location, String title, String message, Long expirySeconds, String metadata) {
-        log.info("Creating alert: type={}, severity={}, parcelId={}", alertType, severity, parcelId);
+        log.debug("Creating alert: type={}, severity={}, parcelId={}", alertType, severity, parcelId);
+
+        Alert alert = buildAlert(alertType, severity, parcelId, location, title, message, expirySeconds, metadata);
+
+        if (deduplicator.isEnabled()) {
+            Optional<Alert> coalesced = deduplicator.coalesceOrClaim(alert.getFingerprint(), alert.getAlertTime());
+            if (coalesced.isPresent()) {
+                log.debug("Alert coalesced into alert {} ({} occurrences)",
+                        coalesced.get().getId(), coalesced.get().getOccurrenceCount());
+                recordHistory(coalesced.get().getId(), "COALESCED", null, "Alert raised again");
+                outbox.append(AlertEventType.COALESCED, coalesced.get());
+                activeAlerts.record(coalesced.get());
+                afterCommit(() -> metrics.recordAlertCoalesced(alert.getAlertType(), alert.getSeverity()));
+                return coalesced.get();
+            }
+        }
+
+        Alert savedAlert = alertRepository.save(alert);
+        if (deduplicator.isEnabled()) {
+            deduplicator.bind(savedAlert.getFingerprint(), savedAlert.getId(), savedAlert.getAlertTime());
+        }
+
+        // Record in history
+        recordHistory(savedAlert.getId(), "CREATED", null, "Alert created");
+
+        // Subscribers and live streams are notified by the outbox relay once committed
+        outbox.append(AlertEventType.CREATED, savedAlert);
+        activeAlerts.record(savedAlert);
+        afterCommit(() -> metrics.recordAlertCreated(savedAlert.getAlertType(), savedAlert.getSeverity()));
+
+        log.debug("Alert created successfully with ID: {}", savedAlert.getId());
+        return savedAlert;
+    }
+
+    @Override
+    public List<Alert> createAlerts(List<NewAlert> newAlerts) {
+        log.debug("Creating {} alerts", newAlerts.size());
+
+        List<Alert> alerts = new ArrayList<>(newAlerts.size());
+        for (NewAlert newAlert : newAlerts) {
+            alerts.add(buildAlert(newAlert.getAlertType(), newAlert.getSeverity(), newAlert.getParcelId(),
+                    newAlert.getLocation(), newAlert.getTitle(), newAlert.getMessage(),
+                    newAlert.getExpirySeconds(), newAlert.getMetadata()));
+        }
+
+        List<Alert> results = new ArrayList<>(alerts);
+        List<Alert> coalescedAlerts = new ArrayList<>();
+        if (deduplicator.isEnabled()) {
+            coalesce(alerts, results, coalescedAlerts);
+        }
+        List<Alert> newOnes = new ArrayList<>(alerts.size());
+        List<Alert> repeats = new ArrayList<>();
+        for (int i = 0; i < alerts.size(); i++) {
+            if (results.get(i) == alerts.get(i)) {
+                newOnes.add(alerts.get(i));
+            } else {
+                repeats.add(alerts.get(i));
+            }
+        }
+
+        // Ids come from the pooled sequence, so Hibernate can send the inserts as JDBC batches
+        List<Alert> savedAlerts = alertRepository.saveAll(newOnes);
+        if (deduplicator.isEnabled()) {
+            deduplicator.bindAll(savedAlerts);
+        }
+
+        historyWriter.recordAll(savedAlerts.stream().map(Alert::getId).toList(), "CREATED", null, "Alert created");
+        outbox.appendAll(AlertEventType.CREATED, savedAlerts);
+        activeAlerts.recordAll(savedAlerts);
+        if (!coalescedAlerts.isEmpty()) {
+            historyWriter.recordAll(coalescedAlerts.stream().map(Alert::getId).toList(), "COALESCED", null,
+                    "Alert raised again");
+            outbox.appendAll(AlertEventType.COALESCED, coalescedAlerts);
+            activeAlerts.recordAll(coalescedAlerts);
+        }
+        afterCommit(() -> {
+            savedAlerts.forEach(alert -> metrics.recordAlertCreated(alert.getAlertType(), alert.getSeverity()));
+            repeats.forEach(alert -> metrics.recordAlertCoalesced(alert.getAlertType(), alert.getSeverity()));
+        });
 
+        log.debug("Created {} alerts, coalesced {}", savedAlerts.size(), alerts.size() - savedAlerts.size());
+        return results;
+    }
+
+    /**
+     * Replace each alert of a batch that repeats an open alert, or an earlier alert of the same batch, by
+     * that alert; the remaining ones have their fingerprint claimed and are left to create
+     */
+    private void coalesce(List<Alert> alerts, List<Alert> results, List<Alert> coalescedAlerts) {
+        Map<String, Alert> claimed = new HashMap<>();
+        // Claimed in fingerprint order, so concurrent batches lock fingerprint rows in the same order
+        List<Integer> order = new ArrayList<>(alerts.size());
+        for (int i = 0; i < alerts.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> alerts.get(i).getFingerprint()));
+
+        for (int i : order) {
+            Alert alert = alerts.get(i);
+            Alert first = claimed.get(alert.getFingerprint());
+            if (first != null) {
+                first.setOccurrenceCount(first.getOccurrenceCount() + 1);
+                first.setLastSeenAt(alert.getAlertTime());
+                results.set(i, first);
+                continue;
+            }
+            Optional<Alert> coalesced = deduplicator.coalesceOrClaim(alert.getFingerprint(), alert.getAlertTime());
+            if (coalesced.isPresent()) {
+                results.set(i, coalesced.get());
+                coalescedAlerts.add(coalesced.get());
+            } else {
+                claimed.put(alert.getFingerprint(), alert);
+            }
+        }
+    }
+
+    /**
+     * Run once the current transaction commits, so a rolled back change is never counted
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Alert buildAlert(Alert.AlertType alertType, Alert.AlertSeverity severity, Long parcelId,
+                             String location, String title, String message, Long expirySeconds, String metadata) {
         Alert alert = new Alert();
         alert.setAlertType(alertType);
         alert.setSeverity(severity);
@@ -53,27 +231,20 @@ public class AlertServiceImpl implements AlertService {
         alert.setIsActive(true);
         alert.setAcknowledged(false);
         alert.setMetadata(metadata);
+        alert.setFingerprint(AlertDeduplicator.fingerprint(alertType, parcelId, location, title));
+        alert.setOccurrenceCount(1);
+        alert.setLastSeenAt(alert.getAlertTime());
 
         if (expirySeconds != null && expirySeconds > 0) {
             alert.setExpiryTime(LocalDateTime.now().plusSeconds(expirySeconds));
         }
-
-        Alert savedAlert = alertRepository.save(alert);
-
-        // Record in history
-        recordHistory(savedAlert.getId(), "CREATED", null, "Alert created");
-
-        // Notify subscribers
-        notifySubscribers(savedAlert);
-
-        log.info("Alert created successfully with ID: {}", savedAlert.getId());
-        return savedAlert;
+        return alert;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Alert getAlertById(Long alertId) {
-        log.info("Getting alert by ID: {}", alertId);
+        log.debug("Getting alert by ID: {}", alertId);
         return alertRepository.findById(alertId)
                 .orElseThrow(() -> new AlertNotFoundException("Alert not found with ID: " + alertId));
     }
@@ -81,41 +252,89 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getActiveAlerts() {
-        log.info("Getting all active alerts");
+        log.debug("Getting all active alerts");
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findAll();
+        }
         return alertRepository.findByIsActiveTrueOrderByAlertTimeDesc();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Alert> getActiveAlerts(AlertSearchCriteria criteria, Integer limit) {
+        log.debug("Getting active alerts with criteria: {}, limit: {}", criteria, limit);
+
+        // Narrowed on a copy, so the caller's criteria are left as given
+        AlertSearchCriteria active = criteria.toBuilder().isActive(true).build();
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.find(active, limit);
+        }
+        Sort newestFirst = Sort.by(Sort.Order.desc("alertTime"), Sort.Order.desc("id"));
+        return alertRepository.findBy(toSpecification(active), query -> limit != null
+                ? query.sortBy(newestFirst).limit(limit).all()
+                : query.sortBy(newestFirst).all());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getActiveAlertsByParcel(Long parcelId) {
-        log.info("Getting active alerts for parcel: {}", parcelId);
+        log.debug("Getting active alerts for parcel: {}", parcelId);
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findByParcel(parcelId);
+        }
         return alertRepository.findByParcelIdAndIsActiveTrueOrderByAlertTimeDesc(parcelId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getActiveAlertsByType(Alert.AlertType alertType) {
-        log.info("Getting active alerts by type: {}", alertType);
+        log.debug("Getting active alerts by type: {}", alertType);
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findByType(alertType);
+        }
         return alertRepository.findByAlertTypeAndIsActiveTrueOrderByAlertTimeDesc(alertType);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getActiveAlertsBySeverity(Alert.AlertSeverity severity) {
-        log.info("Getting active alerts by severity: {}", severity);
+        log.debug("Getting active alerts by severity: {}", severity);
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findBySeverity(severity);
+        }
         return alertRepository.findBySeverityAndIsActiveTrueOrderByAlertTimeDesc(severity);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getActiveAlertsSince(LocalDateTime since) {
-        log.info("Getting active alerts since: {}", since);
+        log.debug("Getting active alerts since: {}", since);
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findSince(since);
+        }
         return alertRepository.findActiveAlertsSince(since);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<List<AlertEvent>> getEventsAfter(long eventSequence, Long parcelId) {
+        log.debug("Getting alert events after sequence {} for parcel {}", eventSequence, parcelId);
+        return outbox.eventsAfter(eventSequence, parcelId, maxReplayEvents);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getCreatedEventSequence(Long alertId) {
+        return outbox.createdSequence(alertId);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Map<String, Long> getAlertStatistics(Long parcelId) {
+        if (alertCounters.isLoaded()) {
+            return new HashMap<>(alertCounters.snapshot(parcelId));
+        }
+
         Map<String, Long> stats = new HashMap<>();
 
         if (parcelId != null) {
@@ -134,127 +353,238 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional(readOnly = true)
     public Page<Alert> searchAlerts(AlertSearchCriteria criteria, Pageable pageable) {
-        log.info("Searching alerts with criteria: {}", criteria);
+        log.debug("Searching alerts with criteria: {}", criteria);
 
-        return alertRepository.findAll((root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
+        if (!archive.covers(criteria)) {
+            return alertRepository.findAll(toSpecification(criteria), pageable);
+        }
 
-            if (criteria.getParcelId() != null) {
-                predicates.add(cb.equal(root.get("parcelId"), criteria.getParcelId()));
-            }
-            if (criteria.getAlertType() != null) {
-                predicates.add(cb.equal(root.get("alertType"), criteria.getAlertType()));
-            }
-            if (criteria.getSeverity() != null) {
-                predicates.add(cb.equal(root.get("severity"), criteria.getSeverity()));
-            }
-            if (criteria.getIsActive() != null) {
-                predicates.add(cb.equal(root.get("isActive"), criteria.getIsActive()));
-            }
-            if (criteria.getAcknowledged() != null) {
-                predicates.add(cb.equal(root.get("acknowledged"), criteria.getAcknowledged()));
-            }
-            if (criteria.getStartDate() != null) {
-                predicates.add(cb.greaterThanOrEqualTo(root.get("alertTime"), criteria.getStartDate()));
-            }
-            if (criteria.getEndDate() != null) {
-                predicates.add(cb.lessThanOrEqualTo(root.get("alertTime"), criteria.getEndDate()));
-            }
+        // Archived alerts are older than any in the database, so newest first they follow its rows.
+        // No other order can be merged that way.
+        Sort newestFirst = Sort.by(Sort.Order.desc("alertTime"), Sort.Order.desc("id"));
+        if (pageable.getSort().isSorted() && !isNewestFirst(pageable.getSort())) {
+            throw new IllegalArgumentException("Searches reaching into the archive can only be sorted newest first");
+        }
+        Pageable ordered = pageable.isPaged()
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), newestFirst)
+                : Pageable.unpaged(newestFirst);
+        Page<Alert> live = alertRepository.findAll(toSpecification(criteria), ordered);
+
+        List<Alert> content = new ArrayList<>(live.getContent());
+        if (pageable.isUnpaged()) {
+            content.addAll(archive.search(criteria, null, 0, Integer.MAX_VALUE));
+        } else if (content.size() < pageable.getPageSize()) {
+            long skip = Math.max(0, pageable.getOffset() - live.getTotalElements());
+            content.addAll(archive.search(criteria, null, skip, pageable.getPageSize() - content.size()));
+        }
+        return new PageImpl<>(content, ordered, live.getTotalElements() + archive.count(criteria));
+    }
 
-            return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable);
+    private static boolean isNewestFirst(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.get(0).equals(Sort.Order.desc("alertTime"))
+                && (orders.size() == 1 || (orders.size() == 2 && orders.get(1).equals(Sort.Order.desc("id"))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AlertSearchPage searchAlerts(AlertSearchCriteria criteria, String cursor, int limit, boolean includeTotal) {
+        log.debug("Searching alerts with criteria: {}, cursor: {}, limit: {}", criteria, cursor, limit);
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        Specification<Alert> matching = toSpecification(criteria);
+        Specification<Alert> page = matching;
+        Alert position = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            position = decodeCursor(cursor);
+            page = page.and(after(position));
+        }
+
+        // One extra row tells whether another page follows, without a count query
+        List<Alert> alerts = alertRepository.findBy(page, query -> query
+                .sortBy(Sort.by(Sort.Order.desc("alertTime"), Sort.Order.desc("id")))
+                .limit(limit + 1)
+                .all());
+
+        // Archived alerts are all older than the database rows, so the page continues into the archive
+        boolean archived = archive.covers(criteria);
+        if (archived && alerts.size() <= limit) {
+            alerts = new ArrayList<>(alerts);
+            alerts.addAll(archive.search(criteria, position, 0, limit + 1 - alerts.size()));
+        }
+
+        String nextCursor = null;
+        if (alerts.size() > limit) {
+            alerts = new ArrayList<>(alerts.subList(0, limit));
+            nextCursor = encodeCursor(alerts.get(limit - 1));
+        }
+        Long totalCount = null;
+        if (includeTotal) {
+            totalCount = alertRepository.count(matching) + (archived ? archive.count(criteria) : 0);
+        }
+
+        return new AlertSearchPage(alerts, nextCursor, totalCount);
     }
+
     @Override
     @Transactional(readOnly = true)
     public List<Alert> getUnacknowledgedAlerts() {
-        log.info("Getting unacknowledged alerts");
+        log.debug("Getting unacknowledged alerts");
+        if (activeAlerts.isLoaded()) {
+            return activeAlerts.findUnacknowledged();
+        }
         return alertRepository.findUnacknowledgedAlerts();
     }
 
     @Override
     public Alert acknowledgeAlert(Long alertId, String acknowledgedBy) {
-        log.info("Acknowledging alert: {} by: {}", alertId, acknowledgedBy);
-
-        Alert alert = getAlertById(alertId);
+        log.debug("Acknowledging alert: {} by: {}", alertId, acknowledgedBy);
 
-        if (alert.getAcknowledged()) {
+        // Set-based like the bulk path, so occurrences bumped since the alert was read are not a conflict
+        List<Alert> acknowledged = alertRepository.acknowledgeAlerts(List.of(alertId), acknowledgedBy,
+                LocalDateTime.now());
+        if (acknowledged.isEmpty()) {
+            Alert alert = getAlertById(alertId);
             log.warn("Alert {} is already acknowledged", alertId);
             return alert;
         }
-
-        alert.setAcknowledged(true);
-        alert.setAcknowledgedBy(acknowledgedBy);
-        alert.setAcknowledgedAt(LocalDateTime.now());
-
-        Alert updatedAlert = alertRepository.save(alert);
+        Alert updatedAlert = acknowledged.get(0);
 
         // Record in history
         recordHistory(alertId, "ACKNOWLEDGED", acknowledgedBy, "Alert acknowledged");
+        outbox.append(AlertEventType.ACKNOWLEDGED, updatedAlert);
+        activeAlerts.record(updatedAlert);
+        afterCommit(() -> metrics.recordAlertAcknowledged(updatedAlert.getAlertType(), updatedAlert.getSeverity()));
 
-        log.info("Alert {} acknowledged successfully", alertId);
+        log.debug("Alert {} acknowledged successfully", alertId);
         return updatedAlert;
     }
 
     @Override
     @Transactional
     public List<Alert> acknowledgeMultipleAlerts(List<Long> alertIds, String acknowledgedBy) {
-        log.info("Bulk acknowledging {} alerts by: {}", alertIds.size(), acknowledgedBy);
+        return acknowledgeAlerts(alertIds, acknowledgedBy).stream()
+                .filter(result -> result.getOutcome() == AcknowledgementResult.Outcome.ACKNOWLEDGED)
+                .map(AcknowledgementResult::getAlert)
+                .collect(Collectors.toList());
+    }
 
-        List<Alert> acknowledgedAlerts = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public List<AcknowledgementResult> acknowledgeAlerts(List<Long> alertIds, String acknowledgedBy) {
+        // A repeated id is acknowledged, reported and counted once
+        Set<Long> uniqueIds = new LinkedHashSet<>(alertIds);
+        log.debug("Bulk acknowledging {} alerts by: {}", uniqueIds.size(), acknowledgedBy);
+
+        List<Alert> acknowledgedAlerts = alertRepository.acknowledgeAlerts(uniqueIds, acknowledgedBy,
+                LocalDateTime.now());
+
+        Map<Long, Alert> acknowledgedById = new HashMap<>();
+        acknowledgedAlerts.forEach(alert -> acknowledgedById.put(alert.getId(), alert));
+
+        // Only the ids left over need telling apart: already acknowledged or unknown
+        Set<Long> existingIds = new HashSet<>();
+        if (acknowledgedById.size() < uniqueIds.size()) {
+            List<Long> remaining = uniqueIds.stream().filter(id -> !acknowledgedById.containsKey(id)).toList();
+            existingIds.addAll(alertRepository.findExistingIds(remaining));
+        }
 
-        for (Long alertId : alertIds) {
-            try {
-                Alert alert = alertRepository.findById(alertId).orElse(null);
-                if (alert != null && !alert.getAcknowledged()) {
-                    alert.setAcknowledged(true);
-                    alert.setAcknowledgedBy(acknowledgedBy);
-                    alert.setAcknowledgedAt(now);
-                    acknowledgedAlerts.add(alertRepository.save(alert));
-                    recordHistory(alertId, "ACKNOWLEDGED", acknowledgedBy, "Bulk acknowledgement");
-                }
-            } catch (Exception e) {
-                log.error("Failed to acknowledge alert {}: {}", alertId, e.getMessage());
+        if (!acknowledgedAlerts.isEmpty()) {
+            historyWriter.recordAll(acknowledgedAlerts.stream().map(Alert::getId).toList(),
+                    "ACKNOWLEDGED", acknowledgedBy, "Bulk acknowledgement");
+            outbox.appendAll(AlertEventType.ACKNOWLEDGED, acknowledgedAlerts);
+            activeAlerts.recordAll(acknowledgedAlerts);
+            afterCommit(() -> acknowledgedAlerts.forEach(alert ->
+                    metrics.recordAlertAcknowledged(alert.getAlertType(), alert.getSeverity())));
+        }
+
+        List<AcknowledgementResult> results = new ArrayList<>(uniqueIds.size());
+        for (Long alertId : uniqueIds) {
+            Alert alert = acknowledgedById.get(alertId);
+            if (alert != null) {
+                results.add(new AcknowledgementResult(alertId, AcknowledgementResult.Outcome.ACKNOWLEDGED, alert));
+            } else if (existingIds.contains(alertId)) {
+                results.add(new AcknowledgementResult(alertId,
+                        AcknowledgementResult.Outcome.ALREADY_ACKNOWLEDGED, null));
+            } else {
+                results.add(new AcknowledgementResult(alertId, AcknowledgementResult.Outcome.NOT_FOUND, null));
             }
         }
 
-        log.info("Successfully acknowledged {} out of {} alerts", acknowledgedAlerts.size(), alertIds.size());
-        return acknowledgedAlerts;
+        log.debug("Successfully acknowledged {} out of {} alerts", acknowledgedAlerts.size(), uniqueIds.size());
+        return results;
     }
 
     @Override
     public void dismissAlert(Long alertId, String dismissedBy) {
-        log.info("Dismissing alert: {} by: {}", alertId, dismissedBy);
+        log.debug("Dismissing alert: {} by: {}", alertId, dismissedBy);
 
-        Alert alert = getAlertById(alertId);
-        alert.setIsActive(false);
-        alertRepository.save(alert);
+        Alert dismissedAlert = alertRepository.dismissAlert(alertId)
+                .orElseThrow(() -> new AlertNotFoundException("Alert not found with ID: " + alertId));
+
+        deduplicator.release(List.of(alertId));
 
         // Record in history
         recordHistory(alertId, "DISMISSED", dismissedBy, "Alert dismissed");
+        outbox.append(AlertEventType.DISMISSED, dismissedAlert);
+        activeAlerts.record(dismissedAlert);
+        afterCommit(() -> metrics.recordAlertDismissed(dismissedAlert.getAlertType(), dismissedAlert.getSeverity()));
 
-        log.info("Alert {} dismissed successfully", alertId);
+        log.debug("Alert {} dismissed successfully", alertId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void expireOldAlerts() {
-        log.info("Expiring old alerts");
+        log.debug("Expiring old alerts");
 
-        List<Alert> expiredAlerts = alertRepository.findExpiredAlerts(LocalDateTime.now());
+        // One short transaction per chunk, so a backlog of expired alerts never holds row locks for long
+        LocalDateTime now = LocalDateTime.now();
+        int expiredCount = 0;
+        List<Alert> expiredChunk;
+        do {
+            expiredChunk = transactionTemplate.execute(status -> expireChunk(now));
+            expiredCount += expiredChunk.size();
+        } while (expiredChunk.size() == expiryChunkSize);
+
+        log.info("Expired {} alerts", expiredCount);
+    }
 
-        for (Alert alert : expiredAlerts) {
-            alert.setIsActive(false);
-            alertRepository.save(alert);
-            recordHistory(alert.getId(), "EXPIRED", "SYSTEM", "Alert expired automatically");
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireAlerts(Collection<Long> alertIds) {
+        List<Long> ids = List.copyOf(alertIds);
+        int expiredCount = 0;
+        for (int from = 0; from < ids.size(); from += expiryChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + expiryChunkSize, ids.size()));
+            expiredCount += transactionTemplate.execute(status ->
+                    recordExpired(alertRepository.expireAlerts(chunk))).size();
         }
+        log.info("Expired {} of {} due alerts", expiredCount, ids.size());
+    }
 
-        log.info("Expired {} alerts", expiredAlerts.size());
+    private List<Alert> expireChunk(LocalDateTime now) {
+        return recordExpired(alertRepository.expireAlertsBefore(now, expiryChunkSize));
+    }
+
+    private List<Alert> recordExpired(List<Alert> expiredAlerts) {
+        if (!expiredAlerts.isEmpty()) {
+            List<Long> expiredIds = expiredAlerts.stream().map(Alert::getId).toList();
+            deduplicator.release(expiredIds);
+            historyWriter.recordAll(expiredIds, "EXPIRED", "SYSTEM", "Alert expired automatically");
+            outbox.appendAll(AlertEventType.EXPIRED, expiredAlerts);
+            activeAlerts.recordAll(expiredAlerts);
+            afterCommit(() -> expiredAlerts.forEach(alert ->
+                    metrics.recordAlertExpired(alert.getAlertType(), alert.getSeverity())));
+        }
+        return expiredAlerts;
     }
 
     @Override
     public Long createSubscription(String userId, Long parcelId, List<String> alertTypes,
                                    String notificationMethod, String email, String phoneNumber) {
-        log.info("Creating subscription for user: {}, parcel: {}", userId, parcelId);
+        log.debug("Creating subscription for user: {}, parcel: {}", userId, parcelId);
 
         AlertSubscription subscription = new AlertSubscription();
         subscription.setUserId(userId);
@@ -266,15 +596,17 @@ public class AlertServiceImpl implements AlertService {
         subscription.setIsEnabled(true);
 
         AlertSubscription saved = subscriptionRepository.save(subscription);
+        subscriptionIndex.upsert(saved);
+        afterCommit(() -> metrics.recordSubscriptionCreated(saved.getNotificationMethod()));
 
-        log.info("Subscription created with ID: {}", saved.getId());
+        log.debug("Subscription created with ID: {}", saved.getId());
         return saved.getId();
     }
 
     @Override
     @Transactional(readOnly = true)
     public AlertSubscription getSubscription(String userId, Long parcelId) {
-        log.info("Getting subscription for user: {}, parcel: {}", userId, parcelId);
+        log.debug("Getting subscription for user: {}, parcel: {}", userId, parcelId);
 
         if (parcelId != null) {
             return subscriptionRepository.findByUserIdAndParcelId(userId, parcelId)
@@ -288,61 +620,68 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional(readOnly = true)
     public List<AlertSubscription> getSubscriptionsForParcel(Long parcelId) {
-        log.info("Getting subscriptions for parcel: {}", parcelId);
+        log.debug("Getting subscriptions for parcel: {}", parcelId);
         return subscriptionRepository.findByParcelIdAndIsEnabledTrue(parcelId);
     }
 
     @Override
     public void notifySubscribers(Alert alert) {
-        log.info("Notifying subscribers for alert: {}", alert.getId());
-
-        List<AlertSubscription> subscriptions;
-
-        if (alert.getParcelId() != null) {
-            subscriptions = subscriptionRepository.findEnabledSubscriptionsForParcel(alert.getParcelId());
-        } else {
-            subscriptions = subscriptionRepository.findByIsEnabledTrue();
-        }
+        log.debug("Notifying subscribers for alert: {}", alert.getId());
 
-        // Filter subscriptions by alert type
-        String alertTypeName = alert.getAlertType().name();
-        subscriptions = subscriptions.stream()
-                .filter(sub -> sub.getAlertTypes() == null ||
-                        sub.getAlertTypes().isEmpty() ||
-                        sub.getAlertTypes().contains(alertTypeName))
-                .collect(Collectors.toList());
+        List<AlertSubscription> subscriptions = subscriptionIndex.findSubscribers(alert);
 
-        // Send notifications asynchronously with retry
-        subscriptions.forEach(subscription ->
-                CompletableFuture.runAsync(() ->
-                        sendNotification(subscription, alert)
-                )
-        );
+        // Queued once committed; delivery and retries happen on the notification executor
+        notificationDispatcher.dispatch(subscriptions, alert);
 
-        log.info("Queued notifications for {} subscribers", subscriptions.size());
+        log.debug("Queued notifications for {} subscribers", subscriptions.size());
     }
     @Override
     @Transactional(readOnly = true)
     public long countUnacknowledgedAlerts() {
+        if (alertCounters.isLoaded()) {
+            return alertCounters.getUnacknowledged();
+        }
         return alertRepository.countByIsActiveTrueAndAcknowledgedFalse();
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countUnacknowledgedAlertsByParcel(Long parcelId) {
+        if (alertCounters.isLoaded()) {
+            return alertCounters.getUnacknowledged(parcelId);
+        }
         return alertRepository.countByParcelIdAndIsActiveTrueAndAcknowledgedFalse(parcelId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> getServiceHealth() {
         Map<String, Object> health = new HashMap<>();
 
+        // Counts are served from memory, so the database is checked separately
+        DatabaseHealthProbe.Result database = databaseProbe.check();
+        if (!database.up()) {
+            health.put("status", "DOWN");
+            health.put("database", "DOWN");
+            health.put("error", database.error());
+            health.put("timestamp", LocalDateTime.now());
+            return health;
+        }
+
         try {
-            long activeAlerts = alertRepository.countByIsActiveTrue();
-            long unacknowledged = alertRepository.countByIsActiveTrueAndAcknowledgedFalse();
-            long subscriptions = subscriptionRepository.countByIsEnabledTrue();
+            long activeAlerts;
+            long unacknowledged;
+            if (alertCounters.isLoaded()) {
+                activeAlerts = alertCounters.getActive();
+                unacknowledged = alertCounters.getUnacknowledged();
+            } else {
+                activeAlerts = alertRepository.countByIsActiveTrue();
+                unacknowledged = alertRepository.countByIsActiveTrueAndAcknowledgedFalse();
+            }
+            long subscriptions = subscriptionIndex.size();
 
             health.put("status", "UP");
+            health.put("database", "UP");
             health.put("activeAlerts", activeAlerts);
             health.put("unacknowledgedAlerts", unacknowledged);
             health.put("activeSubscriptions", subscriptions);
@@ -358,80 +697,152 @@ public class AlertServiceImpl implements AlertService {
     @Override
     @Transactional(readOnly = true)
     public Map<String, Object> getAlertTrends(Long parcelId, int days) {
-        log.info("Getting alert trends for parcel: {}, days: {}", parcelId, days);
-
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        List<Alert> alerts;
-
-        if (parcelId != null) {
-            alerts = alertRepository.findByParcelIdAndAlertTimeAfter(parcelId, startDate);
-        } else {
-            alerts = alertRepository.findByAlertTimeAfter(startDate);
+        log.debug("Getting alert trends for parcel: {}, days: {}", parcelId, days);
+
+        LocalDateTime startDate = LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.HOURS);
+        List<Object[]> rows = parcelId != null
+                ? rollupRepository.summarizeSince(parcelId, startDate)
+                : rollupRepository.summarizeSince(startDate);
+
+        Map<Alert.AlertType, Long> byType = new EnumMap<>(Alert.AlertType.class);
+        Map<Alert.AlertSeverity, Long> bySeverity = new EnumMap<>(Alert.AlertSeverity.class);
+        AlertTrendBucket totals = new AlertTrendBucket();
+        for (Object[] row : rows) {
+            long created = ((Number) row[2]).longValue();
+            totals.add(created, ((Number) row[3]).longValue(), ((Number) row[4]).longValue());
+            if (created > 0) {
+                byType.merge((Alert.AlertType) row[0], created, Long::sum);
+                bySeverity.merge((Alert.AlertSeverity) row[1], created, Long::sum);
+            }
         }
 
         Map<String, Object> trends = new HashMap<>();
-        trends.put("totalAlerts", alerts.size());
-        trends.put("byType", alerts.stream()
-                .collect(Collectors.groupingBy(Alert::getAlertType, Collectors.counting())));
-        trends.put("bySeverity", alerts.stream()
-                .collect(Collectors.groupingBy(Alert::getSeverity, Collectors.counting())));
-        trends.put("acknowledgedRate", calculateAcknowledgementRate(alerts));
-        trends.put("avgResponseTime", calculateAverageResponseTime(alerts));
+        trends.put("totalAlerts", totals.getCreated());
+        trends.put("byType", byType);
+        trends.put("bySeverity", bySeverity);
+        trends.put("acknowledgedRate", totals.getCreated() == 0 ? 0.0
+                : (double) totals.getAcknowledged() / totals.getCreated() * 100);
+        trends.put("avgResponseTime", totals.getAvgResponseMinutes());
+        List<AckLatencyStats> latencies = getAcknowledgementLatencies(parcelId, days);
+        trends.put("responseTimePercentiles", latencies.get(0));
+        trends.put("responseTimePercentilesByTypeAndSeverity", latencies.subList(1, latencies.size()));
 
         return trends;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<AlertTrendBucket> getAlertTrendSeries(Long parcelId, LocalDateTime from, LocalDateTime to,
+                                                      AlertTrendBucket.Granularity granularity) {
+        List<Object[]> rows = parcelId != null
+                ? rollupRepository.hourlySeries(parcelId, from.truncatedTo(ChronoUnit.HOURS), to)
+                : rollupRepository.hourlySeries(from.truncatedTo(ChronoUnit.HOURS), to);
+
+        ChronoUnit unit = granularity == AlertTrendBucket.Granularity.DAY ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+        List<AlertTrendBucket> series = new ArrayList<>();
+        for (Object[] row : rows) {
+            LocalDateTime bucketStart = ((LocalDateTime) row[0]).truncatedTo(unit);
+            AlertTrendBucket bucket = series.isEmpty() ? null : series.get(series.size() - 1);
+            if (bucket == null || !bucket.getBucketStart().equals(bucketStart)) {
+                bucket = new AlertTrendBucket(bucketStart, 0, 0, 0);
+                series.add(bucket);
+            }
+            bucket.add(((Number) row[1]).longValue(), ((Number) row[2]).longValue(), ((Number) row[3]).longValue());
+        }
+        return series;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AckLatencyStats> getAcknowledgementLatencies(Long parcelId, int days) {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.HOURS);
+        List<Object[]> rows = parcelId != null
+                ? rollupRepository.mergeLatencyBinsSince(parcelId, startDate)
+                : rollupRepository.mergeLatencyBinsSince(startDate);
+
+        LatencySketch overall = new LatencySketch();
+        Map<Alert.AlertType, Map<Alert.AlertSeverity, LatencySketch>> sketches = new EnumMap<>(Alert.AlertType.class);
+        for (Object[] row : rows) {
+            int bin = ((Number) row[2]).intValue();
+            long count = ((Number) row[3]).longValue();
+            overall.addToBin(bin, count);
+            sketches.computeIfAbsent(Alert.AlertType.valueOf((String) row[0]),
+                            type -> new EnumMap<>(Alert.AlertSeverity.class))
+                    .computeIfAbsent(Alert.AlertSeverity.valueOf((String) row[1]), severity -> new LatencySketch())
+                    .addToBin(bin, count);
+        }
+
+        List<AckLatencyStats> latencies = new ArrayList<>();
+        latencies.add(AckLatencyStats.of(null, null, overall));
+        sketches.forEach((type, bySeverity) -> bySeverity.forEach((severity, sketch) ->
+                latencies.add(AckLatencyStats.of(type, severity, sketch))));
+        return latencies;
+    }
+
     // Helper methods
 
-    private void recordHistory(Long alertId, String action, String performedBy, String notes) {
-        AlertHistory history = new AlertHistory();
-        history.setAlertId(alertId);
-        history.setAction(action);
-        history.setPerformedBy(performedBy);
-        history.setNotes(notes);
-        historyRepository.save(history);
-    }
-
-    private void sendNotification(AlertSubscription subscription, Alert alert) {
-        int attempts = 0;
-        Exception lastException = null;
-
-        while (attempts < MAX_RETRY_ATTEMPTS) {
-            try {
-                sendNotification(subscription, alert);
-                log.info("Notification sent successfully on attempt {}", attempts + 1);
-                return;
-            } catch (Exception e) {
-                lastException = e;
-                attempts++;
-                log.warn("Notification attempt {} failed: {}", attempts, e.getMessage());
-
-                if (attempts < MAX_RETRY_ATTEMPTS) {
-                    try {
-                        Thread.sleep(RETRY_DELAY_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
+    private Specification<Alert> toSpecification(AlertSearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.getParcelId() != null) {
+                predicates.add(cb.equal(root.get("parcelId"), criteria.getParcelId()));
             }
-        }
-        log.error("Failed to send notification after {} attempts", MAX_RETRY_ATTEMPTS, lastException);
+            if (criteria.getAlertType() != null) {
+                predicates.add(cb.equal(root.get("alertType"), criteria.getAlertType()));
+            }
+            if (criteria.getSeverity() != null) {
+                predicates.add(cb.equal(root.get("severity"), criteria.getSeverity()));
+            }
+            if (criteria.getIsActive() != null) {
+                predicates.add(cb.equal(root.get("isActive"), criteria.getIsActive()));
+            }
+            if (criteria.getAcknowledged() != null) {
+                predicates.add(cb.equal(root.get("acknowledged"), criteria.getAcknowledged()));
+            }
+            if (criteria.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("alertTime"), criteria.getStartDate()));
+            }
+            if (criteria.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("alertTime"), criteria.getEndDate()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Alerts strictly after the cursor position in (alert time, id) descending order. The redundant
+     * upper bound on alert time lets the planner range-scan the (alert_time, id) indexes, which it
+     * cannot do for the OR alone.
+     */
+    private Specification<Alert> after(Alert position) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("alertTime"), position.getAlertTime()),
+                cb.or(cb.lessThan(root.get("alertTime"), position.getAlertTime()),
+                        cb.and(cb.equal(root.get("alertTime"), position.getAlertTime()),
+                                cb.lessThan(root.get("id"), position.getId()))));
     }
 
-    private double calculateAcknowledgementRate(List<Alert> alerts) {
-        if (alerts.isEmpty()) return 0.0;
-        long acknowledged = alerts.stream().filter(Alert::getAcknowledged).count();
-        return (double) acknowledged / alerts.size() * 100;
+    private static String encodeCursor(Alert last) {
+        String position = last.getAlertTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
-    private long calculateAverageResponseTime(List<Alert> alerts) {
-        List<Long> responseTimes = alerts.stream()
-                .filter(a -> a.getAcknowledged() && a.getAcknowledgedAt() != null)
-                .map(a -> java.time.Duration.between(a.getAlertTime(), a.getAcknowledgedAt()).toMinutes())
-                .toList();
+    private static Alert decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            Alert alert = new Alert();
+            alert.setAlertTime(LocalDateTime.parse(position.substring(0, separator)));
+            alert.setId(Long.parseLong(position.substring(separator + 1)));
+            return alert;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+        }
+    }
 
-        if (responseTimes.isEmpty()) return 0;
-        return (long) responseTimes.stream().mapToLong(Long::longValue).average().orElse(0);
+    private void recordHistory(Long alertId, String action, String performedBy, String notes) {
+        historyWriter.record(alertId, action, performedBy, notes);
     }
 }
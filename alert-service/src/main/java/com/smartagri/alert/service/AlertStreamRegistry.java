@@ -0,0 +1,142 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.grpc.generated.StreamAlertsRequest;
+import com.smartagri.alert.metrics.AlertMetrics;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of open alert streams, owning their lifecycle.
+ * Streams are released exactly once, whether the client cancels, the transport fails,
+ * the stream is evicted or the service shuts down, and each release reports to {@link AlertMetrics}.
+ */
+@Component
+@Slf4j
+public class AlertStreamRegistry {
+
+    private final AlertStreamRouter streamRouter;
+    private final AlertMetrics metrics;
+    private final StreamOverflowPolicy overflowPolicy;
+    private final int outboundQueueCapacity;
+    private final long maxIdleMillis;
+    private final Map<String, StreamContext<?>> streams = new ConcurrentHashMap<>();
+
+    public AlertStreamRegistry(AlertStreamRouter streamRouter,
+                               AlertMetrics metrics,
+                               @Value("${alert.stream.overflow-policy:COALESCE}") StreamOverflowPolicy overflowPolicy,
+                               @Value("${alert.stream.outbound-queue-capacity:1000}") int outboundQueueCapacity,
+                               @Value("${alert.stream.max-idle-time:300000}") long maxIdleMillis) {
+        this.streamRouter = streamRouter;
+        this.metrics = metrics;
+        this.overflowPolicy = overflowPolicy;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Open a stream and start routing alert events to it; must be called from within the gRPC
+     * call so cancellation and readiness handlers can still be installed
+     *
+     * @throws IllegalArgumentException if the request filters name unknown alert types or severities
+     */
+    public <M> StreamContext<M> open(StreamObserver<M> observer,
+                                     StreamAlertsRequest request,
+                                     AlertStreamWriter<M> writer) {
+        StreamContext<M> context = new StreamContext<>(observer, request, writer, this::terminate, this::release,
+                metrics, overflowPolicy, outboundQueueCapacity, UUID.randomUUID().toString());
+
+        streams.put(context.getClientId(), context);
+        streamRouter.register(context);
+        metrics.streamStarted();
+
+        log.info("Stream opened for client: {}. Active streams: {}", context.getClientId(), streams.size());
+        return context;
+    }
+
+    /**
+     * Release a stream without signalling the client, e.g. because it cancelled
+     *
+     * @return false if the stream had already been released
+     */
+    public boolean release(StreamContext<?> context) {
+        if (!streams.remove(context.getClientId(), context)) {
+            return false;
+        }
+        streamRouter.unregister(context);
+        context.cancel();
+        metrics.streamEnded(Duration.between(context.getStartTime(), LocalDateTime.now()).getSeconds(),
+                context.getMessagesSent().get());
+
+        log.info("Stream released for client: {}. Active streams: {}", context.getClientId(), streams.size());
+        return true;
+    }
+
+    /**
+     * Release a stream and close it with the given error status
+     */
+    public void terminate(StreamContext<?> context, Status status) {
+        if (!release(context)) {
+            return;
+        }
+        metrics.streamError(status.getCode());
+        try {
+            context.getObserver().onError(status.asException());
+        } catch (RuntimeException e) {
+            log.debug("Stream for client {} already closed: {}", context.getClientId(), e.getMessage());
+        }
+    }
+
+    public int getActiveStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * Evict streams whose call is gone without us being told, and streams whose client has not
+     * accepted a single message for longer than the configured idle time while updates are waiting
+     */
+    @Scheduled(fixedDelayString = "${alert.stream.cleanup-interval:60000}")
+    public void evictStaleStreams() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+
+        for (StreamContext<?> context : streams.values()) {
+            if (!context.isActive() || context.isTransportCancelled()) {
+                evicted += release(context) ? 1 : 0;
+            } else if (context.isStalled(now, maxIdleMillis)) {
+                log.warn("Evicting stalled stream for client: {} ({} messages queued)",
+                        context.getClientId(), context.getQueueDepth());
+                terminate(context, Status.UNAVAILABLE.withDescription("Alert stream idle for too long"));
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            log.info("Evicted {} stale streams. Active streams: {}", evicted, streams.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Closing {} active alert streams", streams.size());
+        for (StreamContext<?> context : streams.values()) {
+            if (release(context)) {
+                try {
+                    context.getObserver().onCompleted();
+                } catch (RuntimeException e) {
+                    log.debug("Stream for client {} already closed: {}", context.getClientId(), e.getMessage());
+                }
+            }
+        }
+    }
+}
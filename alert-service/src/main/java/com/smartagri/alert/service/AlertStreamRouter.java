@@ -0,0 +1,83 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routing index for open alert streams.
+ * Streams are bucketed by parcel (plus a wildcard bucket for streams without a parcel filter),
+ * so dispatching an alert only visits the streams of its parcel and the wildcard streams;
+ * type and severity filters are then checked against the bitmasks compiled by each stream.
+ */
+@Component
+@Slf4j
+public class AlertStreamRouter implements AlertEventListener {
+
+    private final Map<Long, Set<StreamContext<?>>> streamsByParcel = new ConcurrentHashMap<>();
+    private final Set<StreamContext<?>> wildcardStreams = ConcurrentHashMap.newKeySet();
+
+    public AlertStreamRouter(AlertEventHub eventHub) {
+        eventHub.subscribe(this);
+    }
+
+    public void register(StreamContext<?> context) {
+        Long parcelId = context.getParcelId();
+        if (parcelId == null) {
+            wildcardStreams.add(context);
+        } else {
+            // Added inside the compute, so a concurrent unregister cannot drop the set in between
+            streamsByParcel.compute(parcelId, (id, streams) -> {
+                if (streams == null) {
+                    streams = ConcurrentHashMap.newKeySet();
+                }
+                streams.add(context);
+                return streams;
+            });
+        }
+    }
+
+    public void unregister(StreamContext<?> context) {
+        Long parcelId = context.getParcelId();
+        if (parcelId == null) {
+            wildcardStreams.remove(context);
+        } else {
+            streamsByParcel.computeIfPresent(parcelId, (id, streams) -> {
+                streams.remove(context);
+                return streams.isEmpty() ? null : streams;
+            });
+        }
+    }
+
+    public int getStreamCount() {
+        return wildcardStreams.size() + streamsByParcel.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @Override
+    public void onAlertEvent(AlertEvent event) {
+        Long parcelId = event.getAlert().getParcelId();
+        if (parcelId != null) {
+            Set<StreamContext<?>> parcelStreams = streamsByParcel.get(parcelId);
+            if (parcelStreams != null) {
+                route(event, parcelStreams);
+            }
+        }
+        route(event, wildcardStreams);
+    }
+
+    private void route(AlertEvent event, Set<StreamContext<?>> streams) {
+        for (StreamContext<?> context : streams) {
+            try {
+                context.onAlertEvent(event);
+            } catch (Exception e) {
+                log.error("Failed to route {} to client {}: {}", event, context.getClientId(), e.getMessage());
+            }
+        }
+    }
+}
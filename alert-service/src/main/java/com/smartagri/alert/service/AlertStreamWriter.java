@@ -0,0 +1,21 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.model.Alert;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Writes alerts to a stream in one wire format; lets {@link StreamContext} serve every API version
+ */
+public interface AlertStreamWriter<M> {
+
+    /**
+     * Write an alert of the initial snapshot, stamped with the sequence the snapshot is consistent with
+     */
+    void writeSnapshot(StreamObserver<M> observer, Alert alert, long sequence);
+
+    /**
+     * Write a live change; implementations should encode it once via {@link AlertEvent#encoded}
+     */
+    void writeEvent(StreamObserver<M> observer, AlertEvent event);
+}
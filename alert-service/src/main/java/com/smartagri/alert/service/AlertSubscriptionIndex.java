@@ -0,0 +1,192 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertSubscription;
+import com.smartagri.alert.repository.AlertSubscriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of enabled subscriptions, so resolving the subscribers of a new alert needs no query.
+ * Subscriptions are bucketed by parcel (plus a wildcard bucket for subscriptions without a parcel),
+ * and each carries its alert types as a bitmask over the {@link Alert.AlertType} ordinals.
+ * <p>
+ * The index is loaded before scheduled tasks start, so the outbox relay never resolves subscribers
+ * against an empty index, updated as subscriptions are saved, and periodically reloaded to pick up
+ * changes made outside this service. Lookups read an immutable snapshot without locking.
+ */
+@Component
+@Slf4j
+public class AlertSubscriptionIndex implements SmartInitializingSingleton {
+
+    private static final int ALL_TYPES = -1;
+
+    private final AlertSubscriptionRepository subscriptionRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+
+    public AlertSubscriptionIndex(AlertSubscriptionRepository subscriptionRepository) {
+        this.subscriptionRepository = subscriptionRepository;
+    }
+
+    /**
+     * Enabled subscriptions that should be notified of the given alert: those of its parcel and those
+     * without a parcel, or every subscription when the alert has no parcel
+     */
+    public List<AlertSubscription> findSubscribers(Alert alert) {
+        Snapshot current = snapshot;
+        int typeBit = 1 << alert.getAlertType().ordinal();
+        List<AlertSubscription> subscribers = new ArrayList<>();
+
+        if (alert.getParcelId() == null) {
+            collect(current.byId.values(), typeBit, subscribers);
+        } else {
+            collect(current.byParcel.getOrDefault(alert.getParcelId(), List.of()), typeBit, subscribers);
+            collect(current.wildcard, typeBit, subscribers);
+        }
+        return subscribers;
+    }
+
+    public int size() {
+        return snapshot.byId.size();
+    }
+
+    /**
+     * Whether the index was loaded from the database at least once
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Add, replace or (when disabled) remove a subscription; deferred until commit inside a transaction
+     */
+    public void upsert(AlertSubscription subscription) {
+        Entry entry = new Entry(copyOf(subscription), compileTypeMask(subscription.getAlertTypes()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(entry);
+                }
+            });
+        } else {
+            apply(entry);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${alert.subscription.index-refresh-interval:300000}",
+            initialDelayString = "${alert.subscription.index-refresh-interval:300000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Reload the index from the database. Held under the same lock as updates, so an update committed
+     * while the query runs is applied on top of the reloaded index rather than lost.
+     */
+    public synchronized void rebuild() {
+        try {
+            Map<Long, Entry> byId = new LinkedHashMap<>();
+            for (AlertSubscription subscription : subscriptionRepository.findByIsEnabledTrue()) {
+                byId.put(subscription.getId(),
+                        new Entry(copyOf(subscription), compileTypeMask(subscription.getAlertTypes())));
+            }
+            snapshot = Snapshot.of(byId);
+            loaded = true;
+            log.info("Subscription index loaded with {} enabled subscriptions", byId.size());
+        } catch (Exception e) {
+            log.error("Error loading subscription index: {}", e.getMessage(), e);
+        }
+    }
+
+    private synchronized void apply(Entry entry) {
+        Map<Long, Entry> byId = new LinkedHashMap<>(snapshot.byId);
+        if (Boolean.FALSE.equals(entry.subscription.getIsEnabled())) {
+            byId.remove(entry.subscription.getId());
+        } else {
+            byId.put(entry.subscription.getId(), entry);
+        }
+        snapshot = Snapshot.of(byId);
+    }
+
+    private static void collect(Collection<Entry> entries, int typeBit, List<AlertSubscription> into) {
+        for (Entry entry : entries) {
+            if ((entry.alertTypeMask & typeBit) != 0) {
+                into.add(entry.subscription);
+            }
+        }
+    }
+
+    /**
+     * Parse the comma-separated alert types of a subscription; empty means all types.
+     * Unknown names are ignored rather than matched as substrings.
+     */
+    static int compileTypeMask(String alertTypes) {
+        if (alertTypes == null || alertTypes.isBlank()) {
+            return ALL_TYPES;
+        }
+        int mask = 0;
+        for (String name : alertTypes.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                mask |= 1 << Alert.AlertType.valueOf(trimmed.toUpperCase()).ordinal();
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unknown alert type in subscription: {}", trimmed);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Detached copy, so later changes to a managed entity don't leak into the index
+     */
+    private static AlertSubscription copyOf(AlertSubscription subscription) {
+        return new AlertSubscription(subscription.getId(), subscription.getUserId(), subscription.getParcelId(),
+                subscription.getAlertTypes(), subscription.getNotificationMethod(), subscription.getEmail(),
+                subscription.getPhoneNumber(), subscription.getIsEnabled(), subscription.getCreatedAt());
+    }
+
+    private record Entry(AlertSubscription subscription, int alertTypeMask) {
+    }
+
+    private record Snapshot(Map<Long, Entry> byId, Map<Long, List<Entry>> byParcel, List<Entry> wildcard) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), List.of());
+
+        static Snapshot of(Map<Long, Entry> byId) {
+            Map<Long, List<Entry>> byParcel = new HashMap<>();
+            List<Entry> wildcard = new ArrayList<>();
+            for (Entry entry : byId.values()) {
+                Long parcelId = entry.subscription.getParcelId();
+                if (parcelId == null) {
+                    wildcard.add(entry);
+                } else {
+                    byParcel.computeIfAbsent(parcelId, id -> new ArrayList<>()).add(entry);
+                }
+            }
+            return new Snapshot(byId, byParcel, wildcard);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.smartagri.alert.service;
+
+import com.google.protobuf.FieldMask;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.FieldMaskUtil;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.grpc.generated.AlertEventTypeV2;
+import com.smartagri.alert.grpc.generated.AlertSeverityV2;
+import com.smartagri.alert.grpc.generated.AlertTypeV2;
+import com.smartagri.alert.grpc.generated.AlertV2;
+import com.smartagri.alert.grpc.generated.StreamAlertsV2Request;
+import com.smartagri.alert.grpc.generated.StreamAlertsRequest;
+import com.smartagri.alert.model.Alert;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Conversions between the alert model and the v2 wire format.
+ * Enum mappings are resolved once into lookup tables; a proto enum missing a model constant fails at startup.
+ */
+public final class AlertV2Mapper {
+
+    private static final AlertTypeV2[] TYPES = new AlertTypeV2[Alert.AlertType.values().length];
+    private static final AlertSeverityV2[] SEVERITIES = new AlertSeverityV2[Alert.AlertSeverity.values().length];
+    private static final AlertEventTypeV2[] EVENT_TYPES = new AlertEventTypeV2[AlertEventType.values().length];
+    private static final Map<AlertTypeV2, Alert.AlertType> MODEL_TYPES = new EnumMap<>(AlertTypeV2.class);
+    private static final Map<AlertSeverityV2, Alert.AlertSeverity> MODEL_SEVERITIES =
+            new EnumMap<>(AlertSeverityV2.class);
+
+    static {
+        for (Alert.AlertType type : Alert.AlertType.values()) {
+            TYPES[type.ordinal()] = AlertTypeV2.valueOf("ALERT_TYPE_" + type.name());
+            MODEL_TYPES.put(TYPES[type.ordinal()], type);
+        }
+        for (Alert.AlertSeverity severity : Alert.AlertSeverity.values()) {
+            SEVERITIES[severity.ordinal()] = AlertSeverityV2.valueOf("ALERT_SEVERITY_" + severity.name());
+            MODEL_SEVERITIES.put(SEVERITIES[severity.ordinal()], severity);
+        }
+        for (AlertEventType type : AlertEventType.values()) {
+            EVENT_TYPES[type.ordinal()] = AlertEventTypeV2.valueOf("ALERT_EVENT_TYPE_" + type.name());
+        }
+    }
+
+    private AlertV2Mapper() {
+    }
+
+    public static AlertV2.Builder toProto(Alert alert) {
+        AlertV2.Builder builder = AlertV2.newBuilder()
+                .setId(alert.getId())
+                .setAlertType(TYPES[alert.getAlertType().ordinal()])
+                .setSeverity(SEVERITIES[alert.getSeverity().ordinal()])
+                .setTitle(alert.getTitle())
+                .setMessage(alert.getMessage())
+                .setAlertTime(toTimestamp(alert.getAlertTime()))
+                .setIsActive(Boolean.TRUE.equals(alert.getIsActive()))
+                .setAcknowledged(Boolean.TRUE.equals(alert.getAcknowledged()));
+
+        if (alert.getParcelId() != null) {
+            builder.setParcelId(alert.getParcelId());
+        }
+        if (alert.getLocation() != null) {
+            builder.setLocation(alert.getLocation());
+        }
+        if (alert.getExpiryTime() != null) {
+            builder.setExpiryTime(toTimestamp(alert.getExpiryTime()));
+        }
+        if (alert.getAcknowledgedAt() != null) {
+            builder.setAcknowledgedAt(toTimestamp(alert.getAcknowledgedAt()));
+        }
+        if (alert.getAcknowledgedBy() != null) {
+            builder.setAcknowledgedBy(alert.getAcknowledgedBy());
+        }
+        if (alert.getMetadata() != null) {
+            builder.setMetadata(alert.getMetadata());
+        }
+        if (alert.getOccurrenceCount() != null) {
+            builder.setOccurrenceCount(alert.getOccurrenceCount());
+        }
+        if (alert.getLastSeenAt() != null) {
+            builder.setLastSeenAt(toTimestamp(alert.getLastSeenAt()));
+        }
+        return builder;
+    }
+
+    public static AlertEventTypeV2 toProto(AlertEventType type) {
+        return EVENT_TYPES[type.ordinal()];
+    }
+
+    /**
+     * @throws IllegalArgumentException for UNSPECIFIED or values unknown to this server
+     */
+    public static Alert.AlertType toModel(AlertTypeV2 type) {
+        Alert.AlertType modelType = MODEL_TYPES.get(type);
+        if (modelType == null) {
+            throw new IllegalArgumentException("Unsupported alert type: " + type);
+        }
+        return modelType;
+    }
+
+    /**
+     * @throws IllegalArgumentException for UNSPECIFIED or values unknown to this server
+     */
+    public static Alert.AlertSeverity toModel(AlertSeverityV2 severity) {
+        Alert.AlertSeverity modelSeverity = MODEL_SEVERITIES.get(severity);
+        if (modelSeverity == null) {
+            throw new IllegalArgumentException("Unsupported severity: " + severity);
+        }
+        return modelSeverity;
+    }
+
+    /**
+     * The v1 stream request with the same filters and cursors, which stream routing works on
+     */
+    public static StreamAlertsRequest toStreamFilter(StreamAlertsV2Request request) {
+        StreamAlertsRequest.Builder filter = StreamAlertsRequest.newBuilder();
+        if (request.hasParcelId()) {
+            filter.setParcelId(request.getParcelId());
+        }
+        for (AlertTypeV2 type : request.getAlertTypesList()) {
+            filter.addAlertTypes(toModel(type).name());
+        }
+        for (AlertSeverityV2 severity : request.getSeveritiesList()) {
+            filter.addSeverities(toModel(severity).name());
+        }
+        if (request.hasResumeAfterSequence()) {
+            filter.setResumeAfterSequence(request.getResumeAfterSequence());
+        }
+        if (request.hasLastAlertId()) {
+            filter.setLastAlertId(request.getLastAlertId());
+        }
+        return filter.build();
+    }
+
+    /**
+     * Normalized form of a requested field mask
+     *
+     * @throws IllegalArgumentException if the mask names fields AlertV2 does not have
+     */
+    public static FieldMask validateMask(FieldMask mask) {
+        if (!FieldMaskUtil.isValid(AlertV2.class, mask)) {
+            throw new IllegalArgumentException("Invalid field mask: " + FieldMaskUtil.toString(mask));
+        }
+        return FieldMaskUtil.normalize(mask);
+    }
+
+    /**
+     * Copy of the alert with only the masked fields, plus the identifying and event fields; an empty mask keeps all
+     */
+    public static AlertV2 applyMask(AlertV2 alert, FieldMask mask) {
+        if (mask.getPathsCount() == 0) {
+            return alert;
+        }
+        AlertV2.Builder masked = AlertV2.newBuilder()
+                .setId(alert.getId())
+                .setEventType(alert.getEventType());
+        if (alert.hasEventSequence()) {
+            masked.setEventSequence(alert.getEventSequence());
+        }
+        FieldMaskUtil.merge(mask, alert, masked);
+        return masked.build();
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+}
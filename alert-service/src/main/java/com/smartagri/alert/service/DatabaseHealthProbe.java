@@ -0,0 +1,64 @@
+package com.smartagri.alert.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cheap database liveness check for health reports, which otherwise serve counts from memory.
+ * Runs {@code SELECT 1} with a short timeout at most once per cache period; callers arriving while
+ * a check is running get the previous result instead of queueing behind it.
+ */
+@Component
+@Slf4j
+public class DatabaseHealthProbe {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long cacheNanos;
+    private final AtomicBoolean probing = new AtomicBoolean(false);
+    private volatile Result last;
+
+    public DatabaseHealthProbe(DataSource dataSource,
+                               @Value("${alert.health.probe-timeout:1}") int timeoutSeconds,
+                               @Value("${alert.health.probe-cache:5000}") long cacheMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout(timeoutSeconds);
+        this.cacheNanos = cacheMillis * 1_000_000L;
+    }
+
+    /**
+     * Result of the last check, running a new one first if it is older than the cache period
+     */
+    public Result check() {
+        Result current = last;
+        if (current == null) {
+            current = probe();
+            last = current;
+        } else if (System.nanoTime() - current.checkedAt() > cacheNanos && probing.compareAndSet(false, true)) {
+            try {
+                current = probe();
+                last = current;
+            } finally {
+                probing.set(false);
+            }
+        }
+        return current;
+    }
+
+    private Result probe() {
+        try {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return new Result(true, null, System.nanoTime());
+        } catch (Exception e) {
+            log.warn("Database health check failed: {}", e.getMessage());
+            return new Result(false, e.getMessage(), System.nanoTime());
+        }
+    }
+
+    public record Result(boolean up, String error, long checkedAt) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.grpc.generated.AlertResponse;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An {@link AlertResponse} serialized once, so the same alert change can be written to every
+ * matching stream without converting or encoding it again. Written through {@link #marshaller()},
+ * the shared bytes are copied straight into each call's outbound frame.
+ */
+@Getter
+public final class EncodedAlertResponse {
+
+    private static final MethodDescriptor.Marshaller<AlertResponse> PROTO_MARSHALLER =
+            ProtoUtils.marshaller(AlertResponse.getDefaultInstance());
+
+    private final AlertResponse message;
+    private final byte[] bytes;
+
+    private EncodedAlertResponse(AlertResponse message) {
+        this.message = message;
+        this.bytes = message.toByteArray();
+    }
+
+    public static EncodedAlertResponse of(AlertResponse message) {
+        return new EncodedAlertResponse(message);
+    }
+
+    /**
+     * Response marshaller accepting both regular {@link AlertResponse}s and pre-encoded ones
+     */
+    public static MethodDescriptor.Marshaller<Object> marshaller() {
+        return EncodedMarshaller.INSTANCE;
+    }
+
+    private enum EncodedMarshaller implements MethodDescriptor.Marshaller<Object> {
+        INSTANCE;
+
+        @Override
+        public InputStream stream(Object value) {
+            if (value instanceof EncodedAlertResponse encoded) {
+                return new EncodedStream(encoded.bytes);
+            }
+            return PROTO_MARSHALLER.stream((AlertResponse) value);
+        }
+
+        @Override
+        public Object parse(InputStream stream) {
+            return PROTO_MARSHALLER.parse(stream);
+        }
+    }
+
+    /**
+     * Reads the shared bytes without copying them; gRPC drains it directly into the frame
+     */
+    private static final class EncodedStream extends ByteArrayInputStream implements KnownLength, Drainable {
+
+        private EncodedStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int drainTo(OutputStream target) throws IOException {
+            int length = count - pos;
+            target.write(buf, pos, length);
+            pos = count;
+            return length;
+        }
+    }
+}
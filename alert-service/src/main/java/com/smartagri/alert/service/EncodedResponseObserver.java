@@ -0,0 +1,86 @@
+package com.smartagri.alert.service;
+
+import com.smartagri.alert.grpc.generated.AlertResponse;
+import io.grpc.stub.ServerCallStreamObserver;
+
+/**
+ * StreamAlerts response observer of a call bound with {@link EncodedAlertResponse#marshaller()},
+ * which can also take pre-encoded responses; everything else is forwarded to the gRPC observer
+ */
+public class EncodedResponseObserver extends ServerCallStreamObserver<AlertResponse> {
+
+    private final ServerCallStreamObserver<Object> delegate;
+
+    public EncodedResponseObserver(ServerCallStreamObserver<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void onNextEncoded(EncodedAlertResponse response) {
+        delegate.onNext(response);
+    }
+
+    @Override
+    public void onNext(AlertResponse value) {
+        delegate.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        delegate.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        delegate.onCompleted();
+    }
+
+    @Override
+    public boolean isReady() {
+        return delegate.isReady();
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+        delegate.setOnReadyHandler(onReadyHandler);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return delegate.isCancelled();
+    }
+
+    @Override
+    public void setOnCancelHandler(Runnable onCancelHandler) {
+        delegate.setOnCancelHandler(onCancelHandler);
+    }
+
+    @Override
+    public void setOnCloseHandler(Runnable onCloseHandler) {
+        delegate.setOnCloseHandler(onCloseHandler);
+    }
+
+    @Override
+    public void setCompression(String compression) {
+        delegate.setCompression(compression);
+    }
+
+    @Override
+    public void setMessageCompression(boolean enable) {
+        delegate.setMessageCompression(enable);
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {
+        delegate.disableAutoInboundFlowControl();
+    }
+
+    @Override
+    public void disableAutoRequest() {
+        delegate.disableAutoRequest();
+    }
+
+    @Override
+    public void request(int count) {
+        delegate.request(count);
+    }
+}
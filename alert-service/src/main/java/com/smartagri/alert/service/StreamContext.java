@@ -1,43 +1,189 @@
 package com.smartagri.alert.service;
 
-import com.smartagri.alert.grpc.generated.AlertResponse;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventListener;
 import com.smartagri.alert.grpc.generated.StreamAlertsRequest;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
-import java.util.concurrent.ScheduledFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Context holder for active alert streams
  * Manages lifecycle and state of streaming connections
+ * <p>
+ * Messages go through a bounded outbound queue that is drained only while the transport reports
+ * it is ready, so a slow client never makes gRPC buffer an unbounded backlog in the heap.
+ * The initial snapshot is always queued in full; the capacity applies to live updates.
  */
 @Slf4j
 @Getter
-public class StreamContext {
+public class StreamContext<M> implements AlertEventListener {
 
-    private final StreamObserver<AlertResponse> observer;
+    private final StreamObserver<M> observer;
     private final StreamAlertsRequest request;
-    private final ScheduledFuture<?> future;
     private final LocalDateTime startTime;
     private final AtomicLong messagesSent;
     private final AtomicBoolean isCancelled;
     private final String clientId;
+    private final StreamOverflowPolicy overflowPolicy;
+    private final int queueCapacity;
 
-    public StreamContext(StreamObserver<AlertResponse> observer,
+    /**
+     * Requested alert types and severities as bitmasks over the enum ordinals; all bits set when unfiltered
+     */
+    private final int alertTypeMask;
+    private final int severityMask;
+
+    @Getter(AccessLevel.NONE)
+    private final AlertStreamWriter<M> writer;
+
+    @Getter(AccessLevel.NONE)
+    private final BiConsumer<StreamContext<?>, Status> terminationHandler;
+
+    @Getter(AccessLevel.NONE)
+    private final Consumer<StreamContext<?>> cancellationHandler;
+
+    @Getter(AccessLevel.NONE)
+    private final AlertMetrics metrics;
+
+    /**
+     * Flow-control view of the observer; null when the transport does not expose readiness
+     */
+    @Getter(AccessLevel.NONE)
+    private final ServerCallStreamObserver<M> flowControl;
+
+    @Getter(AccessLevel.NONE)
+    private final Deque<Outbound> outbound = new ArrayDeque<>();
+
+    /**
+     * Queued message per alert, only maintained under {@link StreamOverflowPolicy#COALESCE}
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, Outbound> queuedByAlert = new HashMap<>();
+
+    /**
+     * Number of queued live updates, as opposed to initial snapshot entries
+     */
+    @Getter(AccessLevel.NONE)
+    private int liveBacklog;
+
+    /**
+     * Events received before the initial snapshot went out; null once the stream is live
+     */
+    @Getter(AccessLevel.NONE)
+    private List<AlertEvent> pendingEvents = new ArrayList<>();
+
+    /**
+     * Sequence of the last event reflected in what the client has been sent or has queued
+     */
+    private volatile long lastSequence;
+
+    /**
+     * Wall-clock millis of the last time the client made progress: stream opened, message written or transport ready
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile long lastProgressMillis;
+
+    public StreamContext(StreamObserver<M> observer,
                          StreamAlertsRequest request,
-                         ScheduledFuture<?> future,
+                         AlertStreamWriter<M> writer,
+                         BiConsumer<StreamContext<?>, Status> terminationHandler,
+                         Consumer<StreamContext<?>> cancellationHandler,
+                         AlertMetrics metrics,
+                         StreamOverflowPolicy overflowPolicy,
+                         int queueCapacity,
                          String clientId) {
         this.observer = observer;
         this.request = request;
-        this.future = future;
+        this.writer = writer;
+        this.terminationHandler = terminationHandler;
+        this.cancellationHandler = cancellationHandler;
+        this.metrics = metrics;
+        this.overflowPolicy = overflowPolicy;
+        this.queueCapacity = queueCapacity;
         this.clientId = clientId;
+        this.alertTypeMask = compileMask(Alert.AlertType.class, request.getAlertTypesList());
+        this.severityMask = compileMask(Alert.AlertSeverity.class, request.getSeveritiesList());
         this.startTime = LocalDateTime.now();
         this.messagesSent = new AtomicLong(0);
         this.isCancelled = new AtomicBoolean(false);
+        this.lastProgressMillis = System.currentTimeMillis();
+
+        if (observer instanceof ServerCallStreamObserver<M> serverObserver) {
+            this.flowControl = serverObserver;
+            serverObserver.setOnReadyHandler(this::drain);
+            serverObserver.setOnCancelHandler(() -> cancellationHandler.accept(this));
+        } else {
+            this.flowControl = null;
+        }
+    }
+
+    @Override
+    public void onAlertEvent(AlertEvent event) {
+        if (!matches(event.getAlert())) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+            enqueueEvent(event);
+            drain();
+        }
+    }
+
+    /**
+     * Queue the initial state, then the events buffered meanwhile, and switch to live delivery.
+     * Events at or below an already queued sequence are skipped, so the replayed events and
+     * the buffered ones may overlap freely.
+     *
+     * @param snapshot  alerts sent as-is, stamped with the watermark sequence
+     * @param watermark sequence the snapshot is consistent with
+     * @param replay    buffered events to send after the snapshot
+     */
+    public synchronized void goLive(List<Alert> snapshot, long watermark, List<AlertEvent> replay) {
+        for (Alert alert : snapshot) {
+            offer(new Outbound(alert, watermark, null, true));
+        }
+        lastSequence = watermark;
+        for (AlertEvent event : replay) {
+            if (matches(event.getAlert())) {
+                enqueueEvent(event);
+            }
+        }
+        for (AlertEvent event : pendingEvents) {
+            enqueueEvent(event);
+        }
+        pendingEvents = null;
+        drain();
+    }
+
+    public boolean matches(Alert alert) {
+        return (alertTypeMask & (1 << alert.getAlertType().ordinal())) != 0
+                && (severityMask & (1 << alert.getSeverity().ordinal())) != 0
+                && (!request.hasParcelId() || Long.valueOf(request.getParcelId()).equals(alert.getParcelId()));
+    }
+
+    public synchronized int getQueueDepth() {
+        return outbound.size();
     }
 
     public void incrementMessageCount() {
@@ -46,20 +192,208 @@ public class StreamContext {
 
     public boolean cancel() {
         if (isCancelled.compareAndSet(false, true)) {
-            boolean cancelled = future.cancel(true);
+            synchronized (this) {
+                metrics.streamMessagesDequeued(outbound.size());
+                outbound.clear();
+                queuedByAlert.clear();
+                liveBacklog = 0;
+            }
             log.info("Stream cancelled for client: {} - Messages sent: {}, Duration: {} seconds",
                     clientId, messagesSent.get(),
                     java.time.Duration.between(startTime, LocalDateTime.now()).getSeconds());
-            return cancelled;
+            return true;
         }
         return false;
     }
 
     public boolean isActive() {
-        return !isCancelled.get() && !future.isCancelled() && !future.isDone();
+        return !isCancelled.get();
     }
 
     public Long getParcelId() {
         return request.hasParcelId() ? request.getParcelId() : null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether gRPC considers the call cancelled, e.g. the client went away
+     */
+    public boolean isTransportCancelled() {
+        return flowControl != null && flowControl.isCancelled();
+    }
+
+    /**
+     * Whether updates have been waiting for longer than the given time without the client accepting any
+     */
+    public synchronized boolean isStalled(long nowMillis, long maxIdleMillis) {
+        return !outbound.isEmpty() && nowMillis - lastProgressMillis > maxIdleMillis;
+    }
+
+    /**
+     * Write queued messages for as long as the transport accepts them; invoked again by gRPC
+     * through the on-ready handler once the client has caught up
+     */
+    private synchronized void drain() {
+        if (flowControl != null && flowControl.isReady()) {
+            lastProgressMillis = System.currentTimeMillis();
+        }
+        while (!isCancelled.get() && !outbound.isEmpty() && (flowControl == null || flowControl.isReady())) {
+            Outbound next = outbound.pollFirst();
+            forget(next);
+            send(next);
+        }
+    }
+
+    private void enqueueEvent(AlertEvent event) {
+        if (event.getSequence() <= lastSequence) {
+            return;
+        }
+        lastSequence = event.getSequence();
+        offer(new Outbound(event.getAlert(), event.getSequence(), event, false));
+    }
+
+    private void offer(Outbound message) {
+        if (isCancelled.get()) {
+            return;
+        }
+        if (overflowPolicy == StreamOverflowPolicy.COALESCE) {
+            Outbound queued = queuedByAlert.get(message.alert.getId());
+            if (queued != null) {
+                queued.alert = message.alert;
+                queued.sequence = message.sequence;
+                queued.event = message.event;
+                metrics.streamMessageCoalesced();
+                return;
+            }
+        }
+        if (!message.initial && liveBacklog >= queueCapacity && !makeRoomFor(message)) {
+            return;
+        }
+        outbound.addLast(message);
+        if (overflowPolicy == StreamOverflowPolicy.COALESCE) {
+            queuedByAlert.put(message.alert.getId(), message);
+        }
+        if (!message.initial) {
+            liveBacklog++;
+        }
+        metrics.streamMessagesQueued(1);
+    }
+
+    /**
+     * Apply the overflow policy to a full queue
+     *
+     * @return whether the incoming message should still be queued
+     */
+    private boolean makeRoomFor(Outbound message) {
+        switch (overflowPolicy) {
+            case COALESCE -> {
+                discard(findLive(false));
+                return true;
+            }
+            case DROP_LOW_SEVERITY -> {
+                Outbound lowest = findLive(true);
+                if (lowest != null && lowest.alert.getSeverity().compareTo(message.alert.getSeverity()) <= 0) {
+                    discard(lowest);
+                    return true;
+                }
+                metrics.streamMessageDropped(overflowPolicy, message.alert.getSeverity());
+                return false;
+            }
+            default -> {
+                log.warn("Outbound queue of client {} is full ({} messages), disconnecting", clientId, outbound.size());
+                metrics.streamMessageDropped(overflowPolicy, message.alert.getSeverity());
+                terminationHandler.accept(this, Status.RESOURCE_EXHAUSTED
+                        .withDescription("Client is not keeping up with the alert stream; resume from the last sequence"));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Oldest queued live update, or the oldest one among those with the lowest severity
+     */
+    private Outbound findLive(boolean lowestSeverity) {
+        Outbound found = null;
+        for (Outbound candidate : outbound) {
+            if (candidate.initial) {
+                continue;
+            }
+            if (!lowestSeverity) {
+                return candidate;
+            }
+            if (found == null || candidate.alert.getSeverity().compareTo(found.alert.getSeverity()) < 0) {
+                found = candidate;
+            }
+        }
+        return found;
+    }
+
+    private void discard(Outbound message) {
+        if (message == null) {
+            return;
+        }
+        outbound.remove(message);
+        forget(message);
+        metrics.streamMessageDropped(overflowPolicy, message.alert.getSeverity());
+    }
+
+    private void forget(Outbound message) {
+        if (overflowPolicy == StreamOverflowPolicy.COALESCE) {
+            queuedByAlert.remove(message.alert.getId());
+        }
+        if (!message.initial) {
+            liveBacklog--;
+        }
+        metrics.streamMessagesDequeued(1);
+    }
+
+    /**
+     * Compile enum names into a bitmask over their ordinals; an empty list matches everything
+     *
+     * @throws IllegalArgumentException if a name is not a constant of the enum
+     */
+    private static <E extends Enum<E>> int compileMask(Class<E> enumType, List<String> names) {
+        if (names.isEmpty()) {
+            return -1;
+        }
+        int mask = 0;
+        for (String name : names) {
+            mask |= 1 << Enum.valueOf(enumType, name.trim().toUpperCase()).ordinal();
+        }
+        return mask;
+    }
+
+    private void send(Outbound message) {
+        try {
+            if (message.event == null) {
+                writer.writeSnapshot(observer, message.alert, message.sequence);
+            } else {
+                writer.writeEvent(observer, message.event);
+            }
+            incrementMessageCount();
+            lastProgressMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            log.warn("Failed to push alert {} to client {}: {}", message.alert.getId(), clientId, e.getMessage());
+            terminationHandler.accept(this, Status.UNAVAILABLE.withDescription("Alert stream terminated"));
+        }
+    }
+
+    /**
+     * Queued message; mutable so coalescing can replace the state in place, keeping its position
+     */
+    private static final class Outbound {
+        private Alert alert;
+        private long sequence;
+        /**
+         * Event the message reflects; null for initial snapshot entries
+         */
+        private AlertEvent event;
+        private final boolean initial;
+
+        private Outbound(Alert alert, long sequence, AlertEvent event, boolean initial) {
+            this.alert = alert;
+            this.sequence = sequence;
+            this.event = event;
+            this.initial = initial;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.smartagri.alert.service;
+
+/**
+ * What an alert stream does when its outbound queue is full because the client reads too slowly
+ */
+public enum StreamOverflowPolicy {
+
+    /**
+     * Queued updates of the same alert are merged into its latest state; when the queue is still full,
+     * the oldest queued update is dropped
+     */
+    COALESCE,
+
+    /**
+     * The lowest-severity queued update (LOW first) is dropped to make room, unless the incoming one is lower
+     */
+    DROP_LOW_SEVERITY,
+
+    /**
+     * The stream is closed with RESOURCE_EXHAUSTED; the client can reconnect with its resume cursor
+     */
+    DISCONNECT
+}
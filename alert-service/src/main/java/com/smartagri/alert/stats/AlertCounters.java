@@ -0,0 +1,237 @@
+package com.smartagri.alert.stats;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventListener;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertOutboxRepository;
+import com.smartagri.alert.repository.AlertRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live alert counts (total, active, unacknowledged), globally and per parcel, so statistics and
+ * health checks need no COUNT queries. Counters are loaded from the database at startup, follow
+ * the alert events of all instances, and are periodically reconciled against the database, which
+ * also corrects any drift from events delivered more than once. Events and reconciliation update the
+ * counters under the same lock; the reconciling query itself runs outside it.
+ * <p>
+ * The counts are read in one snapshot together with the last relayed sequence and the events not
+ * relayed yet. Those events are already included in the counts, so they are skipped when the hub
+ * publishes them after the reload instead of being counted twice.
+ */
+@Component
+@Slf4j
+public class AlertCounters implements AlertEventListener {
+
+    private static final Long NO_PARCEL = Long.MIN_VALUE;
+
+    private final AlertRepository alertRepository;
+    private final AlertOutboxRepository outboxRepository;
+    private final AlertMetrics metrics;
+    private final TransactionTemplate snapshotTransaction;
+    private final Counts global = new Counts();
+    private final Map<Long, Counts> byParcel = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Last relayed sequence and events not relayed yet as of the loaded counts; guarded by this
+     */
+    private long loadedSequence;
+    private Set<PendingEvent> loadedPending = new HashSet<>();
+
+    public AlertCounters(AlertRepository alertRepository,
+                         AlertOutboxRepository outboxRepository,
+                         AlertMetrics metrics,
+                         AlertEventHub eventHub,
+                         PlatformTransactionManager transactionManager) {
+        this.alertRepository = alertRepository;
+        this.outboxRepository = outboxRepository;
+        this.metrics = metrics;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        eventHub.subscribe(this);
+    }
+
+    /**
+     * Whether the counters have been loaded from the database; until then callers should query it
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getTotal() {
+        return global.total.sum();
+    }
+
+    public long getActive() {
+        return global.active.sum();
+    }
+
+    public long getUnacknowledged() {
+        return global.unacknowledged.sum();
+    }
+
+    /**
+     * Active unacknowledged alerts of a parcel, or of the alerts without a parcel when it is null
+     */
+    public long getUnacknowledged(Long parcelId) {
+        Counts counts = byParcel.get(parcelKey(parcelId));
+        return counts != null ? counts.unacknowledged.sum() : 0L;
+    }
+
+    /**
+     * Total, active and unacknowledged counts of a parcel, or of all alerts when the parcel is null
+     */
+    public Map<String, Long> snapshot(Long parcelId) {
+        Counts counts = parcelId == null ? global : byParcel.get(parcelId);
+        if (counts == null) {
+            return Map.of("total", 0L, "active", 0L, "unacknowledged", 0L);
+        }
+        return Map.of("total", counts.total.sum(),
+                "active", counts.active.sum(),
+                "unacknowledged", counts.unacknowledged.sum());
+    }
+
+    @Override
+    public synchronized void onAlertEvent(AlertEvent event) {
+        // Already part of the loaded counts
+        if (event.getSequence() <= loadedSequence
+                || loadedPending.remove(new PendingEvent(event.getAlertId(), event.getType()))) {
+            return;
+        }
+        Alert alert = event.getAlert();
+        Counts parcel = byParcel.computeIfAbsent(parcelKey(alert.getParcelId()), key -> new Counts());
+
+        switch (event.getType()) {
+            case CREATED -> {
+                apply(parcel, 1, 1, Boolean.TRUE.equals(alert.getAcknowledged()) ? 0 : 1);
+            }
+            case ACKNOWLEDGED -> {
+                if (Boolean.TRUE.equals(alert.getIsActive())) {
+                    apply(parcel, 0, 0, -1);
+                }
+            }
+            case DISMISSED, EXPIRED -> {
+                apply(parcel, 0, -1, Boolean.TRUE.equals(alert.getAcknowledged()) ? 0 : -1);
+            }
+        }
+        publishGauges();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * Reload all counters from the database with a single grouped query
+     */
+    @Scheduled(fixedDelayString = "${alert.statistics.reconcile-interval:300000}",
+            initialDelayString = "${alert.statistics.reconcile-interval:300000}")
+    public void reconcile() {
+        try {
+            Loaded snapshot = snapshotTransaction.execute(status -> {
+                List<Object[]> rows = alertRepository.countByParcelGrouped();
+                long sequence = outboxRepository.findLastSequence();
+                Set<PendingEvent> pending = new HashSet<>();
+                for (Object[] event : outboxRepository.findPendingEvents()) {
+                    pending.add(new PendingEvent(toLong(event[0]), AlertEventType.valueOf((String) event[1])));
+                }
+                return new Loaded(rows, sequence, pending);
+            });
+            synchronized (this) {
+                load(snapshot.rows());
+                loadedSequence = snapshot.sequence();
+                loadedPending = snapshot.pending();
+            }
+        } catch (Exception e) {
+            log.error("Error reconciling alert counters: {}", e.getMessage(), e);
+        }
+    }
+
+    private void load(List<Object[]> rows) {
+        long total = 0;
+        long active = 0;
+        long unacknowledged = 0;
+        Map<Long, Counts> reloaded = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            Counts counts = new Counts();
+            counts.set(toLong(row[1]), toLong(row[2]), toLong(row[3]));
+            reloaded.put(parcelKey((Long) row[0]), counts);
+            total += toLong(row[1]);
+            active += toLong(row[2]);
+            unacknowledged += toLong(row[3]);
+        }
+
+        long drift = Math.abs(active - global.active.sum()) + Math.abs(unacknowledged - global.unacknowledged.sum());
+        global.set(total, active, unacknowledged);
+        byParcel.keySet().retainAll(reloaded.keySet());
+        reloaded.forEach((parcelId, counts) -> byParcel.merge(parcelId, counts, (current, fresh) -> {
+            current.set(fresh.total.sum(), fresh.active.sum(), fresh.unacknowledged.sum());
+            return current;
+        }));
+        publishGauges();
+
+        if (loaded && drift > 0) {
+            log.info("Reconciled alert counters, corrected a drift of {}", drift);
+        }
+        loaded = true;
+    }
+
+    private void apply(Counts parcel, long total, long active, long unacknowledged) {
+        global.add(total, active, unacknowledged);
+        parcel.add(total, active, unacknowledged);
+    }
+
+    private void publishGauges() {
+        metrics.updateActiveAlerts((int) global.active.sum());
+        metrics.updateUnacknowledgedAlerts((int) global.unacknowledged.sum());
+    }
+
+    private static Long parcelKey(Long parcelId) {
+        return parcelId != null ? parcelId : NO_PARCEL;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private record Loaded(List<Object[]> rows, long sequence, Set<PendingEvent> pending) {
+    }
+
+    private record PendingEvent(Long alertId, AlertEventType type) {
+    }
+
+    private static final class Counts {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder active = new LongAdder();
+        private final LongAdder unacknowledged = new LongAdder();
+
+        private void add(long totalDelta, long activeDelta, long unacknowledgedDelta) {
+            total.add(totalDelta);
+            active.add(activeDelta);
+            unacknowledged.add(unacknowledgedDelta);
+        }
+
+        private void set(long totalValue, long activeValue, long unacknowledgedValue) {
+            add(totalValue - total.sum(), activeValue - active.sum(), unacknowledgedValue - unacknowledged.sum());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.smartagri.alert.stats;
+
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.exception.AlertServiceException;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertHourlyRollup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the hourly alert rollups that trends are computed from.
+ * Deltas of one outbox batch are folded per bucket and upserted with a single JDBC batch in the
+ * relay's transaction; acknowledgement latency sketches are merged bin by bin in the upsert.
+ * Rollups created before this table existed are backfilled once from the alerts table at startup,
+ * before scheduled relays can write the first rollup and make the table look populated. A failed
+ * backfill stops startup, since it could not be retried once relays have written to the table.
+ */
+@Component
+@Slf4j
+public class AlertRollupWriter implements SmartInitializingSingleton {
+
+    private static final String UPSERT_SQL = "INSERT INTO alert_hourly_rollups " +
+            "(parcel_id, alert_type, severity, bucket_start, created_count, acknowledged_count, " +
+            "ack_latency_seconds, ack_latency_bins) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (parcel_id, alert_type, severity, bucket_start) DO UPDATE SET " +
+            "created_count = alert_hourly_rollups.created_count + EXCLUDED.created_count, " +
+            "acknowledged_count = alert_hourly_rollups.acknowledged_count + EXCLUDED.acknowledged_count, " +
+            "ack_latency_seconds = alert_hourly_rollups.ack_latency_seconds + EXCLUDED.ack_latency_seconds, " +
+            "ack_latency_bins = CASE " +
+            "WHEN alert_hourly_rollups.ack_latency_bins IS NULL THEN EXCLUDED.ack_latency_bins " +
+            "WHEN EXCLUDED.ack_latency_bins IS NULL THEN alert_hourly_rollups.ack_latency_bins " +
+            "ELSE ARRAY(SELECT COALESCE(o, 0) + COALESCE(n, 0) " +
+            "FROM unnest(alert_hourly_rollups.ack_latency_bins, EXCLUDED.ack_latency_bins) " +
+            "WITH ORDINALITY AS b(o, n, i) ORDER BY i) END";
+
+    // Events still waiting in the outbox are left out; the relay counts them when it delivers them
+    private static final String PENDING_COLUMNS = "EXISTS (SELECT 1 FROM alert_outbox o " +
+            "WHERE o.alert_id = a.id AND o.event_type = 'CREATED' AND o.event_sequence IS NULL) AS pending_created, " +
+            "EXISTS (SELECT 1 FROM alert_outbox o WHERE o.alert_id = a.id " +
+            "AND o.event_type = 'ACKNOWLEDGED' AND o.event_sequence IS NULL) AS pending_acknowledged";
+
+    private static final String BACKFILL_SQL = "INSERT INTO alert_hourly_rollups " +
+            "(parcel_id, alert_type, severity, bucket_start, created_count, acknowledged_count, ack_latency_seconds) " +
+            "SELECT COALESCE(a.parcel_id, 0), a.alert_type, a.severity, date_trunc('hour', a.alert_time), " +
+            "COUNT(*) FILTER (WHERE NOT pending_created), " +
+            "COUNT(*) FILTER (WHERE a.acknowledged AND NOT pending_acknowledged), " +
+            "COALESCE(SUM(EXTRACT(EPOCH FROM (a.acknowledged_at - a.alert_time))) " +
+            "FILTER (WHERE a.acknowledged AND a.acknowledged_at IS NOT NULL AND NOT pending_acknowledged), 0)::bigint " +
+            "FROM (SELECT a.*, " + PENDING_COLUMNS + " FROM alerts a) a " +
+            "GROUP BY 1, 2, 3, 4";
+
+    private static final String BACKFILL_LATENCIES_SQL = "SELECT a.parcel_id, a.alert_type, a.severity, " +
+            "a.alert_time, a.acknowledged_at FROM (SELECT a.*, " + PENDING_COLUMNS + " FROM alerts a) a " +
+            "WHERE a.acknowledged AND a.acknowledged_at IS NOT NULL AND NOT pending_acknowledged";
+
+    private static final String UPDATE_BINS_SQL = "UPDATE alert_hourly_rollups SET ack_latency_bins = ? " +
+            "WHERE parcel_id = ? AND alert_type = ? AND severity = ? AND bucket_start = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+
+    public AlertRollupWriter(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${alert.rollup.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Upsert the deltas in the caller's transaction, which must also consume the events they came from
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Deltas deltas) {
+        if (deltas.buckets.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<BucketKey, BucketDelta>> rows = new ArrayList<>(deltas.buckets.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                BucketKey key = rows.get(i).getKey();
+                BucketDelta delta = rows.get(i).getValue();
+                ps.setLong(1, key.parcelId());
+                ps.setString(2, key.alertType().name());
+                ps.setString(3, key.severity().name());
+                ps.setTimestamp(4, Timestamp.valueOf(key.bucketStart()));
+                ps.setLong(5, delta.created);
+                ps.setLong(6, delta.acknowledged);
+                ps.setLong(7, delta.latencySeconds);
+                if (delta.latencies.isEmpty()) {
+                    ps.setNull(8, Types.ARRAY);
+                } else {
+                    ps.setArray(8, toSqlArray(ps, delta.latencies));
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfillIfEmpty();
+        }
+    }
+
+    private void backfillIfEmpty() {
+        try {
+            Integer inserted = transactionTemplate.execute(status -> {
+                // Holds off relays (and other instances backfilling) until the table is populated
+                jdbcTemplate.execute("LOCK TABLE alert_hourly_rollups IN EXCLUSIVE MODE");
+                Boolean populated = jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM alert_hourly_rollups)", Boolean.class);
+                if (Boolean.TRUE.equals(populated)) {
+                    return null;
+                }
+                int rows = jdbcTemplate.update(BACKFILL_SQL);
+                backfillLatencySketches();
+                return rows;
+            });
+            if (inserted != null) {
+                log.info("Backfilled {} hourly alert rollups", inserted);
+            }
+        } catch (RuntimeException e) {
+            throw new AlertServiceException("Failed to backfill alert rollups", e);
+        }
+    }
+
+    private void backfillLatencySketches() {
+        Map<BucketKey, LatencySketch> sketches = new HashMap<>();
+        jdbcTemplate.query(BACKFILL_LATENCIES_SQL, rs -> {
+            long parcelId = rs.getLong("parcel_id");
+            if (rs.wasNull()) {
+                parcelId = AlertHourlyRollup.NO_PARCEL;
+            }
+            LocalDateTime alertTime = rs.getTimestamp("alert_time").toLocalDateTime();
+            BucketKey key = new BucketKey(parcelId,
+                    Alert.AlertType.valueOf(rs.getString("alert_type")),
+                    Alert.AlertSeverity.valueOf(rs.getString("severity")),
+                    alertTime.truncatedTo(ChronoUnit.HOURS));
+            sketches.computeIfAbsent(key, k -> new LatencySketch()).add(
+                    Duration.between(alertTime, rs.getTimestamp("acknowledged_at").toLocalDateTime()).toSeconds());
+        });
+
+        List<Map.Entry<BucketKey, LatencySketch>> rows = new ArrayList<>(sketches.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_BINS_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                BucketKey key = rows.get(i).getKey();
+                ps.setArray(1, toSqlArray(ps, rows.get(i).getValue()));
+                ps.setLong(2, key.parcelId());
+                ps.setString(3, key.alertType().name());
+                ps.setString(4, key.severity().name());
+                ps.setTimestamp(5, Timestamp.valueOf(key.bucketStart()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private static Array toSqlArray(PreparedStatement ps, LatencySketch sketch) throws SQLException {
+        long[] bins = sketch.toArray();
+        Long[] boxed = new Long[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            boxed[i] = bins[i];
+        }
+        return ps.getConnection().createArrayOf("bigint", boxed);
+    }
+
+    /**
+     * Rollup bucket an alert belongs to: the hour of its alert time
+     */
+    public static LocalDateTime bucketOf(Alert alert) {
+        LocalDateTime time = alert.getAlertTime() != null ? alert.getAlertTime() : alert.getCreatedAt();
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * Rollup deltas of a batch of events, folded per bucket
+     */
+    public static final class Deltas {
+
+        private final Map<BucketKey, BucketDelta> buckets = new HashMap<>();
+
+        public void add(AlertEventType type, Alert alert) {
+            if (type != AlertEventType.CREATED && type != AlertEventType.ACKNOWLEDGED) {
+                return;
+            }
+            BucketKey key = new BucketKey(
+                    alert.getParcelId() != null ? alert.getParcelId() : AlertHourlyRollup.NO_PARCEL,
+                    alert.getAlertType(), alert.getSeverity(), bucketOf(alert));
+            BucketDelta delta = buckets.computeIfAbsent(key, k -> new BucketDelta());
+
+            if (type == AlertEventType.CREATED) {
+                delta.created++;
+            } else {
+                delta.acknowledged++;
+                if (alert.getAcknowledgedAt() != null && alert.getAlertTime() != null) {
+                    long seconds = Duration.between(alert.getAlertTime(), alert.getAcknowledgedAt()).toSeconds();
+                    delta.latencySeconds += seconds;
+                    delta.latencies.add(seconds);
+                }
+            }
+        }
+    }
+
+    private static final class BucketDelta {
+        private long created;
+        private long acknowledged;
+        private long latencySeconds;
+        private final LatencySketch latencies = new LatencySketch();
+    }
+
+    private record BucketKey(long parcelId, Alert.AlertType alertType, Alert.AlertSeverity severity,
+                             LocalDateTime bucketStart) {
+    }
+}
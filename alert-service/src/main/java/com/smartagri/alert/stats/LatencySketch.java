@@ -0,0 +1,109 @@
+package com.smartagri.alert.stats;
+
+import java.util.Arrays;
+
+/**
+ * DDSketch-style latency histogram with logarithmic bins, so any quantile it reports is within
+ * {@link #RELATIVE_ACCURACY} of the true value. Sketches merge by adding bin counts, which makes
+ * them cheap to keep per hour bucket and to combine over arbitrary windows.
+ * <p>
+ * Bin 0 holds values below one second; bin {@code i > 0} holds values in
+ * {@code (gamma^(i-2), gamma^(i-1)]} seconds.
+ */
+public final class LatencySketch {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long[] bins;
+    private long count;
+
+    public LatencySketch() {
+        this.bins = new long[0];
+    }
+
+    /**
+     * Sketch over the given bin counts, as stored by {@link #toArray()}
+     */
+    public static LatencySketch fromArray(long[] bins) {
+        LatencySketch sketch = new LatencySketch();
+        for (int i = 0; i < bins.length; i++) {
+            sketch.addToBin(i, bins[i]);
+        }
+        return sketch;
+    }
+
+    public static int binOf(long seconds) {
+        if (seconds < 1) {
+            return 0;
+        }
+        return (int) Math.ceil(Math.log(seconds) / LOG_GAMMA) + 1;
+    }
+
+    public void add(long seconds) {
+        addToBin(binOf(seconds), 1);
+    }
+
+    public void addToBin(int bin, long binCount) {
+        if (binCount <= 0) {
+            return;
+        }
+        if (bin >= bins.length) {
+            bins = Arrays.copyOf(bins, Math.max(bin + 1, bins.length * 2));
+        }
+        bins[bin] += binCount;
+        count += binCount;
+    }
+
+    public void merge(LatencySketch other) {
+        for (int i = 0; i < other.bins.length; i++) {
+            addToBin(i, other.bins[i]);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Estimated value at the given quantile (0 to 1), in seconds; 0 for an empty sketch
+     */
+    public long quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < bins.length; i++) {
+            seen += bins[i];
+            if (seen > rank) {
+                return Math.round(valueOf(i));
+            }
+        }
+        return Math.round(valueOf(bins.length - 1));
+    }
+
+    /**
+     * Bin counts up to the highest non-empty bin
+     */
+    public long[] toArray() {
+        int length = bins.length;
+        while (length > 0 && bins[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(bins, length);
+    }
+
+    private static double valueOf(int bin) {
+        if (bin == 0) {
+            return 0;
+        }
+        return 2 * Math.pow(GAMMA, bin - 1) / (GAMMA + 1);
+    }
+}
@@ -0,0 +1,18 @@
+-- Runs after Hibernate's schema update on every startup; statements must be idempotent.
+
+-- Alert ids moved from an identity column to the pooled alert_id_seq sequence (allocation size 50).
+-- Move the sequence past existing ids so the first allocated block cannot collide with them.
+SELECT setval('alert_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM alerts))
+WHERE (SELECT last_value FROM alert_id_seq) < (SELECT COALESCE(MAX(id), 0) + 50 FROM alerts);
+
+-- Active-alert lookups combining parcel, type and severity filters, newest first (GetActiveAlerts).
+CREATE INDEX IF NOT EXISTS idx_alert_active_filters
+    ON alerts (parcel_id, alert_type, severity, alert_time DESC, id DESC) WHERE is_active;
+-- The same lookups without a parcel, which cannot use the index above.
+CREATE INDEX IF NOT EXISTS idx_alert_active_type_severity
+    ON alerts (alert_type, severity, alert_time DESC, id DESC) WHERE is_active;
+
+-- Outbox events waiting for the relay, and relayed events read back by sequence per parcel (stream resume).
+CREATE INDEX IF NOT EXISTS idx_alert_outbox_pending ON alert_outbox (id) WHERE event_sequence IS NULL;
+CREATE INDEX IF NOT EXISTS idx_alert_outbox_parcel_sequence ON alert_outbox (parcel_id, event_sequence);
+CREATE INDEX IF NOT EXISTS idx_alert_outbox_alert ON alert_outbox (alert_id);
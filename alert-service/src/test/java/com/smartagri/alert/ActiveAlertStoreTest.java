@@ -0,0 +1,131 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.service.ActiveAlertStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveAlertStoreTest {
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    private ActiveAlertStore store;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        when(alertRepository.findByIsActiveTrueOrderByAlertTimeDesc()).thenReturn(List.of(
+                createAlert(1L, 10L, Alert.AlertType.WEATHER, Alert.AlertSeverity.LOW, now.minusMinutes(3)),
+                createAlert(2L, 10L, Alert.AlertType.PEST, Alert.AlertSeverity.CRITICAL, now.minusMinutes(2)),
+                createAlert(3L, 20L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, now.minusMinutes(1))));
+        store = new ActiveAlertStore(alertRepository, new AlertEventHub(10));
+        store.rebuild();
+    }
+
+    @Test
+    void testQueriesServeIndexedActiveAlerts() {
+        assertTrue(store.isLoaded());
+        assertEquals(List.of(3L, 2L, 1L), ids(store.findAll()));
+        assertEquals(List.of(2L, 1L), ids(store.findByParcel(10L)));
+        assertEquals(List.of(3L, 1L), ids(store.findByType(Alert.AlertType.WEATHER)));
+        assertEquals(List.of(2L), ids(store.findBySeverity(Alert.AlertSeverity.CRITICAL)));
+        assertEquals(List.of(3L, 2L), ids(store.findSince(now.minusMinutes(2))));
+
+        // Most severe first, not alphabetical
+        assertEquals(List.of(2L, 3L, 1L), ids(store.findUnacknowledged()));
+
+        AlertSearchCriteria criteria = new AlertSearchCriteria();
+        criteria.setParcelId(10L);
+        criteria.setAlertType(Alert.AlertType.WEATHER);
+        assertEquals(List.of(1L), ids(store.find(criteria, null)));
+        assertEquals(List.of(3L), ids(store.find(new AlertSearchCriteria(), 1)));
+    }
+
+    @Test
+    void testRecordedChangesPublishNewVersion() {
+        // Given
+        long version = store.getVersion();
+        List<Alert> before = store.findAll();
+
+        Alert acknowledged = createAlert(2L, 10L, Alert.AlertType.PEST, Alert.AlertSeverity.CRITICAL,
+                now.minusMinutes(2));
+        acknowledged.setAcknowledged(true);
+        Alert dismissed = createAlert(3L, 20L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH,
+                now.minusMinutes(1));
+        dismissed.setIsActive(false);
+
+        // When
+        store.recordAll(List.of(acknowledged, dismissed));
+        store.record(createAlert(4L, null, Alert.AlertType.SYSTEM, Alert.AlertSeverity.MEDIUM, now));
+
+        // Then
+        assertEquals(version + 2, store.getVersion());
+        assertEquals(List.of(4L, 2L, 1L), ids(store.findAll()));
+        assertEquals(List.of(4L, 1L), ids(store.findUnacknowledged()));
+        assertTrue(store.findByParcel(20L).isEmpty());
+        assertEquals(List.of(3L, 2L, 1L), ids(before));
+    }
+
+    @Test
+    void testOutOfOrderCopiesDoNotOverwriteNewerState() {
+        // Given: alert 1 was acknowledged (version 2) and then dismissed (version 3)
+        Alert acknowledged = createAlert(1L, 10L, Alert.AlertType.WEATHER, Alert.AlertSeverity.LOW,
+                now.minusMinutes(3));
+        acknowledged.setAcknowledged(true);
+        acknowledged.setRowVersion(2L);
+        Alert dismissed = acknowledged.snapshot();
+        dismissed.setIsActive(false);
+        dismissed.setRowVersion(3L);
+        Alert bumped = createAlert(2L, 10L, Alert.AlertType.PEST, Alert.AlertSeverity.CRITICAL,
+                now.minusMinutes(2));
+        bumped.setOccurrenceCount(3);
+        bumped.setRowVersion(5L);
+        Alert stale = bumped.snapshot();
+        stale.setOccurrenceCount(2);
+        stale.setRowVersion(4L);
+
+        // When: the commits are written through in the wrong order
+        store.record(dismissed);
+        store.record(acknowledged);
+        store.record(bumped);
+        store.record(stale);
+
+        // Then
+        assertEquals(List.of(3L, 2L), ids(store.findAll()));
+        assertEquals(3, store.findByParcel(10L).get(0).getOccurrenceCount());
+    }
+
+    private static List<Long> ids(List<Alert> alerts) {
+        return alerts.stream().map(Alert::getId).toList();
+    }
+
+    private static Alert createAlert(Long id, Long parcelId, Alert.AlertType type, Alert.AlertSeverity severity,
+                                     LocalDateTime alertTime) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setParcelId(parcelId);
+        alert.setAlertType(type);
+        alert.setSeverity(severity);
+        alert.setTitle("Test alert");
+        alert.setMessage("Test message");
+        alert.setAlertTime(alertTime);
+        alert.setIsActive(true);
+        alert.setAcknowledged(false);
+        return alert;
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.archive.AlertArchive;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.model.Alert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE"));
+        for (YearMonth month : List.of(YearMonth.of(2025, 1), YearMonth.of(2025, 2))) {
+            String partition = "alerts_p" + month.toString().replace("-", "");
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (id BIGINT, alert_type VARCHAR(50), " +
+                    "severity VARCHAR(20), parcel_id BIGINT, location VARCHAR(255), title VARCHAR(255), " +
+                    "message VARCHAR(1000), alert_time TIMESTAMP, expiry_time TIMESTAMP, is_active BOOLEAN, " +
+                    "acknowledged BOOLEAN, acknowledged_at TIMESTAMP, acknowledged_by VARCHAR(100), " +
+                    "metadata VARCHAR(1000), created_at TIMESTAMP, fingerprint VARCHAR(64), " +
+                    "occurrence_count INTEGER, last_seen_at TIMESTAMP)");
+        }
+        // Two alerts per month, one per parcel
+        insert("alerts_p202501", 1L, 10L, LocalDateTime.of(2025, 1, 5, 8, 0));
+        insert("alerts_p202501", 2L, 20L, LocalDateTime.of(2025, 1, 20, 8, 0));
+        insert("alerts_p202502", 3L, 10L, LocalDateTime.of(2025, 2, 3, 8, 0));
+        insert("alerts_p202502", 4L, 20L, LocalDateTime.of(2025, 2, 3, 8, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void testSearchContinuesNewestFirstAcrossExportedMonths() {
+        // Given
+        AlertArchive archive = new AlertArchive(jdbcTemplate, directory.toString());
+        archive.export("alerts", "alerts_p202501", "alert_time", YearMonth.of(2025, 1));
+        archive.export("alerts", "alerts_p202502", "alert_time", YearMonth.of(2025, 2));
+
+        // When
+        List<Alert> all = archive.search(new AlertSearchCriteria(), null, 0, 10);
+        List<Alert> afterFirst = archive.search(new AlertSearchCriteria(), all.get(0), 0, 2);
+        AlertSearchCriteria parcel = AlertSearchCriteria.builder().parcelId(10L).build();
+
+        // Then
+        assertEquals(LocalDateTime.of(2025, 3, 1, 0, 0), archive.getHorizon());
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(all));
+        assertEquals("Frost risk 4", all.get(0).getTitle());
+        assertEquals(List.of(3L, 2L), ids(afterFirst));
+        assertEquals(List.of(3L, 1L), ids(archive.search(parcel, null, 0, 10)));
+        assertEquals(List.of(1L), ids(archive.search(parcel, null, 1, 10)));
+        assertEquals(2, archive.count(parcel));
+        assertFalse(archive.covers(AlertSearchCriteria.builder().startDate(archive.getHorizon()).build()));
+    }
+
+    @Test
+    void testCountsAreCachedUntilTheNextExport() throws Exception {
+        // Given
+        AlertArchive archive = new AlertArchive(jdbcTemplate, directory.toString());
+        archive.export("alerts", "alerts_p202501", "alert_time", YearMonth.of(2025, 1));
+        assertEquals(2, archive.count(new AlertSearchCriteria()));
+
+        // When: the segment is gone, a cached count does not need it
+        Path segment = directory.resolve("alerts-2025-01.seg");
+        Path moved = Files.move(segment, directory.resolve("moved"));
+
+        // Then
+        assertEquals(2, archive.count(new AlertSearchCriteria()));
+
+        Files.move(moved, segment);
+        archive.export("alerts", "alerts_p202502", "alert_time", YearMonth.of(2025, 2));
+        assertEquals(4, archive.count(new AlertSearchCriteria()));
+    }
+
+    private void insert(String partition, Long id, Long parcelId, LocalDateTime alertTime) {
+        jdbcTemplate.update("INSERT INTO " + partition + " (id, alert_type, severity, parcel_id, title, message, " +
+                        "alert_time, is_active, acknowledged, occurrence_count) VALUES (?, 'WEATHER', 'HIGH', ?, ?, " +
+                        "'Temperature below zero', ?, false, true, 1)",
+                id, parcelId, "Frost risk " + id, alertTime);
+    }
+
+    private static List<Long> ids(List<Alert> alerts) {
+        return alerts.stream().map(Alert::getId).toList();
+    }
+}
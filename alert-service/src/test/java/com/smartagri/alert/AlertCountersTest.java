@@ -0,0 +1,71 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertOutboxRepository;
+import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.stats.AlertCounters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertCountersTest {
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private AlertOutboxRepository outboxRepository;
+
+    @Mock
+    private AlertMetrics metrics;
+
+    @Mock
+    private AlertEventHub eventHub;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testEventsIncludedInReconciledCountsAreNotCountedAgain() {
+        // Given: parcel 1 counted with 5 alerts, event 10 relayed and alert 42's creation still pending
+        when(alertRepository.countByParcelGrouped()).thenReturn(List.<Object[]>of(new Object[]{1L, 5L, 3L, 2L}));
+        when(outboxRepository.findLastSequence()).thenReturn(10L);
+        when(outboxRepository.findPendingEvents()).thenReturn(List.<Object[]>of(new Object[]{42L, "CREATED"}));
+        AlertCounters counters = new AlertCounters(alertRepository, outboxRepository, metrics, eventHub,
+                transactionManager);
+        counters.reconcile();
+
+        // When: the hub publishes events the counts already include, then a new one
+        counters.onAlertEvent(event(9, AlertEventType.ACKNOWLEDGED, 7L));
+        counters.onAlertEvent(event(11, AlertEventType.CREATED, 42L));
+        counters.onAlertEvent(event(12, AlertEventType.CREATED, 43L));
+
+        // Then
+        assertEquals(Map.of("total", 6L, "active", 4L, "unacknowledged", 3L), counters.snapshot(1L));
+        assertEquals(3L, counters.getUnacknowledged(1L));
+        assertEquals(0L, counters.getUnacknowledged(2L));
+    }
+
+    private AlertEvent event(long sequence, AlertEventType type, Long alertId) {
+        Alert alert = new Alert();
+        alert.setId(alertId);
+        alert.setParcelId(1L);
+        alert.setIsActive(true);
+        alert.setAcknowledged(type == AlertEventType.ACKNOWLEDGED);
+        return new AlertEvent(sequence, type, alert, LocalDateTime.now());
+    }
+}
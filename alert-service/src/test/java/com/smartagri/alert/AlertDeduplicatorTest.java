@@ -0,0 +1,85 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.dedupe.AlertDeduplicator;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.model.Alert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertDeduplicatorTest {
+
+    private static final String FINGERPRINT =
+            AlertDeduplicator.fingerprint(Alert.AlertType.THRESHOLD, 1L, null, "Soil moisture low");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepeatWithinWindowIsBumpedWithoutClaiming() {
+        // Given
+        AlertDeduplicator deduplicator = new AlertDeduplicator(jdbcTemplate, new AlertEventHub(10), 600000);
+        deduplicator.bind(FINGERPRINT, 5L, now.minusMinutes(1));
+        Alert bumped = new Alert();
+        bumped.setId(5L);
+        bumped.setOccurrenceCount(2);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(bumped));
+
+        // When
+        Optional<Alert> coalesced = deduplicator.coalesceOrClaim(FINGERPRINT, now);
+
+        // Then
+        assertEquals(Optional.of(bumped), coalesced);
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    void testNewFingerprintIsClaimedForTheCaller() {
+        // Given
+        AlertDeduplicator deduplicator = new AlertDeduplicator(jdbcTemplate, new AlertEventHub(10), 600000);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of(FINGERPRINT));
+
+        // When / Then
+        assertTrue(deduplicator.coalesceOrClaim(FINGERPRINT, now).isEmpty());
+    }
+
+    @Test
+    void testStaleEntriesAreEvictedAndClaimedAgain() {
+        // Given
+        AlertDeduplicator deduplicator = new AlertDeduplicator(jdbcTemplate, new AlertEventHub(10), 600000);
+        deduplicator.bind(FINGERPRINT, 5L, now.minusMinutes(20));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of(FINGERPRINT));
+
+        // When
+        deduplicator.evictStale();
+
+        // Then: the stale alert is not bumped
+        assertTrue(deduplicator.coalesceOrClaim(FINGERPRINT, now).isEmpty());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    void testEvictionIsSkippedWhenDisabled() {
+        AlertDeduplicator deduplicator = new AlertDeduplicator(jdbcTemplate, new AlertEventHub(10), 0);
+
+        assertFalse(deduplicator.isEnabled());
+        assertDoesNotThrow(deduplicator::evictStale);
+    }
+}
@@ -1,13 +1,35 @@
 package com.smartagri.alert;
 
+import com.smartagri.alert.config.GrpcMetricsInterceptor;
+import com.smartagri.alert.dto.AckLatencyStats;
+import com.smartagri.alert.dto.AcknowledgementResult;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.AlertTrendBucket;
+import com.smartagri.alert.event.AlertEvent;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.exception.AlertNotFoundException;
 import com.smartagri.alert.grpc.generated.*;
+import com.smartagri.alert.metrics.AlertMetrics;
 import com.smartagri.alert.model.Alert;
 import com.smartagri.alert.service.AlertGrpcService;
+import com.smartagri.alert.service.AlertIngestPipeline;
 import com.smartagri.alert.service.AlertService;
+import com.smartagri.alert.service.AlertStreamRegistry;
+import com.smartagri.alert.service.AlertStreamRouter;
+import com.smartagri.alert.service.EncodedAlertResponse;
+import com.smartagri.alert.service.StreamOverflowPolicy;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
 import io.grpc.Status;
 import io.grpc.StatusException;
 import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +37,16 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -44,11 +73,331 @@ class AlertGrpcServiceTest {
     @Mock
     private StreamObserver<SubscriptionResponse> subscriptionResponseObserver;
 
+    private AlertEventHub eventHub;
+
+    private AlertStreamRegistry streamRegistry;
+
     private AlertGrpcService grpcService;
 
     @BeforeEach
     void setUp() {
-        grpcService = new AlertGrpcService(alertService);
+        eventHub = new AlertEventHub(100);
+        createGrpcService(StreamOverflowPolicy.COALESCE, 100, 60000);
+    }
+
+    private void createGrpcService(StreamOverflowPolicy overflowPolicy, int queueCapacity, long maxIdleMillis) {
+        streamRegistry = new AlertStreamRegistry(new AlertStreamRouter(eventHub),
+                new AlertMetrics(new SimpleMeterRegistry()), overflowPolicy, queueCapacity, maxIdleMillis);
+        grpcService = new AlertGrpcService(alertService, streamRegistry, eventHub,
+                new AlertIngestPipeline(alertService, 100, 60000));
+    }
+
+    // ==================== StreamAlerts Tests ====================
+
+    @Test
+    void testStreamAlerts_SnapshotThenFilteredLiveEvents() {
+        // Given
+        StreamAlertsRequest request = StreamAlertsRequest.newBuilder()
+                .setParcelId(5L)
+                .addSeverities("CRITICAL")
+                .build();
+
+        Alert critical = createMockAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.CRITICAL, "Hail");
+        critical.setParcelId(5L);
+        Alert low = createMockAlert(2L, Alert.AlertType.WEATHER, Alert.AlertSeverity.LOW, "Drizzle");
+        low.setParcelId(5L);
+
+        when(alertService.getActiveAlertsByParcel(5L)).thenReturn(List.of(critical, low));
+
+        // When
+        grpcService.streamAlerts(request, alertResponseObserver);
+
+        Alert otherParcel = createMockAlert(3L, Alert.AlertType.PEST, Alert.AlertSeverity.CRITICAL, "Locusts");
+        otherParcel.setParcelId(6L);
+        Alert live = createMockAlert(4L, Alert.AlertType.PEST, Alert.AlertSeverity.CRITICAL, "Aphids");
+        live.setParcelId(5L);
+        eventHub.publish(AlertEventType.CREATED, otherParcel);
+        eventHub.publish(AlertEventType.CREATED, live);
+
+        // Then
+        ArgumentCaptor<AlertResponse> captor = ArgumentCaptor.forClass(AlertResponse.class);
+        verify(alertResponseObserver, timeout(1000).times(2)).onNext(captor.capture());
+        verify(alertResponseObserver, never()).onError(any());
+        assertEquals(List.of(1L, 4L), captor.getAllValues().stream().map(AlertResponse::getId).toList());
+    }
+
+    @Test
+    void testStreamAlerts_LiveChangeIsEncodedOnceForAllStreams() throws Exception {
+        // Given: two clients streaming over an in-process transport
+        String serverName = InProcessServerBuilder.generateName();
+        Server server = InProcessServerBuilder.forName(serverName).directExecutor()
+                .addService(grpcService).build().start();
+        ManagedChannel channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        try {
+            List<BlockingQueue<AlertResponse>> received = List.of(new LinkedBlockingQueue<>(), new LinkedBlockingQueue<>());
+            for (BlockingQueue<AlertResponse> queue : received) {
+                AlertServiceGrpc.newStub(channel).streamAlerts(StreamAlertsRequest.getDefaultInstance(),
+                        new StreamObserver<>() {
+                            @Override
+                            public void onNext(AlertResponse value) {
+                                queue.add(value);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                            }
+                        });
+            }
+            while (streamRegistry.getActiveStreamCount() < 2) {
+                Thread.sleep(10);
+            }
+            long cursor = eventHub.currentSequence();
+
+            // When
+            eventHub.publish(AlertEventType.CREATED,
+                    createMockAlert(7L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, "Frost"));
+
+            // Then: both clients decode the same message, and the event holds its single encoding
+            AlertResponse first = received.get(0).poll(1, TimeUnit.SECONDS);
+            AlertResponse second = received.get(1).poll(1, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertEquals(first, second);
+            assertEquals(7L, first.getId());
+            assertEquals("CREATED", first.getEventType());
+            assertEquals(cursor + 1, first.getEventSequence());
+
+            AlertEvent event = eventHub.eventsAfter(cursor).orElseThrow().get(0);
+            EncodedAlertResponse encoded = event.encoded(EncodedAlertResponse.class, e -> fail("live change encoded more than once"));
+            assertArrayEquals(first.toByteArray(), encoded.getBytes());
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMetricsInterceptor_RecordsLatencyAndStatusPerMethod() throws Exception {
+        // Given: the service behind the metrics interceptor
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        String serverName = InProcessServerBuilder.generateName();
+        Server server = InProcessServerBuilder.forName(serverName).directExecutor()
+                .addService(ServerInterceptors.intercept(grpcService,
+                        new GrpcMetricsInterceptor(new AlertMetrics(registry), Duration.ofSeconds(1), 0)))
+                .build().start();
+        ManagedChannel channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        try {
+            when(alertService.getAlertById(1L))
+                    .thenReturn(createMockAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, "Frost"));
+            when(alertService.getAlertById(2L)).thenThrow(new AlertNotFoundException("Alert not found"));
+            AlertServiceGrpc.AlertServiceBlockingStub stub = AlertServiceGrpc.newBlockingStub(channel);
+
+            // When
+            stub.getAlert(GetAlertRequest.newBuilder().setAlertId(1L).build());
+            assertThrows(StatusRuntimeException.class,
+                    () -> stub.getAlert(GetAlertRequest.newBuilder().setAlertId(2L).build()));
+
+            // Then
+            assertEquals(2, registry.get("alerts.grpc.server.duration").tag("method", "GetAlert").timer().count());
+            assertEquals(1, registry.get("alerts.grpc.server.responses")
+                    .tags("method", "GetAlert", "status", "OK").counter().count());
+            assertEquals(1, registry.get("alerts.grpc.server.responses")
+                    .tags("method", "GetAlert", "status", "NOT_FOUND").counter().count());
+            assertEquals(0, registry.get("alerts.grpc.server.inflight").tag("method", "GetAlert").gauge().value());
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testStreamAlerts_ResumeReplaysOnlyMissedEvents() throws InterruptedException {
+        // Given
+        long cursor = eventHub.currentSequence();
+        eventHub.publish(AlertEventType.CREATED,
+                createMockAlert(1L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Seen before disconnect"));
+        eventHub.publish(AlertEventType.ACKNOWLEDGED,
+                createMockAlert(2L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Missed while offline"));
+        while (eventHub.currentSequence() < cursor + 2) {
+            Thread.sleep(10);
+        }
+
+        StreamAlertsRequest request = StreamAlertsRequest.newBuilder()
+                .setResumeAfterSequence(cursor + 1)
+                .build();
+
+        // When
+        grpcService.streamAlerts(request, alertResponseObserver);
+
+        // Then
+        ArgumentCaptor<AlertResponse> captor = ArgumentCaptor.forClass(AlertResponse.class);
+        verify(alertResponseObserver).onNext(captor.capture());
+        verifyNoInteractions(alertService);
+
+        AlertResponse response = captor.getValue();
+        assertEquals(2L, response.getId());
+        assertEquals(cursor + 2, response.getEventSequence());
+        assertEquals("ACKNOWLEDGED", response.getEventType());
+    }
+
+    @Test
+    void testStreamAlerts_ResumeAfterLastAlertReplaysOutboxEvents() {
+        // Given: nothing buffered in memory, so the missed changes come from the outbox
+        Alert acknowledged = createMockAlert(3L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Acknowledged");
+        acknowledged.setParcelId(5L);
+        Alert otherType = createMockAlert(4L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, "Filtered out");
+        otherType.setParcelId(5L);
+        when(alertService.getCreatedEventSequence(3L)).thenReturn(Optional.of(10L));
+        when(alertService.getEventsAfter(10L, 5L)).thenReturn(Optional.of(List.of(
+                new AlertEvent(11L, AlertEventType.ACKNOWLEDGED, acknowledged, LocalDateTime.now()),
+                new AlertEvent(12L, AlertEventType.CREATED, otherType, LocalDateTime.now()))));
+
+        StreamAlertsRequest request = StreamAlertsRequest.newBuilder()
+                .setParcelId(5L)
+                .addAlertTypes("PEST")
+                .setLastAlertId(3L)
+                .build();
+
+        // When
+        grpcService.streamAlerts(request, alertResponseObserver);
+
+        // Then
+        ArgumentCaptor<AlertResponse> captor = ArgumentCaptor.forClass(AlertResponse.class);
+        verify(alertResponseObserver).onNext(captor.capture());
+        verify(alertService, never()).getActiveAlertsByParcel(any());
+        assertEquals(3L, captor.getValue().getId());
+        assertEquals(11L, captor.getValue().getEventSequence());
+        assertEquals("ACKNOWLEDGED", captor.getValue().getEventType());
+    }
+
+    @Test
+    void testStreamAlerts_ResumeAcrossInstancesWithOutboxSequences() throws InterruptedException {
+        // Given: another instance's hub publishing the same relayed events under their outbox sequences
+        eventHub.skipTo(41);
+        Alert seen = createMockAlert(1L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Seen before disconnect");
+        Alert missed = createMockAlert(2L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Missed while offline");
+        eventHub.publish(42, AlertEventType.CREATED, seen, LocalDateTime.now());
+        eventHub.publish(42, AlertEventType.CREATED, seen, LocalDateTime.now());
+        eventHub.publish(43, AlertEventType.ACKNOWLEDGED, missed, LocalDateTime.now());
+        while (eventHub.currentSequence() < 43) {
+            Thread.sleep(10);
+        }
+
+        // When
+        grpcService.streamAlerts(StreamAlertsRequest.newBuilder().setResumeAfterSequence(42).build(),
+                alertResponseObserver);
+
+        // Then: the duplicate was ignored and only the missed event is replayed, under the same sequence
+        ArgumentCaptor<AlertResponse> captor = ArgumentCaptor.forClass(AlertResponse.class);
+        verify(alertResponseObserver).onNext(captor.capture());
+        assertEquals(2L, captor.getValue().getId());
+        assertEquals(43, captor.getValue().getEventSequence());
+        assertEquals(2, eventHub.eventsAfter(41).orElseThrow().size());
+        assertTrue(eventHub.eventsAfter(40).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAlerts_SlowClientDropsLowSeverityFirst() throws InterruptedException {
+        // Given
+        createGrpcService(StreamOverflowPolicy.DROP_LOW_SEVERITY, 2, 60000);
+        ServerCallStreamObserver<AlertResponse> slowObserver = mock(ServerCallStreamObserver.class);
+        when(slowObserver.isReady()).thenReturn(false);
+
+        grpcService.streamAlerts(StreamAlertsRequest.getDefaultInstance(), slowObserver);
+
+        // When
+        long cursor = eventHub.currentSequence();
+        eventHub.publish(AlertEventType.CREATED,
+                createMockAlert(1L, Alert.AlertType.IRRIGATION, Alert.AlertSeverity.LOW, "Low"));
+        eventHub.publish(AlertEventType.CREATED,
+                createMockAlert(2L, Alert.AlertType.WEATHER, Alert.AlertSeverity.CRITICAL, "Critical"));
+        eventHub.publish(AlertEventType.CREATED,
+                createMockAlert(3L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "High"));
+        while (eventHub.currentSequence() < cursor + 3) {
+            Thread.sleep(10);
+        }
+        verify(slowObserver, never()).onNext(any());
+
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(slowObserver).setOnReadyHandler(onReady.capture());
+        when(slowObserver.isReady()).thenReturn(true);
+        onReady.getValue().run();
+
+        // Then
+        ArgumentCaptor<AlertResponse> captor = ArgumentCaptor.forClass(AlertResponse.class);
+        verify(slowObserver, times(2)).onNext(captor.capture());
+        assertEquals(List.of(2L, 3L), captor.getAllValues().stream().map(AlertResponse::getId).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAlerts_ClientCancelReleasesStream() {
+        // Given
+        ServerCallStreamObserver<AlertResponse> observer = mock(ServerCallStreamObserver.class);
+        grpcService.streamAlerts(StreamAlertsRequest.getDefaultInstance(), observer);
+        assertEquals(1, streamRegistry.getActiveStreamCount());
+
+        // When
+        ArgumentCaptor<Runnable> onCancel = ArgumentCaptor.forClass(Runnable.class);
+        verify(observer).setOnCancelHandler(onCancel.capture());
+        onCancel.getValue().run();
+
+        // Then
+        assertEquals(0, streamRegistry.getActiveStreamCount());
+        verify(observer, never()).onError(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAlerts_StalledClientIsEvicted() throws InterruptedException {
+        // Given
+        createGrpcService(StreamOverflowPolicy.COALESCE, 100, 0);
+        ServerCallStreamObserver<AlertResponse> stalledObserver = mock(ServerCallStreamObserver.class);
+        ServerCallStreamObserver<AlertResponse> idleObserver = mock(ServerCallStreamObserver.class);
+        when(stalledObserver.isReady()).thenReturn(false);
+        when(idleObserver.isReady()).thenReturn(true);
+        grpcService.streamAlerts(StreamAlertsRequest.newBuilder().setParcelId(1L).build(), stalledObserver);
+        grpcService.streamAlerts(StreamAlertsRequest.newBuilder().setParcelId(2L).build(), idleObserver);
+
+        Alert alert = createMockAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, "High");
+        alert.setParcelId(1L);
+        long cursor = eventHub.currentSequence();
+        eventHub.publish(AlertEventType.CREATED, alert);
+        while (eventHub.currentSequence() < cursor + 1) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(5);
+
+        // When
+        streamRegistry.evictStaleStreams();
+
+        // Then
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(stalledObserver).onError(captor.capture());
+        assertEquals(Status.UNAVAILABLE.getCode(), ((StatusException) captor.getValue()).getStatus().getCode());
+        verify(idleObserver, never()).onError(any());
+        assertEquals(1, streamRegistry.getActiveStreamCount());
+    }
+
+    @Test
+    void testStreamAlerts_InvalidSeverityFilter() {
+        // Given
+        StreamAlertsRequest request = StreamAlertsRequest.newBuilder()
+                .addSeverities("SEVERE")
+                .build();
+
+        // When
+        grpcService.streamAlerts(request, alertResponseObserver);
+
+        // Then
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(alertResponseObserver).onError(captor.capture());
+        assertEquals(Status.INVALID_ARGUMENT.getCode(),
+                ((StatusException) captor.getValue()).getStatus().getCode());
     }
 
     // ==================== CreateAlert Tests ====================
@@ -112,6 +461,108 @@ class AlertGrpcServiceTest {
                 ((StatusException) error).getStatus().getCode());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateAlerts_BatchesStreamAndReportsPerItemResults() {
+        // Given
+        CreateAlertRequest valid = CreateAlertRequest.newBuilder()
+                .setAlertType("THRESHOLD")
+                .setSeverity("MEDIUM")
+                .setParcelId(1L)
+                .setTitle("Soil moisture low")
+                .setMessage("Moisture below threshold")
+                .build();
+        CreateAlertRequest invalid = valid.toBuilder().setSeverity("SEVERE").build();
+
+        when(alertService.createAlerts(anyList())).thenReturn(List.of(
+                createMockAlert(10L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM, "Soil moisture low"),
+                createMockAlert(11L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM, "Soil moisture low")));
+        StreamObserver<CreateAlertsResponse> responseObserver = mock(StreamObserver.class);
+
+        // When
+        StreamObserver<CreateAlertRequest> requestObserver = grpcService.createAlerts(responseObserver);
+        requestObserver.onNext(valid);
+        requestObserver.onNext(invalid);
+        requestObserver.onNext(valid);
+        requestObserver.onCompleted();
+
+        // Then: one batch insert for the valid requests, one response covering all three
+        verify(alertService, times(1)).createAlerts(anyList());
+        ArgumentCaptor<CreateAlertsResponse> captor = ArgumentCaptor.forClass(CreateAlertsResponse.class);
+        verify(responseObserver).onNext(captor.capture());
+        verify(responseObserver).onCompleted();
+
+        List<CreateAlertResult> results = captor.getValue().getResultsList();
+        assertEquals(List.of(0L, 1L, 2L), results.stream().map(CreateAlertResult::getIndex).toList());
+        assertEquals(10L, results.get(0).getAlertId());
+        assertTrue(results.get(1).hasError());
+        assertEquals(11L, results.get(2).getAlertId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateAlerts_HoldsResponsesUntilCallIsReady() {
+        // Given
+        CreateAlertRequest request = CreateAlertRequest.newBuilder()
+                .setAlertType("THRESHOLD")
+                .setSeverity("MEDIUM")
+                .setParcelId(1L)
+                .setTitle("Soil moisture low")
+                .setMessage("Moisture below threshold")
+                .build();
+        when(alertService.createAlerts(anyList())).thenReturn(List.of(
+                createMockAlert(10L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM, "Soil moisture low")));
+        ServerCallStreamObserver<CreateAlertsResponse> responseObserver = mock(ServerCallStreamObserver.class);
+        when(responseObserver.isReady()).thenReturn(false);
+
+        // When: the client stops reading
+        StreamObserver<CreateAlertRequest> requestObserver = grpcService.createAlerts(responseObserver);
+        requestObserver.onNext(request);
+        requestObserver.onCompleted();
+
+        // Then: one batch asked for, nothing sent and nothing more asked
+        verify(responseObserver).disableAutoRequest();
+        verify(responseObserver).request(100);
+        verify(responseObserver, never()).onNext(any());
+        verify(responseObserver, never()).onCompleted();
+
+        // When: the client reads again
+        ArgumentCaptor<Runnable> onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(responseObserver).setOnReadyHandler(onReady.capture());
+        when(responseObserver.isReady()).thenReturn(true);
+        onReady.getValue().run();
+
+        // Then
+        verify(responseObserver).onNext(any());
+        verify(responseObserver).onCompleted();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateAlerts_CreatesBufferedAlertsWhenStreamFails() {
+        // Given
+        CreateAlertRequest request = CreateAlertRequest.newBuilder()
+                .setAlertType("THRESHOLD")
+                .setSeverity("MEDIUM")
+                .setParcelId(1L)
+                .setTitle("Soil moisture low")
+                .setMessage("Moisture below threshold")
+                .build();
+        when(alertService.createAlerts(anyList())).thenReturn(List.of(
+                createMockAlert(10L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM, "Soil moisture low")));
+        StreamObserver<CreateAlertsResponse> responseObserver = mock(StreamObserver.class);
+
+        // When
+        StreamObserver<CreateAlertRequest> requestObserver = grpcService.createAlerts(responseObserver);
+        requestObserver.onNext(request);
+        requestObserver.onError(Status.CANCELLED.asRuntimeException());
+
+        // Then
+        verify(alertService).createAlerts(anyList());
+        verify(responseObserver, never()).onNext(any());
+        verify(responseObserver, never()).onCompleted();
+    }
+
     // ==================== GetAlert Tests ====================
 
     @Test
@@ -171,7 +622,7 @@ class AlertGrpcServiceTest {
                 createMockAlert(2L, Alert.AlertType.FERTILIZATION, Alert.AlertSeverity.MEDIUM, "Alert 2")
         );
 
-        when(alertService.getActiveAlerts()).thenReturn(mockAlerts);
+        when(alertService.getActiveAlerts(any(AlertSearchCriteria.class), isNull())).thenReturn(mockAlerts);
 
         // When
         grpcService.getActiveAlerts(request, alertListResponseObserver);
@@ -198,17 +649,45 @@ class AlertGrpcServiceTest {
                 createMockAlert(1L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.HIGH, "Alert 1")
         );
 
-        when(alertService.getActiveAlertsByParcel(parcelId)).thenReturn(mockAlerts);
+        when(alertService.getActiveAlerts(any(AlertSearchCriteria.class), isNull())).thenReturn(mockAlerts);
 
         // When
         grpcService.getActiveAlerts(request, alertListResponseObserver);
 
         // Then
-        verify(alertService).getActiveAlertsByParcel(parcelId);
+        ArgumentCaptor<AlertSearchCriteria> criteria = ArgumentCaptor.forClass(AlertSearchCriteria.class);
+        verify(alertService).getActiveAlerts(criteria.capture(), isNull());
+        assertEquals(parcelId, criteria.getValue().getParcelId());
         verify(alertListResponseObserver).onNext(any(AlertListResponse.class));
         verify(alertListResponseObserver).onCompleted();
     }
 
+    @Test
+    void testGetActiveAlerts_CombinesFiltersAndLimitInOneQuery() {
+        // Given
+        GetActiveAlertsRequest request = GetActiveAlertsRequest.newBuilder()
+                .setParcelId(5L)
+                .setAlertType("WEATHER")
+                .setSeverity("CRITICAL")
+                .setLimit(20)
+                .build();
+
+        when(alertService.getActiveAlerts(any(AlertSearchCriteria.class), eq(20))).thenReturn(List.of(
+                createMockAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.CRITICAL, "Storm")));
+
+        // When
+        grpcService.getActiveAlerts(request, alertListResponseObserver);
+
+        // Then
+        ArgumentCaptor<AlertSearchCriteria> criteria = ArgumentCaptor.forClass(AlertSearchCriteria.class);
+        verify(alertService).getActiveAlerts(criteria.capture(), eq(20));
+        assertEquals(5L, criteria.getValue().getParcelId());
+        assertEquals(Alert.AlertType.WEATHER, criteria.getValue().getAlertType());
+        assertEquals(Alert.AlertSeverity.CRITICAL, criteria.getValue().getSeverity());
+        verify(alertService, never()).getActiveAlerts();
+        verify(alertListResponseObserver).onNext(any(AlertListResponse.class));
+    }
+
     @Test
     void testGetActiveAlerts_WithLimit() {
         // Given
@@ -217,11 +696,11 @@ class AlertGrpcServiceTest {
                 .build();
 
         List<Alert> mockAlerts = Arrays.asList(
-                createMockAlert(1L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.HIGH, "Alert 1"),
-                createMockAlert(2L, Alert.AlertType.WEATHER, Alert.AlertSeverity.MEDIUM, "Alert 2")
+                createMockAlert(1L, Alert.AlertType.THRESHOLD, Alert.AlertSeverity.HIGH, "Alert 1")
         );
 
-        when(alertService.getActiveAlerts()).thenReturn(mockAlerts);
+        // The limit is applied by the query
+        when(alertService.getActiveAlerts(any(AlertSearchCriteria.class), eq(1))).thenReturn(mockAlerts);
 
         // When
         grpcService.getActiveAlerts(request, alertListResponseObserver);
@@ -264,6 +743,41 @@ class AlertGrpcServiceTest {
         verify(alertResponseObserver).onCompleted();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAcknowledgeAlerts_ReportsOutcomePerId() {
+        // Given
+        String acknowledgedBy = "operator@example.com";
+        AcknowledgeAlertsRequest request = AcknowledgeAlertsRequest.newBuilder()
+                .addAllAlertIds(List.of(1L, 2L, 3L))
+                .setAcknowledgedBy(acknowledgedBy)
+                .build();
+
+        Alert acknowledged = createMockAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, "Test Alert");
+        acknowledged.setAcknowledged(true);
+        acknowledged.setAcknowledgedBy(acknowledgedBy);
+        when(alertService.acknowledgeAlerts(List.of(1L, 2L, 3L), acknowledgedBy)).thenReturn(List.of(
+                new AcknowledgementResult(1L, AcknowledgementResult.Outcome.ACKNOWLEDGED, acknowledged),
+                new AcknowledgementResult(2L, AcknowledgementResult.Outcome.ALREADY_ACKNOWLEDGED, null),
+                new AcknowledgementResult(3L, AcknowledgementResult.Outcome.NOT_FOUND, null)));
+        StreamObserver<AcknowledgeAlertsResponse> observer = mock(StreamObserver.class);
+
+        // When
+        grpcService.acknowledgeAlerts(request, observer);
+
+        // Then
+        ArgumentCaptor<AcknowledgeAlertsResponse> captor = ArgumentCaptor.forClass(AcknowledgeAlertsResponse.class);
+        verify(observer).onNext(captor.capture());
+        verify(observer).onCompleted();
+
+        AcknowledgeAlertsResponse response = captor.getValue();
+        assertEquals(1, response.getAcknowledgedCount());
+        assertEquals(List.of("ACKNOWLEDGED", "ALREADY_ACKNOWLEDGED", "NOT_FOUND"),
+                response.getOutcomesList().stream().map(AcknowledgeOutcome::getStatus).toList());
+        assertTrue(response.getOutcomes(0).getAlert().getAcknowledged());
+        assertFalse(response.getOutcomes(2).hasAlert());
+    }
+
     // ==================== DismissAlert Tests ====================
 
     @Test
@@ -325,6 +839,56 @@ class AlertGrpcServiceTest {
         assertEquals(subscriptionId, response.getSubscriptionId());
     }
 
+    // ==================== GetAlertTrends Tests ====================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetAlertTrends_BuildsTotalsAndSeries() {
+        // Given
+        GetAlertTrendsRequest request = GetAlertTrendsRequest.newBuilder()
+                .setParcelId(5L)
+                .setDays(2)
+                .setGranularity("DAY")
+                .build();
+
+        Map<String, Object> trends = new HashMap<>();
+        trends.put("totalAlerts", 3L);
+        trends.put("byType", Map.of(Alert.AlertType.WEATHER, 3L));
+        trends.put("bySeverity", Map.of(Alert.AlertSeverity.HIGH, 2L, Alert.AlertSeverity.LOW, 1L));
+        trends.put("acknowledgedRate", 50.0);
+        trends.put("avgResponseTime", 12L);
+        trends.put("responseTimePercentiles", new AckLatencyStats(null, null, 2, 600, 1500, 1800));
+        trends.put("responseTimePercentilesByTypeAndSeverity", List.of(
+                new AckLatencyStats(Alert.AlertType.WEATHER, Alert.AlertSeverity.HIGH, 2, 600, 1500, 1800)));
+        when(alertService.getAlertTrends(5L, 2)).thenReturn(trends);
+
+        LocalDateTime day = LocalDateTime.of(2026, 1, 1, 0, 0);
+        when(alertService.getAlertTrendSeries(eq(5L), any(), any(), eq(AlertTrendBucket.Granularity.DAY)))
+                .thenReturn(List.of(new AlertTrendBucket(day, 3, 2, 1440)));
+
+        StreamObserver<AlertTrendsResponse> observer = mock(StreamObserver.class);
+
+        // When
+        grpcService.getAlertTrends(request, observer);
+
+        // Then
+        ArgumentCaptor<AlertTrendsResponse> captor = ArgumentCaptor.forClass(AlertTrendsResponse.class);
+        verify(observer).onNext(captor.capture());
+        verify(observer).onCompleted();
+
+        AlertTrendsResponse response = captor.getValue();
+        assertEquals(3, response.getTotalAlerts());
+        assertEquals(2L, response.getBySeverityOrThrow("HIGH"));
+        assertEquals(3L, response.getByTypeOrThrow("WEATHER"));
+        assertEquals(1, response.getSeriesCount());
+        assertEquals(2, response.getSeries(0).getAcknowledged());
+        assertEquals(12, response.getSeries(0).getAvgResponseMinutes());
+        assertEquals(1500, response.getAckLatency().getP90Seconds());
+        assertFalse(response.getAckLatency().hasAlertType());
+        assertEquals("WEATHER", response.getAckLatencyByTypeAndSeverity(0).getAlertType());
+        verify(alertService, never()).getAcknowledgementLatencies(any(), anyInt());
+    }
+
     // ==================== Helper Methods ====================
 
     private Alert createMockAlert(Long id, Alert.AlertType type,
@@ -0,0 +1,150 @@
+package com.smartagri.alert;
+
+import com.google.protobuf.FieldMask;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.grpc.generated.*;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.service.AlertGrpcService;
+import com.smartagri.alert.service.AlertGrpcServiceV2;
+import com.smartagri.alert.service.AlertIngestPipeline;
+import com.smartagri.alert.service.AlertService;
+import com.smartagri.alert.service.AlertStreamRegistry;
+import com.smartagri.alert.service.AlertStreamRouter;
+import com.smartagri.alert.service.StreamOverflowPolicy;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertGrpcServiceV2Test {
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private StreamObserver<AlertV2> alertObserver;
+
+    @Mock
+    private StreamObserver<AlertListV2Response> alertListObserver;
+
+    private AlertEventHub eventHub;
+
+    private AlertGrpcServiceV2 grpcService;
+
+    @BeforeEach
+    void setUp() {
+        eventHub = new AlertEventHub(100);
+        AlertStreamRegistry streamRegistry = new AlertStreamRegistry(new AlertStreamRouter(eventHub),
+                new AlertMetrics(new SimpleMeterRegistry()), StreamOverflowPolicy.COALESCE, 100, 60000);
+        AlertGrpcService v1Service = new AlertGrpcService(alertService, streamRegistry, eventHub,
+                new AlertIngestPipeline(alertService, 100, 60000));
+        grpcService = new AlertGrpcServiceV2(alertService, v1Service);
+    }
+
+    @Test
+    void testGetActiveAlerts_ReturnsOnlyMaskedFields() {
+        // Given
+        GetActiveAlertsV2Request request = GetActiveAlertsV2Request.newBuilder()
+                .setParcelId(5L)
+                .setSeverity(AlertSeverityV2.ALERT_SEVERITY_CRITICAL)
+                .setFieldMask(FieldMask.newBuilder().addPaths("title").addPaths("alert_time"))
+                .build();
+
+        Alert alert = createAlert(1L, Alert.AlertType.WEATHER, Alert.AlertSeverity.CRITICAL, "Hail");
+        when(alertService.getActiveAlerts(any(AlertSearchCriteria.class), isNull())).thenReturn(List.of(alert));
+
+        // When
+        grpcService.getActiveAlerts(request, alertListObserver);
+
+        // Then
+        ArgumentCaptor<AlertSearchCriteria> criteria = ArgumentCaptor.forClass(AlertSearchCriteria.class);
+        verify(alertService).getActiveAlerts(criteria.capture(), isNull());
+        assertEquals(Alert.AlertSeverity.CRITICAL, criteria.getValue().getSeverity());
+
+        ArgumentCaptor<AlertListV2Response> captor = ArgumentCaptor.forClass(AlertListV2Response.class);
+        verify(alertListObserver).onNext(captor.capture());
+        AlertV2 response = captor.getValue().getAlerts(0);
+        assertEquals(1L, response.getId());
+        assertEquals("Hail", response.getTitle());
+        assertEquals(alert.getAlertTime().atZone(ZoneId.systemDefault()).toEpochSecond(),
+                response.getAlertTime().getSeconds());
+        assertEquals("", response.getMessage());
+        assertEquals(AlertSeverityV2.ALERT_SEVERITY_UNSPECIFIED, response.getSeverity());
+    }
+
+    @Test
+    void testGetActiveAlerts_RejectsUnknownMaskPath() {
+        // Given
+        GetActiveAlertsV2Request request = GetActiveAlertsV2Request.newBuilder()
+                .setFieldMask(FieldMask.newBuilder().addPaths("no_such_field"))
+                .build();
+
+        // When
+        grpcService.getActiveAlerts(request, alertListObserver);
+
+        // Then
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(alertListObserver).onError(captor.capture());
+        assertEquals(Status.Code.INVALID_ARGUMENT, ((StatusException) captor.getValue()).getStatus().getCode());
+        verifyNoInteractions(alertService);
+    }
+
+    @Test
+    void testStreamAlerts_LiveChangesUseEnumsAndMask() {
+        // Given
+        StreamAlertsV2Request request = StreamAlertsV2Request.newBuilder()
+                .addSeverities(AlertSeverityV2.ALERT_SEVERITY_HIGH)
+                .setFieldMask(FieldMask.newBuilder().addPaths("severity"))
+                .build();
+
+        // When
+        grpcService.streamAlerts(request, alertObserver);
+        eventHub.publish(AlertEventType.CREATED,
+                createAlert(2L, Alert.AlertType.PEST, Alert.AlertSeverity.LOW, "Filtered out"));
+        eventHub.publish(AlertEventType.ACKNOWLEDGED,
+                createAlert(3L, Alert.AlertType.PEST, Alert.AlertSeverity.HIGH, "Aphids"));
+
+        // Then
+        ArgumentCaptor<AlertV2> captor = ArgumentCaptor.forClass(AlertV2.class);
+        verify(alertObserver, timeout(1000)).onNext(captor.capture());
+        verify(alertObserver, never()).onError(any());
+
+        AlertV2 response = captor.getValue();
+        assertEquals(3L, response.getId());
+        assertEquals(AlertSeverityV2.ALERT_SEVERITY_HIGH, response.getSeverity());
+        assertEquals(AlertEventTypeV2.ALERT_EVENT_TYPE_ACKNOWLEDGED, response.getEventType());
+        assertTrue(response.hasEventSequence());
+        assertEquals("", response.getTitle());
+    }
+
+    private Alert createAlert(Long id, Alert.AlertType type, Alert.AlertSeverity severity, String title) {
+        Alert alert = new Alert();
+        alert.setId(id);
+        alert.setAlertType(type);
+        alert.setSeverity(severity);
+        alert.setTitle(title);
+        alert.setMessage("Test message");
+        alert.setAlertTime(LocalDateTime.now());
+        alert.setIsActive(true);
+        alert.setAcknowledged(false);
+        return alert;
+    }
+}
@@ -0,0 +1,98 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.history.AlertHistoryWriter;
+import com.smartagri.alert.metrics.AlertMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertHistoryWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AlertHistoryWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        reset(jdbcTemplate);
+        writer.shutdown();
+    }
+
+    @Test
+    void testFullBufferDropsInsteadOfBlockingWhileDatabaseIsDown() {
+        // Given
+        writer = createWriter(2, 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // When
+        long start = System.nanoTime();
+        writer.recordAll(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), "CREATED", null, "Alert created");
+
+        // Then
+        assertTrue(System.nanoTime() - start < 2_000_000_000L, "Committing thread waited too long");
+        assertTrue(registry.get("alerts.history.dropped").counter().count() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRejectedBatchIsWrittenOneByOneAfterMaxAttempts() throws Exception {
+        // Given: alert 13 breaks every batch it is part of
+        writer = createWriter(100, 2);
+        List<Long> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(invocation -> {
+            Collection<Object> batch = invocation.getArgument(1);
+            ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+            List<Long> ids = new ArrayList<>();
+            for (Object entry : batch) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                setter.setValues(ps, entry);
+                ArgumentCaptor<Long> alertId = ArgumentCaptor.forClass(Long.class);
+                verify(ps).setLong(eq(1), alertId.capture());
+                ids.add(alertId.getValue());
+            }
+            if (ids.contains(13L)) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            written.addAll(ids);
+            return new int[0][];
+        });
+
+        writer.recordAll(List.of(11L, 13L, 12L), "CREATED", null, "Alert created");
+        writer.flush();
+        writer.record(14L, "ACKNOWLEDGED", "user", null);
+
+        // When
+        writer.flush();
+
+        // Then
+        assertEquals(List.of(11L, 12L, 14L), written);
+        assertEquals(1, registry.get("alerts.history.dropped").counter().count());
+    }
+
+    private AlertHistoryWriter createWriter(int bufferCapacity, int maxAttempts) {
+        return new AlertHistoryWriter(jdbcTemplate, new AlertMetrics(registry), 10, 60000, bufferCapacity,
+                50, maxAttempts, false);
+    }
+}
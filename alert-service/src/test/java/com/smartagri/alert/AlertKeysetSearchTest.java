@@ -0,0 +1,91 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.archive.AlertArchive;
+import com.smartagri.alert.dedupe.AlertDeduplicator;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.AlertSearchPage;
+import com.smartagri.alert.history.AlertHistoryWriter;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.notification.NotificationDispatcher;
+import com.smartagri.alert.outbox.AlertOutbox;
+import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.repository.AlertRollupRepository;
+import com.smartagri.alert.repository.AlertSubscriptionRepository;
+import com.smartagri.alert.service.ActiveAlertStore;
+import com.smartagri.alert.service.AlertServiceImpl;
+import com.smartagri.alert.service.AlertSubscriptionIndex;
+import com.smartagri.alert.service.DatabaseHealthProbe;
+import com.smartagri.alert.stats.AlertCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+class AlertKeysetSearchTest {
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    private AlertServiceImpl alertService;
+
+    @BeforeEach
+    void setUp() {
+        alertService = new AlertServiceImpl(alertRepository, mock(AlertSubscriptionRepository.class),
+                mock(AlertHistoryWriter.class), mock(AlertOutbox.class), mock(AlertSubscriptionIndex.class),
+                mock(NotificationDispatcher.class), mock(TransactionTemplate.class), mock(AlertDeduplicator.class),
+                mock(AlertCounters.class), mock(AlertRollupRepository.class), mock(ActiveAlertStore.class),
+                mock(AlertArchive.class), mock(AlertMetrics.class), mock(DatabaseHealthProbe.class));
+    }
+
+    @Test
+    void testPagedWalkVisitsEveryAlertOnceAcrossTiedAlertTimes() {
+        // Given: three alerts share one alert time and two share another
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Alert> alerts = new ArrayList<>();
+        for (LocalDateTime alertTime : List.of(now, now, now.minusMinutes(1), now, now.minusMinutes(1))) {
+            alerts.add(alertRepository.save(createAlert(alertTime)));
+        }
+        List<Long> expected = alerts.stream()
+                .sorted(Comparator.comparing(Alert::getAlertTime).thenComparing(Alert::getId).reversed())
+                .map(Alert::getId)
+                .toList();
+
+        // When: walking pages of two, each starting from the previous cursor
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AlertSearchPage page = alertService.searchAlerts(new AlertSearchCriteria(), cursor, 2, false);
+            page.getAlerts().forEach(alert -> walked.add(alert.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then
+        assertEquals(expected, walked);
+        assertEquals(3, pages);
+    }
+
+    private Alert createAlert(LocalDateTime alertTime) {
+        Alert alert = new Alert();
+        alert.setAlertType(Alert.AlertType.WEATHER);
+        alert.setSeverity(Alert.AlertSeverity.HIGH);
+        alert.setParcelId(1L);
+        alert.setTitle("Frost risk");
+        alert.setMessage("Temperature below zero");
+        alert.setAlertTime(alertTime);
+        return alert;
+    }
+}
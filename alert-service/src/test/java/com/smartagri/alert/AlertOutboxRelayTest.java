@@ -0,0 +1,145 @@
+package com.smartagri.alert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartagri.alert.event.AlertEventHub;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.model.AlertOutboxEvent;
+import com.smartagri.alert.notification.NotificationDispatcher;
+import com.smartagri.alert.outbox.AlertOutboxRelay;
+import com.smartagri.alert.repository.AlertOutboxRepository;
+import com.smartagri.alert.service.AlertSubscriptionIndex;
+import com.smartagri.alert.stats.AlertRollupWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertOutboxRelayTest {
+
+    @Mock
+    private AlertOutboxRepository outboxRepository;
+
+    @Mock
+    private AlertEventHub eventHub;
+
+    @Mock
+    private AlertSubscriptionIndex subscriptionIndex;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private AlertRollupWriter rollupWriter;
+
+    @Mock
+    private AlertMetrics metrics;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AlertOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new AlertOutboxRelay(outboxRepository, eventHub, subscriptionIndex, notificationDispatcher,
+                rollupWriter, metrics, objectMapper, transactionTemplate, jdbcTemplate, 100, 86400000);
+    }
+
+    @Test
+    void testRelayWaitsForSubscriptionIndex() {
+        // Given: the index cannot be loaded yet
+        when(subscriptionIndex.isLoaded()).thenReturn(false);
+
+        // When
+        relay.wakeUp();
+        relay.shutdown();
+
+        // Then: nothing is numbered as relayed without its subscribers
+        verify(subscriptionIndex).rebuild();
+        verify(transactionTemplate, never()).execute(any());
+        verify(outboxRepository, never()).lockNextBatch(anyInt());
+    }
+
+    @Test
+    void testSamplesOfCommittedBatchAreRecordedOnce() throws Exception {
+        // Given
+        relayAcknowledgement(true);
+
+        // When
+        relay.wakeUp();
+        relay.shutdown();
+
+        // Then
+        verify(metrics).recordAcknowledgeLatency(Alert.AlertType.PEST, Alert.AlertSeverity.HIGH,
+                Duration.ofMinutes(90));
+        verify(metrics).recordOutboxLag(anyLong());
+    }
+
+    @Test
+    void testSamplesOfRolledBackBatchAreNotRecorded() throws Exception {
+        // Given: the batch is rolled back, so it will be relayed and sampled again
+        relayAcknowledgement(false);
+
+        // When
+        relay.wakeUp();
+        relay.shutdown();
+
+        // Then
+        verify(metrics, never()).recordAcknowledgeLatency(any(), any(), any());
+        verify(metrics, never()).recordOutboxLag(anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void relayAcknowledgement(boolean commit) throws Exception {
+        LocalDateTime raised = LocalDateTime.now().minusHours(2);
+        Alert alert = new Alert();
+        alert.setId(7L);
+        alert.setAlertType(Alert.AlertType.PEST);
+        alert.setSeverity(Alert.AlertSeverity.HIGH);
+        alert.setAlertTime(raised);
+        alert.setAcknowledged(true);
+        alert.setAcknowledgedAt(raised.plusMinutes(90));
+        AlertOutboxEvent event = new AlertOutboxEvent();
+        event.setId(1L);
+        event.setAlertId(7L);
+        event.setEventType("ACKNOWLEDGED");
+        event.setPayload(objectMapper.writeValueAsString(alert));
+        event.setCreatedAt(LocalDateTime.now());
+
+        when(subscriptionIndex.isLoaded()).thenReturn(true);
+        when(outboxRepository.lockNextBatch(100)).thenReturn(List.of(event));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                Object result = invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null);
+                if (commit) {
+                    TransactionSynchronizationManager.getSynchronizations()
+                            .forEach(TransactionSynchronization::afterCommit);
+                }
+                return result;
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.archive.AlertArchive;
+import com.smartagri.alert.archive.AlertPartitionManager;
+import com.smartagri.alert.exception.AlertServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertPartitionManagerTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private AlertArchive archive;
+
+    private final YearMonth now = YearMonth.now();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMaintenanceCreatesUpcomingMonthsAndArchivesUpToFirstActivePartition() {
+        // Given: the two months past retention are attached, and the newer one still has an active alert
+        String expired = partition("alerts", now.minusMonths(14));
+        String stillActive = partition("alerts", now.minusMonths(13));
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), any(Object[].class)))
+                .thenAnswer(invocation -> "alerts".equals(invocation.getArgument(2))
+                        ? List.of(expired, stillActive, partition("alerts", now.minusMonths(12)))
+                        : List.of());
+        when(jdbcTemplate.queryForList(contains("relispartition"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForObject(contains("is_active"), eq(Boolean.class)))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0).contains(stillActive));
+
+        // When
+        new AlertPartitionManager(jdbcTemplate, transactionTemplate, archive, true, 12, 2).maintain();
+
+        // Then: the current and two upcoming months exist for both tables
+        for (int i = 0; i <= 2; i++) {
+            verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS "
+                    + partition("alerts", now.plusMonths(i)) + " PARTITION OF alerts"));
+            verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS "
+                    + partition("alert_history", now.plusMonths(i)) + " PARTITION OF alert_history"));
+        }
+        verify(jdbcTemplate).execute("ALTER TABLE alerts DETACH PARTITION " + expired);
+        verify(archive).export("alerts", expired, "alert_time", now.minusMonths(14));
+        verify(jdbcTemplate).execute("DROP TABLE " + expired);
+        verify(jdbcTemplate, never()).execute("ALTER TABLE alerts DETACH PARTITION " + stillActive);
+        verify(archive, never()).export(eq("alerts"), eq(stillActive), anyString(), any());
+    }
+
+    @Test
+    void testFailedConversionStopsStartup() {
+        // Given
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        AlertPartitionManager manager = new AlertPartitionManager(jdbcTemplate, transactionTemplate, archive,
+                true, 12, 2);
+
+        // When / Then
+        assertThrows(AlertServiceException.class, manager::afterSingletonsInstantiated);
+    }
+
+    @Test
+    void testConversionChecksTableKindOnlyOnceLocked() {
+        // Given: another instance converted the table while this one waited for the lock
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(String.class), any(Object[].class))).thenReturn("p");
+
+        // When
+        new AlertPartitionManager(jdbcTemplate, transactionTemplate, archive, true, 12, 2)
+                .afterSingletonsInstantiated();
+
+        // Then
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("SELECT pg_advisory_xact_lock("));
+        inOrder.verify(jdbcTemplate).queryForObject(contains("relkind"), eq(String.class), eq("alerts"));
+        verify(jdbcTemplate, never()).execute(contains("RENAME"));
+    }
+
+    private static String partition(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+}
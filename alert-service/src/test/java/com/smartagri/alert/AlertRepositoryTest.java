@@ -0,0 +1,62 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.repository.AlertRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+class AlertRepositoryTest {
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Test
+    void testUnacknowledgedAlertsAreRankedBySeverity() {
+        // Given: alphabetically LOW > HIGH > CRITICAL
+        LocalDateTime now = LocalDateTime.now();
+        for (Alert.AlertSeverity severity : List.of(Alert.AlertSeverity.LOW, Alert.AlertSeverity.CRITICAL,
+                Alert.AlertSeverity.MEDIUM, Alert.AlertSeverity.HIGH)) {
+            alertRepository.save(createAlert(severity, now));
+        }
+
+        // When
+        List<Alert> alerts = alertRepository.findUnacknowledgedAlerts();
+
+        // Then
+        assertEquals(List.of(Alert.AlertSeverity.CRITICAL, Alert.AlertSeverity.HIGH, Alert.AlertSeverity.MEDIUM,
+                        Alert.AlertSeverity.LOW),
+                alerts.stream().map(Alert::getSeverity).toList());
+    }
+
+    @Test
+    void testEveryUpdateBumpsTheRowVersion() {
+        // Given
+        Alert alert = alertRepository.saveAndFlush(createAlert(Alert.AlertSeverity.HIGH, LocalDateTime.now()));
+        long created = alert.getRowVersion();
+
+        // When
+        alert.setAcknowledged(true);
+        Alert acknowledged = alertRepository.saveAndFlush(alert);
+
+        // Then
+        assertEquals(created + 1, acknowledged.getRowVersion());
+    }
+
+    private Alert createAlert(Alert.AlertSeverity severity, LocalDateTime alertTime) {
+        Alert alert = new Alert();
+        alert.setAlertType(Alert.AlertType.WEATHER);
+        alert.setSeverity(severity);
+        alert.setParcelId(1L);
+        alert.setTitle("Frost risk");
+        alert.setMessage("Temperature below zero");
+        alert.setAlertTime(alertTime);
+        return alert;
+    }
+}
@@ -0,0 +1,56 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.exception.AlertServiceException;
+import com.smartagri.alert.stats.AlertRollupWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertRollupWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testPopulatedRollupsAreNotBackfilledAgain() {
+        // Given
+        runTransactionsInline();
+        when(jdbcTemplate.queryForObject(contains("alert_hourly_rollups"), eq(Boolean.class))).thenReturn(true);
+
+        // When
+        new AlertRollupWriter(jdbcTemplate, transactionTemplate, true).afterSingletonsInstantiated();
+
+        // Then
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+
+    @Test
+    void testFailedBackfillStopsStartup() {
+        // Given: the backfill would be skipped for good once a relay writes the first rollup
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        AlertRollupWriter writer = new AlertRollupWriter(jdbcTemplate, transactionTemplate, true);
+
+        // When / Then
+        assertThrows(AlertServiceException.class, writer::afterSingletonsInstantiated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+    }
+}
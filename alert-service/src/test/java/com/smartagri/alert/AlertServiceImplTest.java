@@ -0,0 +1,220 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.dedupe.AlertDeduplicator;
+import com.smartagri.alert.dto.AlertSearchCriteria;
+import com.smartagri.alert.dto.NewAlert;
+import com.smartagri.alert.event.AlertEventType;
+import com.smartagri.alert.history.AlertHistoryWriter;
+import com.smartagri.alert.metrics.AlertMetrics;
+import com.smartagri.alert.model.Alert;
+import com.smartagri.alert.outbox.AlertOutbox;
+import com.smartagri.alert.repository.AlertRepository;
+import com.smartagri.alert.service.ActiveAlertStore;
+import com.smartagri.alert.service.AlertServiceImpl;
+import com.smartagri.alert.stats.AlertCounters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertServiceImplTest {
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private AlertHistoryWriter historyWriter;
+
+    @Mock
+    private AlertOutbox outbox;
+
+    @Mock
+    private AlertDeduplicator deduplicator;
+
+    @Mock
+    private ActiveAlertStore activeAlerts;
+
+    @Mock
+    private AlertMetrics metrics;
+
+    @Mock
+    private AlertCounters alertCounters;
+
+    @InjectMocks
+    private AlertServiceImpl alertService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateAlertsCoalescesRepeatsInBatchAndOfOpenAlerts() {
+        // Given: moisture is new, frost repeats open alert 7
+        NewAlert moisture = newAlert("Soil moisture low");
+        NewAlert frost = newAlert("Frost risk");
+        Alert open = new Alert();
+        open.setId(7L);
+        when(deduplicator.isEnabled()).thenReturn(true);
+        when(deduplicator.coalesceOrClaim(eq(fingerprint(moisture)), any())).thenReturn(Optional.empty());
+        when(deduplicator.coalesceOrClaim(eq(fingerprint(frost)), any())).thenReturn(Optional.of(open));
+        when(alertRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Alert> alerts = invocation.getArgument(0);
+            alerts.forEach(alert -> alert.setId(10L));
+            return alerts;
+        });
+
+        // When
+        List<Alert> results = alertService.createAlerts(List.of(moisture, frost, moisture));
+
+        // Then: one alert created, for two occurrences, and its fingerprint bound
+        ArgumentCaptor<List<Alert>> saved = ArgumentCaptor.forClass(List.class);
+        verify(alertRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(2, saved.getValue().get(0).getOccurrenceCount());
+        verify(deduplicator).bindAll(saved.getValue());
+        verify(deduplicator, times(2)).coalesceOrClaim(anyString(), any());
+
+        assertEquals(List.of(10L, 7L, 10L), results.stream().map(Alert::getId).toList());
+        // The bump of the open alert reaches other instances and streams through the outbox
+        verify(outbox).appendAll(AlertEventType.COALESCED, List.of(open));
+        verify(historyWriter).recordAll(List.of(7L), "COALESCED", null, "Alert raised again");
+        verify(metrics).recordAlertCreated(Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM);
+        verify(metrics, times(2)).recordAlertCoalesced(Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM);
+    }
+
+    @Test
+    void testMetricsAreRecordedOnlyOnceCommitted() {
+        // Given
+        when(alertRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When: the transaction has not committed yet
+            alertService.createAlerts(List.of(newAlert("Soil moisture low")));
+
+            // Then
+            verify(metrics, never()).recordAlertCreated(any(), any());
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Then
+            verify(metrics).recordAlertCreated(Alert.AlertType.THRESHOLD, Alert.AlertSeverity.MEDIUM);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRolledBackChangesAreNotCounted() {
+        // Given
+        when(alertRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            alertService.createAlerts(List.of(newAlert("Soil moisture low")));
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verifyNoInteractions(metrics);
+    }
+
+    @Test
+    void testGetActiveAlertsLeavesCallerCriteriaUnchanged() {
+        // Given
+        AlertSearchCriteria criteria = AlertSearchCriteria.builder().alertType(Alert.AlertType.PEST).build();
+        when(activeAlerts.isLoaded()).thenReturn(true);
+
+        // When
+        alertService.getActiveAlerts(criteria, 10);
+
+        // Then
+        ArgumentCaptor<AlertSearchCriteria> searched = ArgumentCaptor.forClass(AlertSearchCriteria.class);
+        verify(activeAlerts).find(searched.capture(), eq(10));
+        assertTrue(searched.getValue().getIsActive());
+        assertEquals(Alert.AlertType.PEST, searched.getValue().getAlertType());
+        assertNull(criteria.getIsActive());
+    }
+
+    @Test
+    void testAcknowledgeDoesNotConflictWithConcurrentOccurrence() {
+        // Given: the alert re-fired after the operator loaded it, so the database returns the bumped row
+        Alert acknowledged = new Alert();
+        acknowledged.setId(5L);
+        acknowledged.setAlertType(Alert.AlertType.PEST);
+        acknowledged.setSeverity(Alert.AlertSeverity.HIGH);
+        acknowledged.setAcknowledged(true);
+        acknowledged.setOccurrenceCount(3);
+        acknowledged.setRowVersion(4L);
+        when(alertRepository.acknowledgeAlerts(eq(List.of(5L)), eq("operator"), any()))
+                .thenReturn(List.of(acknowledged));
+
+        // When
+        Alert result = alertService.acknowledgeAlert(5L, "operator");
+
+        // Then: acknowledged in one statement, never written back from a stale read
+        assertSame(acknowledged, result);
+        verify(alertRepository, never()).findById(any());
+        verify(alertRepository, never()).saveAndFlush(any());
+        verify(outbox).append(AlertEventType.ACKNOWLEDGED, acknowledged);
+    }
+
+    @Test
+    void testAcknowledgeAlreadyAcknowledgedAlertReturnsItUnchanged() {
+        // Given
+        Alert alert = new Alert();
+        alert.setId(5L);
+        alert.setAcknowledged(true);
+        when(alertRepository.acknowledgeAlerts(eq(List.of(5L)), eq("operator"), any())).thenReturn(List.of());
+        when(alertRepository.findById(5L)).thenReturn(Optional.of(alert));
+
+        // When
+        Alert result = alertService.acknowledgeAlert(5L, "operator");
+
+        // Then
+        assertSame(alert, result);
+        verifyNoInteractions(outbox);
+    }
+
+    @Test
+    void testUnacknowledgedCountOfParcelIsServedFromCounters() {
+        // Given
+        when(alertCounters.isLoaded()).thenReturn(true);
+        when(alertCounters.getUnacknowledged(3L)).thenReturn(4L);
+
+        // When
+        long count = alertService.countUnacknowledgedAlertsByParcel(3L);
+
+        // Then
+        assertEquals(4L, count);
+        verifyNoInteractions(alertRepository);
+    }
+
+    private NewAlert newAlert(String title) {
+        return NewAlert.builder()
+                .alertType(Alert.AlertType.THRESHOLD)
+                .severity(Alert.AlertSeverity.MEDIUM)
+                .parcelId(1L)
+                .title(title)
+                .message("Threshold crossed")
+                .build();
+    }
+
+    private String fingerprint(NewAlert alert) {
+        return AlertDeduplicator.fingerprint(alert.getAlertType(), alert.getParcelId(), alert.getLocation(),
+                alert.getTitle());
+    }
+}
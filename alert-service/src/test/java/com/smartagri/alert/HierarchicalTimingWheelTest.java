@@ -0,0 +1,58 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.expiry.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void testTimersFireInTheTickOfTheirDeadline() {
+        // Given: 100ms ticks and 8 buckets, so level ranges are 0.8s, 6.4s and 51.2s
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(100, 8, START);
+        long[] deadlines = {START + 150, START + 799, START + 5_432, START + 40_001};
+        for (int i = 0; i < deadlines.length; i++) {
+            assertTrue(wheel.schedule(i, deadlines[i]));
+        }
+
+        // When: the clock is advanced one millisecond at a time
+        List<Long> firedAt = new ArrayList<>(List.of(-1L, -1L, -1L, -1L));
+        for (long now = START; now <= START + 41_000; now++) {
+            for (Long id : wheel.advance(now)) {
+                firedAt.set(id.intValue(), now);
+            }
+        }
+
+        // Then: never before the deadline, never more than a tick after it
+        for (int i = 0; i < deadlines.length; i++) {
+            assertTrue(firedAt.get(i) >= deadlines[i], "timer " + i + " fired early");
+            assertTrue(firedAt.get(i) < deadlines[i] + 100, "timer " + i + " fired late");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelledAndRescheduledTimers() {
+        // Given
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(100, 8, START);
+        wheel.schedule(1L, START + 500);
+        wheel.schedule(2L, START + 500);
+        wheel.schedule(3L, START + 500);
+
+        // When
+        wheel.cancel(1L);
+        wheel.schedule(2L, START + 3_000);
+
+        // Then
+        assertEquals(List.of(3L), wheel.advance(START + 600));
+        assertEquals(List.of(), wheel.advance(START + 2_900));
+        assertEquals(List.of(2L), wheel.advance(START + 3_000));
+        assertFalse(wheel.schedule(4L, START + 2_000));
+    }
+}
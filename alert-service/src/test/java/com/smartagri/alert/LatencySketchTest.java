@@ -0,0 +1,49 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.stats.LatencySketch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencySketchTest {
+
+    @Test
+    void testQuantilesStayWithinRelativeAccuracy() {
+        // Given: latencies 1..10000 seconds
+        LatencySketch sketch = new LatencySketch();
+        for (long seconds = 1; seconds <= 10_000; seconds++) {
+            sketch.add(seconds);
+        }
+
+        // Then
+        assertEquals(10_000, sketch.getCount());
+        assertWithinAccuracy(5_000, sketch.quantile(0.5));
+        assertWithinAccuracy(9_000, sketch.quantile(0.9));
+        assertWithinAccuracy(9_900, sketch.quantile(0.99));
+    }
+
+    @Test
+    void testMergedSketchesMatchOneSketchOverAllValues() {
+        // Given: the same values split over two hourly sketches and stored as bin arrays
+        LatencySketch whole = new LatencySketch();
+        LatencySketch firstHour = new LatencySketch();
+        LatencySketch secondHour = new LatencySketch();
+        for (long seconds = 0; seconds < 2_000; seconds += 7) {
+            whole.add(seconds);
+            (seconds % 2 == 0 ? firstHour : secondHour).add(seconds);
+        }
+
+        // When
+        LatencySketch merged = LatencySketch.fromArray(firstHour.toArray());
+        merged.merge(LatencySketch.fromArray(secondHour.toArray()));
+
+        // Then
+        assertArrayEquals(whole.toArray(), merged.toArray());
+        assertEquals(whole.quantile(0.99), merged.quantile(0.99));
+    }
+
+    private static void assertWithinAccuracy(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * LatencySketch.RELATIVE_ACCURACY + 1,
+                "expected about " + expected + " but was " + actual);
+    }
+}
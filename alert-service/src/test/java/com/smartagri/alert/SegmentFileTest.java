@@ -0,0 +1,75 @@
+package com.smartagri.alert;
+
+import com.smartagri.alert.archive.SegmentFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class SegmentFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testColumnsRoundTripWithNulls() throws Exception {
+        // Given: three rows, with a null in every column but the time column
+        LocalDateTime first = LocalDateTime.of(2025, 3, 1, 8, 15, 30, 123_456_000);
+        LocalDateTime last = first.plusDays(20);
+        Object[][] rows = {
+                {5L, first, "Frost warning", true},
+                {null, first.plusHours(1), null, null},
+                {3L, last, "Pest detected", false}
+        };
+
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnName(anyInt())).thenAnswer(call ->
+                List.of("id", "alert_time", "title", "acknowledged").get(call.<Integer>getArgument(0) - 1));
+        when(metaData.getColumnType(anyInt())).thenAnswer(call ->
+                List.of(Types.BIGINT, Types.TIMESTAMP, Types.VARCHAR, Types.BOOLEAN).get(call.<Integer>getArgument(0) - 1));
+
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        Object[] lastRead = new Object[1];
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(rs.next()).thenAnswer(call -> ++row[0] < rows.length);
+        when(rs.getLong(anyInt())).thenAnswer(call -> {
+            lastRead[0] = rows[row[0]][call.<Integer>getArgument(0) - 1];
+            return lastRead[0] != null ? (Long) lastRead[0] : 0L;
+        });
+        when(rs.getBoolean(anyInt())).thenAnswer(call -> {
+            lastRead[0] = rows[row[0]][call.<Integer>getArgument(0) - 1];
+            return Boolean.TRUE.equals(lastRead[0]);
+        });
+        when(rs.wasNull()).thenAnswer(call -> lastRead[0] == null);
+        when(rs.getString(anyInt())).thenAnswer(call -> rows[row[0]][call.<Integer>getArgument(0) - 1]);
+        when(rs.getObject(anyInt(), eq(LocalDateTime.class))).thenAnswer(call ->
+                rows[row[0]][call.<Integer>getArgument(0) - 1]);
+
+        // When
+        Path path = directory.resolve("alerts-2025-03.seg");
+        SegmentFile.write(path, rs, "alert_time");
+        SegmentFile.Header header = SegmentFile.readHeader(path);
+        Map<String, Object[]> columns = SegmentFile.readColumns(path, header, List.of("id", "title", "acknowledged"));
+
+        // Then
+        assertEquals(3, header.rowCount());
+        assertEquals(first, header.minTime());
+        assertEquals(last, header.maxTime());
+        assertArrayEquals(new Object[]{5L, null, 3L}, columns.get("id"));
+        assertArrayEquals(new Object[]{"Frost warning", null, "Pest detected"}, columns.get("title"));
+        assertArrayEquals(new Object[]{true, null, false}, columns.get("acknowledged"));
+        assertFalse(columns.containsKey("alert_time"));
+    }
+}